@@ -30,10 +30,22 @@ android {
         }
     }
 
+    // The shelf-life catalog is memory-mapped straight out of the APK
+    androidResources {
+        noCompress += "catalog"
+    }
+
     compileOptions {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
     }
+
+    // Desktop build tools the unit tests exercise, e.g. the catalog writer
+    sourceSets {
+        getByName("test") {
+            java.srcDir("../tools/java")
+        }
+    }
 }
 
 dependencies {
@@ -46,5 +58,6 @@ dependencies {
     androidTestImplementation(libs.espresso.core)
     implementation("com.airbnb.android:lottie:5.2.0") // downgraded from 6.3.0
     implementation("androidx.viewpager2:viewpager2:1.0.0")
+    implementation("androidx.recyclerview:recyclerview:1.3.2")
 }
 
@@ -0,0 +1,293 @@
+package com.example.productexpirationtrackerapp;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+// Process-wide, typed view of the "AppPrefs" settings. The file is read once
+// on a background thread; until then reads return the defaults and never touch
+// the disk. Writes change memory at once and reach the file as one batch per
+// Editor.apply(). Values and listeners belong to the main thread.
+public class AppSettings {
+
+    private static final String TAG = "AppSettings";
+    private static final String PREFS_NAME = "AppPrefs";
+
+    public static final String KEY_USER_NAME = "user_name";
+    public static final String KEY_COLOR_THEME = "color_theme";
+    public static final String KEY_NOTIFICATIONS = "notifications";
+    public static final String KEY_SETUP_COMPLETED = "setup_completed";
+    public static final String KEY_FIRST_TIME = "is_first_time";
+    public static final String KEY_LAST_ALERT_DAY = "last_alert_day";
+
+    public static final String DEFAULT_USER_NAME = "User";
+    public static final String DEFAULT_COLOR_THEME = "white";
+    public static final int NO_ALERT_DAY = Integer.MIN_VALUE;
+
+    public interface LoadCallback {
+        void onLoaded(AppSettings settings);
+    }
+
+    // Told on the main thread after a value changed, by a write or by the
+    // stored value replacing its default once the file is read
+    public interface ChangeListener {
+        void onSettingChanged(String key);
+    }
+
+    private static final Map<String, Object> DEFAULTS = new HashMap<>();
+
+    static {
+        DEFAULTS.put(KEY_USER_NAME, DEFAULT_USER_NAME);
+        DEFAULTS.put(KEY_COLOR_THEME, DEFAULT_COLOR_THEME);
+        DEFAULTS.put(KEY_NOTIFICATIONS, true);
+        DEFAULTS.put(KEY_SETUP_COMPLETED, false);
+        DEFAULTS.put(KEY_FIRST_TIME, true);
+        DEFAULTS.put(KEY_LAST_ALERT_DAY, NO_ALERT_DAY);
+    }
+
+    private static AppSettings instance;
+
+    public static synchronized AppSettings getInstance(Context context) {
+        if (instance == null) {
+            instance = new AppSettings(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private final Context context;
+    private final Executor mainExecutor;
+    // Reads and writes the file in submission order, so writes land after the load
+    private final ExecutorService settingsExecutor;
+    // Settings thread only
+    private SharedPreferences preferences;
+
+    // Main-thread state
+    private final HashMap<String, Object> values = new HashMap<>(DEFAULTS);
+    // Keys written before the file was read; the stored value is stale for them
+    private final HashSet<String> writtenBeforeLoad = new HashSet<>();
+    private final ArrayList<LoadCallback> pendingCallbacks = new ArrayList<>();
+    private final ArrayList<ChangeListener> changeListeners = new ArrayList<>();
+    private boolean loaded;
+
+    private AppSettings(Context context) {
+        this.context = context;
+        this.mainExecutor = ContextCompat.getMainExecutor(context);
+        this.settingsExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "app-settings");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        settingsExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                // Blocks until the file is parsed, which is why it happens here
+                preferences = AppSettings.this.context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+                final Map<String, ?> stored = new HashMap<>(preferences.getAll());
+                mainExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        onFileRead(stored);
+                    }
+                });
+            }
+        });
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    // Runs the callback once the stored values are in memory, right away if they are
+    public void whenLoaded(LoadCallback callback) {
+        if (loaded) {
+            callback.onLoaded(this);
+        } else {
+            pendingCallbacks.add(callback);
+        }
+    }
+
+    // Runs the callback on the main thread once every write applied so far is on disk
+    public void afterWrites(final Runnable callback) {
+        settingsExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                mainExecutor.execute(callback);
+            }
+        });
+    }
+
+    public void addChangeListener(ChangeListener listener) {
+        if (!changeListeners.contains(listener)) {
+            changeListeners.add(listener);
+        }
+    }
+
+    public void removeChangeListener(ChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    public String getUserName() {
+        return (String) values.get(KEY_USER_NAME);
+    }
+
+    public String getColorTheme() {
+        return (String) values.get(KEY_COLOR_THEME);
+    }
+
+    public boolean isNotificationsEnabled() {
+        return (Boolean) values.get(KEY_NOTIFICATIONS);
+    }
+
+    public boolean isSetupCompleted() {
+        return (Boolean) values.get(KEY_SETUP_COMPLETED);
+    }
+
+    public boolean isFirstTime() {
+        return (Boolean) values.get(KEY_FIRST_TIME);
+    }
+
+    // Last day an expiry alert was shown, or NO_ALERT_DAY
+    public int getLastAlertDay() {
+        return (Integer) values.get(KEY_LAST_ALERT_DAY);
+    }
+
+    public Editor edit() {
+        return new Editor();
+    }
+
+    // Collects changes; apply() publishes them together
+    public final class Editor {
+
+        private final HashMap<String, Object> changes = new HashMap<>();
+
+        private Editor() {
+        }
+
+        public Editor putUserName(String userName) {
+            changes.put(KEY_USER_NAME, userName);
+            return this;
+        }
+
+        public Editor putColorTheme(String colorTheme) {
+            changes.put(KEY_COLOR_THEME, colorTheme);
+            return this;
+        }
+
+        public Editor putNotificationsEnabled(boolean enabled) {
+            changes.put(KEY_NOTIFICATIONS, enabled);
+            return this;
+        }
+
+        public Editor putSetupCompleted(boolean completed) {
+            changes.put(KEY_SETUP_COMPLETED, completed);
+            return this;
+        }
+
+        public Editor putFirstTime(boolean firstTime) {
+            changes.put(KEY_FIRST_TIME, firstTime);
+            return this;
+        }
+
+        public Editor putLastAlertDay(int day) {
+            changes.put(KEY_LAST_ALERT_DAY, day);
+            return this;
+        }
+
+        // Updates memory and tells listeners now; the file follows in the background
+        public void apply() {
+            final HashMap<String, Object> writes = new HashMap<>();
+            for (Map.Entry<String, Object> change : changes.entrySet()) {
+                if (!change.getValue().equals(values.get(change.getKey()))) {
+                    writes.put(change.getKey(), change.getValue());
+                }
+            }
+            changes.clear();
+            if (writes.isEmpty()) {
+                return;
+            }
+            values.putAll(writes);
+            if (!loaded) {
+                writtenBeforeLoad.addAll(writes.keySet());
+            }
+
+            settingsExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    writeFile(writes);
+                }
+            });
+            for (String key : writes.keySet()) {
+                notifyChanged(key);
+            }
+        }
+    }
+
+    private void onFileRead(Map<String, ?> stored) {
+        ArrayList<String> changed = new ArrayList<>();
+        for (Map.Entry<String, Object> entry : DEFAULTS.entrySet()) {
+            String key = entry.getKey();
+            Object value = stored.get(key);
+            // A value of the wrong type is ignored, as SharedPreferences would throw
+            if (value == null || value.getClass() != entry.getValue().getClass()
+                    || writtenBeforeLoad.contains(key)) {
+                continue;
+            }
+            if (!value.equals(values.get(key))) {
+                values.put(key, value);
+                changed.add(key);
+            }
+        }
+        writtenBeforeLoad.clear();
+        loaded = true;
+        Log.d(TAG, "Settings loaded, " + changed.size() + " differ from defaults");
+
+        ArrayList<LoadCallback> callbacks = new ArrayList<>(pendingCallbacks);
+        pendingCallbacks.clear();
+        for (LoadCallback callback : callbacks) {
+            callback.onLoaded(this);
+        }
+        for (String key : changed) {
+            notifyChanged(key);
+        }
+    }
+
+    // Settings thread
+    private void writeFile(Map<String, Object> writes) {
+        SharedPreferences.Editor editor = preferences.edit();
+        for (Map.Entry<String, Object> write : writes.entrySet()) {
+            Object value = write.getValue();
+            if (value instanceof String) {
+                editor.putString(write.getKey(), (String) value);
+            } else if (value instanceof Boolean) {
+                editor.putBoolean(write.getKey(), (Boolean) value);
+            } else {
+                editor.putInt(write.getKey(), (Integer) value);
+            }
+        }
+        // Already off the main thread, so wait for the disk and report failures
+        if (!editor.commit()) {
+            Log.e(TAG, "Failed to save settings " + writes.keySet());
+        }
+    }
+
+    private void notifyChanged(String key) {
+        for (ChangeListener listener : new ArrayList<>(changeListeners)) {
+            listener.onSettingChanged(key);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.productexpirationtrackerapp;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.Filter;
+import android.widget.Filterable;
+import android.widget.TextView;
+
+// Drop-down of catalog items for the product name field. The filter runs on
+// the widget's filter thread and only asks the mapped catalog, so typing never
+// waits on a lookup.
+public class CatalogSuggestionAdapter extends BaseAdapter implements Filterable {
+
+    private static final int MAX_SUGGESTIONS = 8;
+
+    private final LayoutInflater inflater;
+    private final ShelfLifeCatalog catalog;
+    private ShelfLifeCatalog.Item[] items = new ShelfLifeCatalog.Item[0];
+
+    public CatalogSuggestionAdapter(LayoutInflater inflater, ShelfLifeCatalog catalog) {
+        this.inflater = inflater;
+        this.catalog = catalog;
+    }
+
+    @Override
+    public int getCount() {
+        return items.length;
+    }
+
+    @Override
+    public ShelfLifeCatalog.Item getItem(int position) {
+        return items[position];
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return position;
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        TextView view = (TextView) convertView;
+        if (view == null) {
+            view = (TextView) inflater.inflate(android.R.layout.simple_dropdown_item_1line, parent, false);
+        }
+        ShelfLifeCatalog.Item item = items[position];
+        int storage = item.getDefaultStorage();
+        view.setText(item.getDisplayName() + "  ·  " + item.getShelfLifeDays(storage) + " days, "
+                + storageName(storage));
+        return view;
+    }
+
+    static String storageName(int storage) {
+        switch (storage) {
+            case ShelfLifeCatalog.PANTRY:
+                return "pantry";
+            case ShelfLifeCatalog.FRIDGE:
+                return "fridge";
+            default:
+                return "freezer";
+        }
+    }
+
+    @Override
+    public Filter getFilter() {
+        return filter;
+    }
+
+    private final Filter filter = new Filter() {
+        @Override
+        protected FilterResults performFiltering(CharSequence constraint) {
+            ShelfLifeCatalog.Item[] found = constraint == null
+                    ? new ShelfLifeCatalog.Item[0]
+                    : catalog.suggest(constraint.toString(), MAX_SUGGESTIONS);
+            FilterResults results = new FilterResults();
+            results.values = found;
+            results.count = found.length;
+            return results;
+        }
+
+        @Override
+        protected void publishResults(CharSequence constraint, FilterResults results) {
+            items = (ShelfLifeCatalog.Item[]) results.values;
+            if (items.length > 0) {
+                notifyDataSetChanged();
+            } else {
+                notifyDataSetInvalidated();
+            }
+        }
+
+        // What the name field shows once a suggestion is picked
+        @Override
+        public CharSequence convertResultToString(Object resultValue) {
+            return ((ShelfLifeCatalog.Item) resultValue).getDisplayName();
+        }
+    };
+}
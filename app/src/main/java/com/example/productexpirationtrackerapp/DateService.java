@@ -0,0 +1,170 @@
+package com.example.productexpirationtrackerapp;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+// All date parsing and formatting goes through here. Formatters are immutable
+// and shared, and display strings are cached per epoch day, so binding a row
+// never builds a SimpleDateFormat or a Calendar. Safe to call from any thread.
+public final class DateService {
+
+    // Storage and file format: yyyy-MM-dd
+    public static final DateTimeFormatter STORAGE_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE;
+
+    // Returned by the byte-level parser for text that is not a valid date
+    public static final int NO_DATE = Integer.MIN_VALUE;
+
+    private static final String DISPLAY_PATTERN = "MMM dd, yyyy";
+    private static final int CACHE_SIZE = 1024; // power of two
+
+    private static volatile DisplayCache displayCache = new DisplayCache(Locale.getDefault());
+
+    private DateService() {
+    }
+
+    public static int today() {
+        return (int) LocalDate.now().toEpochDay();
+    }
+
+    // Whole calendar days from today until the expiry day, negative once expired
+    public static long daysUntil(int epochDay) {
+        return (long) epochDay - today();
+    }
+
+    // Parses yyyy-MM-dd into an epoch day
+    public static int parseStorage(String text) throws DateTimeParseException {
+        return (int) LocalDate.parse(text, STORAGE_FORMAT).toEpochDay();
+    }
+
+    public static String formatStorage(int epochDay) {
+        return STORAGE_FORMAT.format(LocalDate.ofEpochDay(epochDay));
+    }
+
+    // Byte-level yyyy-MM-dd parsing for bulk import, without a formatter or any
+    // allocation. Returns NO_DATE for malformed text or impossible dates.
+    public static int parseStorage(byte[] bytes, int start, int length) {
+        if (length != 10 || bytes[start + 4] != '-' || bytes[start + 7] != '-') {
+            return NO_DATE;
+        }
+        int year = digits(bytes, start, 4);
+        int month = digits(bytes, start + 5, 2);
+        int day = digits(bytes, start + 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)) {
+            return NO_DATE;
+        }
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400); // y is -1 for January and February of year 0
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    // Writes yyyy-MM-dd for bulk export, the byte-level counterpart of formatStorage(int)
+    public static void formatStorage(int epochDay, ByteBuffer out) {
+        int z = epochDay + 719468;
+        int era = Math.floorDiv(z, 146097);
+        int dayOfEra = z - era * 146097;
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int mp = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        int year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        if (year < 0 || year > 9999) {
+            out.put(formatStorage(epochDay).getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        putDigits(out, year, 4);
+        out.put((byte) '-');
+        putDigits(out, month, 2);
+        out.put((byte) '-');
+        putDigits(out, day, 2);
+    }
+
+    // "MMM dd, yyyy" in the current default locale
+    public static String formatDisplay(int epochDay) {
+        return currentCache().format(epochDay);
+    }
+
+    private static int digits(byte[] bytes, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static void putDigits(ByteBuffer out, int value, int count) {
+        int position = out.position();
+        for (int i = count - 1; i >= 0; i--) {
+            out.put(position + i, (byte) ('0' + value % 10));
+            value /= 10;
+        }
+        out.position(position + count);
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                return leap ? 29 : 28;
+            case 4: case 6: case 9: case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    private static DisplayCache currentCache() {
+        DisplayCache cache = displayCache;
+        Locale locale = Locale.getDefault();
+        if (cache.locale != locale && !cache.locale.equals(locale)) {
+            cache = new DisplayCache(locale);
+            displayCache = cache;
+        }
+        return cache;
+    }
+
+    // Direct-mapped cache of display strings for one locale. Entries are
+    // immutable, so a racing reader sees either a whole entry or a miss.
+    private static final class DisplayCache {
+        final Locale locale;
+        final DateTimeFormatter formatter;
+        final Entry[] entries = new Entry[CACHE_SIZE];
+
+        DisplayCache(Locale locale) {
+            this.locale = locale;
+            this.formatter = DateTimeFormatter.ofPattern(DISPLAY_PATTERN, locale);
+        }
+
+        String format(int epochDay) {
+            int slot = epochDay & (CACHE_SIZE - 1);
+            Entry entry = entries[slot];
+            if (entry != null && entry.epochDay == epochDay) {
+                return entry.text;
+            }
+            String text = formatter.format(LocalDate.ofEpochDay(epochDay));
+            entries[slot] = new Entry(epochDay, text);
+            return text;
+        }
+    }
+
+    private static final class Entry {
+        final int epochDay;
+        final String text;
+
+        Entry(int epochDay, String text) {
+            this.epochDay = epochDay;
+            this.text = text;
+        }
+    }
+}
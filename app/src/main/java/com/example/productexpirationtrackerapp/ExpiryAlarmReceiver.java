@@ -0,0 +1,55 @@
+package com.example.productexpirationtrackerapp;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+import androidx.core.content.ContextCompat;
+
+import java.io.IOException;
+
+// Wakes up for the expiry alarm, and re-arms it after a reboot or a clock or
+// time zone change. The settings and the product store are loaded off the
+// main thread first.
+public class ExpiryAlarmReceiver extends BroadcastReceiver {
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        final Context appContext = context.getApplicationContext();
+        final boolean alarm = ExpiryAlarmScheduler.ACTION_EXPIRY_ALARM.equals(intent.getAction());
+        final PendingResult result = goAsync();
+        final ProductRepository repository = ProductRepository.getInstance(appContext.getFilesDir(),
+                ContextCompat.getMainExecutor(appContext));
+        final ExpiryAlarmScheduler scheduler = ExpiryAlarmScheduler.getInstance(appContext);
+
+        AppSettings.getInstance(appContext).whenLoaded(new AppSettings.LoadCallback() {
+            @Override
+            public void onLoaded(final AppSettings settings) {
+                repository.load(new ProductRepository.LoadCallback() {
+                    @Override
+                    public void onLoaded(ProductTable table) {
+                        scheduler.attach(repository);
+                        if (alarm) {
+                            scheduler.onAlarm(table);
+                        } else {
+                            scheduler.onSettingsChanged();
+                        }
+                        // The last alert day must be saved before the process may go away
+                        settings.afterWrites(new Runnable() {
+                            @Override
+                            public void run() {
+                                result.finish();
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onLoadFailed(IOException e) {
+                        // No products to check; the alarm is re-armed once the store opens
+                        result.finish();
+                    }
+                });
+            }
+        });
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.productexpirationtrackerapp;
+
+import android.app.AlarmManager;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.NotificationManagerCompat;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+// Keeps exactly one alarm armed, for the next day on which any product changes
+// status. That day is read from the expiry index, so arming costs O(log n)
+// and nothing ever rescans the inventory. Main thread only.
+public class ExpiryAlarmScheduler implements ProductRepository.ChangeListener, AppSettings.ChangeListener {
+
+    static final String ACTION_EXPIRY_ALARM = "com.example.productexpirationtrackerapp.action.EXPIRY_ALARM";
+
+    private static final String CHANNEL_ID = "expiry_alerts";
+    private static final int NOTIFICATION_ID = 1;
+    private static final int ALERT_HOUR = 9;
+
+    private static ExpiryAlarmScheduler instance;
+
+    public static synchronized ExpiryAlarmScheduler getInstance(Context context) {
+        if (instance == null) {
+            instance = new ExpiryAlarmScheduler(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private final Context context;
+    private final AlarmManager alarmManager;
+    private final AppSettings settings;
+    private ProductRepository repository;
+    private int armedDay = ExpiryIndex.NO_DAY;
+
+    private ExpiryAlarmScheduler(Context context) {
+        this.context = context;
+        this.alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        this.settings = AppSettings.getInstance(context);
+        settings.addChangeListener(this);
+        // Catches up on anything skipped while the settings were being read
+        settings.whenLoaded(new AppSettings.LoadCallback() {
+            @Override
+            public void onLoaded(AppSettings loadedSettings) {
+                onSettingsChanged();
+            }
+        });
+
+        NotificationChannel channel = new NotificationChannel(CHANNEL_ID, "Expiry alerts",
+                NotificationManager.IMPORTANCE_DEFAULT);
+        channel.setDescription("Products that are about to expire or have expired");
+        context.getSystemService(NotificationManager.class).createNotificationChannel(channel);
+    }
+
+    // Re-arms whenever the repository's products change
+    public void attach(ProductRepository repository) {
+        this.repository = repository;
+        repository.addChangeListener(this);
+        if (repository.isLoaded()) {
+            reschedule(repository.getTable());
+        }
+    }
+
+    @Override
+    public void onProductsChanged(ProductTable table) {
+        reschedule(table);
+    }
+
+    @Override
+    public void onSettingChanged(String key) {
+        if (AppSettings.KEY_NOTIFICATIONS.equals(key)) {
+            onSettingsChanged();
+        }
+    }
+
+    // Called after the notification setting, the clock or the time zone changed
+    public void onSettingsChanged() {
+        armedDay = ExpiryIndex.NO_DAY;
+        if (repository != null && repository.isLoaded()) {
+            reschedule(repository.getTable());
+        } else if (!notificationsEnabled()) {
+            cancel();
+        }
+    }
+
+    // Alarm fired: notify about the products that changed status since the
+    // last alert, then arm the next crossing
+    void onAlarm(ProductTable table) {
+        armedDay = ExpiryIndex.NO_DAY;
+        if (!notificationsEnabled()) {
+            return;
+        }
+        int today = DateService.today();
+        int[] counts = new int[ExpiryStatus.COUNT];
+        ExpiryCrossings.countCrossings(table.getExpiryIndex(), firstPendingDay(today), today, counts);
+        settings.edit().putLastAlertDay(today).apply();
+        showNotification(counts);
+        reschedule(table);
+    }
+
+    private void reschedule(ProductTable table) {
+        // Arming waits for the stored settings; the receiver and the splash both do
+        if (!settings.isLoaded()) {
+            return;
+        }
+        if (!notificationsEnabled()) {
+            cancel();
+            return;
+        }
+        int nextDay = ExpiryCrossings.nextCrossingDay(table.getExpiryIndex(),
+                firstPendingDay(DateService.today()));
+        if (nextDay == armedDay) {
+            return;
+        }
+        if (nextDay == ExpiryIndex.NO_DAY) {
+            cancel();
+            return;
+        }
+
+        long triggerAt = LocalDate.ofEpochDay(nextDay).atTime(ALERT_HOUR, 0)
+                .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        // A crossing today that has not been announced yet fires right away
+        triggerAt = Math.max(triggerAt, System.currentTimeMillis());
+        alarmManager.setAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerAt, alarmIntent());
+        armedDay = nextDay;
+    }
+
+    private void cancel() {
+        alarmManager.cancel(alarmIntent());
+        armedDay = ExpiryIndex.NO_DAY;
+    }
+
+    // Crossings up to and including the last alert day were already announced
+    private int firstPendingDay(int today) {
+        int lastAlertDay = settings.getLastAlertDay();
+        if (lastAlertDay == AppSettings.NO_ALERT_DAY || lastAlertDay < today - ExpiryStatus.WARNING_DAYS) {
+            return today;
+        }
+        return lastAlertDay + 1;
+    }
+
+    private boolean notificationsEnabled() {
+        return settings.isNotificationsEnabled();
+    }
+
+    private PendingIntent alarmIntent() {
+        Intent intent = new Intent(context, ExpiryAlarmReceiver.class);
+        intent.setAction(ACTION_EXPIRY_ALARM);
+        return PendingIntent.getBroadcast(context, 0, intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+    }
+
+    private void showNotification(int[] counts) {
+        StringBuilder text = new StringBuilder();
+        appendCount(text, counts[ExpiryStatus.EXPIRED], "expired");
+        appendCount(text, counts[ExpiryStatus.EXPIRING_SOON], "expiring within 3 days");
+        appendCount(text, counts[ExpiryStatus.WARNING], "expiring this week");
+        if (text.length() == 0) {
+            return;
+        }
+
+        Intent openIntent = new Intent(context, MainActivity.class);
+        openIntent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
+        PendingIntent contentIntent = PendingIntent.getActivity(context, 0, openIntent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setSmallIcon(android.R.drawable.ic_popup_reminder)
+                .setContentTitle("📦 Check your products")
+                .setContentText(text.toString())
+                .setContentIntent(contentIntent)
+                .setAutoCancel(true);
+        NotificationManagerCompat.from(context).notify(NOTIFICATION_ID, builder.build());
+    }
+
+    private static void appendCount(StringBuilder text, int count, String label) {
+        if (count > 0) {
+            if (text.length() > 0) {
+                text.append(" · ");
+            }
+            text.append(count).append(' ').append(label);
+        }
+    }
+}
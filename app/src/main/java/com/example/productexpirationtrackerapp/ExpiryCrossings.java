@@ -0,0 +1,50 @@
+package com.example.productexpirationtrackerapp;
+
+// Days on which products move into a new ExpiryStatus, read straight off the
+// expiry index. A product expiring on day E becomes WARNING on E - 7,
+// EXPIRING_SOON on E - 3 and EXPIRED on E + 1.
+public final class ExpiryCrossings {
+
+    // Days before expiry at which each status starts, and the matching status
+    private static final int[] OFFSETS = {ExpiryStatus.WARNING_DAYS, ExpiryStatus.SOON_DAYS, -1};
+    private static final int[] STATUSES = {ExpiryStatus.WARNING, ExpiryStatus.EXPIRING_SOON, ExpiryStatus.EXPIRED};
+
+    private static final Metrics.Histogram QUERY_TIME = Metrics.histogram("index.expiry.query");
+
+    private ExpiryCrossings() {
+    }
+
+    // First day >= fromDay on which any product changes status, or ExpiryIndex.NO_DAY
+    public static int nextCrossingDay(ExpiryIndex index, int fromDay) {
+        long start = System.nanoTime();
+        int next = ExpiryIndex.NO_DAY;
+        for (int offset : OFFSETS) {
+            int expiryDay = index.firstDayAtOrAfter(fromDay + offset);
+            if (expiryDay != ExpiryIndex.NO_DAY) {
+                next = Math.min(next, expiryDay - offset);
+            }
+        }
+        QUERY_TIME.recordSince(start);
+        return next;
+    }
+
+    // Visits the rows entering a new status on a day in [fromDay, toDay], i.e.
+    // the ones a day rollover reclassifies: O(log d + crossings), independent
+    // of inventory size. A row crossing several thresholds is visited once each.
+    public static void forEachCrossing(ExpiryIndex index, int fromDay, int toDay, ExpiryIndex.RowVisitor visitor) {
+        long start = System.nanoTime();
+        for (int offset : OFFSETS) {
+            index.forEachBetween(fromDay + offset, toDay + offset, visitor);
+        }
+        QUERY_TIME.recordSince(start);
+    }
+
+    // Adds to counts[status] the products entering each status on a day in [fromDay, toDay]
+    public static void countCrossings(ExpiryIndex index, int fromDay, int toDay, int[] counts) {
+        long start = System.nanoTime();
+        for (int i = 0; i < OFFSETS.length; i++) {
+            counts[STATUSES[i]] += index.countBetween(fromDay + OFFSETS[i], toDay + OFFSETS[i]);
+        }
+        QUERY_TIME.recordSince(start);
+    }
+}
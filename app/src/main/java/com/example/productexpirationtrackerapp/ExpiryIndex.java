@@ -0,0 +1,289 @@
+package com.example.productexpirationtrackerapp;
+
+import java.util.Arrays;
+
+// Rows grouped by expiry epoch day, with the distinct days kept sorted. Finding
+// a day is a binary search, so visiting a range costs O(log d + matches) where
+// d is the number of distinct expiry days, never a scan of the whole inventory.
+// Range counts are two prefix sums over a Fenwick tree of the bucket sizes,
+// O(log d). A row joining or leaving an existing day updates the tree in
+// O(log d); a day appearing or emptying shifts the sorted arrays, O(d), and the
+// tree is rebuilt in O(d) on the next count, so a bulk load pays that once.
+// Kept up to date by ProductTable on every insert, delete and expiry change.
+// Also counts rows per ExpiryStatus: each change adjusts one counter, and a
+// new day shifts them by the buckets crossing a threshold, never a rescan.
+public class ExpiryIndex {
+
+    public interface RowVisitor {
+        void visit(int row, int expiryDay);
+    }
+
+    public static final int NO_DAY = Integer.MAX_VALUE;
+
+    // Sorted distinct days and the rows expiring on each
+    private int[] days = new int[64];
+    private DayBucket[] buckets = new DayBucket[64];
+    private int dayCount;
+
+    // Fenwick tree over buckets[i].size, 1-based; stale while treeDirty
+    private int[] tree = new int[65];
+    private boolean treeDirty;
+
+    // Index of each row inside its day bucket
+    private int[] slots = new int[64];
+    private int size;
+
+    // Rows per ExpiryStatus as of countsDay
+    private final int[] statusCounts = new int[ExpiryStatus.COUNT];
+    private int countsDay = DateService.today();
+
+    public void add(int row, int day) {
+        int index = Arrays.binarySearch(days, 0, dayCount, day);
+        DayBucket bucket;
+        if (index >= 0) {
+            bucket = buckets[index];
+            treeAdd(index, 1);
+        } else {
+            bucket = insertDay(-index - 1, day);
+        }
+        if (row >= slots.length) {
+            slots = Arrays.copyOf(slots, Math.max(row + 1, slots.length * 2));
+        }
+        slots[row] = bucket.add(row);
+        statusCounts[ExpiryStatus.classify(day - countsDay)]++;
+        size++;
+    }
+
+    public void remove(int row, int day) {
+        int index = removeFromBucket(row, day);
+        if (buckets[index].size == 0) {
+            removeDay(index);
+        }
+        size--;
+    }
+
+    // Removes many rows at once. Days the batch empties are dropped in one pass
+    // at the end rather than shifting the day arrays once per emptied day.
+    public void removeAll(int[] rows, int[] rowDays, int count) {
+        for (int i = 0; i < count; i++) {
+            removeFromBucket(rows[i], rowDays[i]);
+        }
+        size -= count;
+
+        int kept = 0;
+        for (int i = 0; i < dayCount; i++) {
+            if (buckets[i].size > 0) {
+                days[kept] = days[i];
+                buckets[kept++] = buckets[i];
+            }
+        }
+        Arrays.fill(buckets, kept, dayCount, null);
+        if (kept < dayCount) {
+            treeDirty = true; // Later days moved down
+        }
+        dayCount = kept;
+    }
+
+    public void move(int row, int oldDay, int newDay) {
+        if (oldDay != newDay) {
+            remove(row, oldDay);
+            add(row, newDay);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Rows in the given ExpiryStatus on the given day
+    public int countStatus(int today, int status) {
+        rollCountsTo(today);
+        return statusCounts[status];
+    }
+
+    // Fills counts, indexed by ExpiryStatus, for the given day
+    public void countStatuses(int today, int[] counts) {
+        rollCountsTo(today);
+        System.arraycopy(statusCounts, 0, counts, 0, ExpiryStatus.COUNT);
+    }
+
+    // Products already past their expiry day
+    public int countExpired(int today) {
+        return countBetween(Integer.MIN_VALUE, today - 1);
+    }
+
+    // Products expiring from today up to and including today + days
+    public int countWithin(int today, int days) {
+        return countBetween(today, today + days);
+    }
+
+    // Rows expiring in [fromDay, toDay], both inclusive
+    public int countBetween(int fromDay, int toDay) {
+        if (toDay < fromDay) {
+            return 0;
+        }
+        int end = toDay == Integer.MAX_VALUE ? dayCount : lowerBound(toDay + 1);
+        return prefixCount(end) - prefixCount(lowerBound(fromDay));
+    }
+
+    public void forEachExpired(int today, RowVisitor visitor) {
+        forEachBetween(Integer.MIN_VALUE, today - 1, visitor);
+    }
+
+    public void forEachWithin(int today, int days, RowVisitor visitor) {
+        forEachBetween(today, today + days, visitor);
+    }
+
+    // Visits rows expiring in [fromDay, toDay] in ascending day order
+    public void forEachBetween(int fromDay, int toDay, RowVisitor visitor) {
+        for (int i = lowerBound(fromDay); i < dayCount && days[i] <= toDay; i++) {
+            DayBucket bucket = buckets[i];
+            int day = days[i];
+            for (int j = 0; j < bucket.size; j++) {
+                visitor.visit(bucket.rows[j], day);
+            }
+        }
+    }
+
+    // Smallest indexed day >= day, or NO_DAY
+    public int firstDayAtOrAfter(int day) {
+        int index = lowerBound(day);
+        return index < dayCount ? days[index] : NO_DAY;
+    }
+
+    // Takes the row out of its day bucket, which may be left empty; returns the day's index
+    private int removeFromBucket(int row, int day) {
+        int index = Arrays.binarySearch(days, 0, dayCount, day);
+        if (index < 0) {
+            throw new IllegalArgumentException("Row " + row + " not indexed on day " + day);
+        }
+        int moved = buckets[index].removeAt(slots[row]);
+        if (moved >= 0) {
+            slots[moved] = slots[row];
+        }
+        treeAdd(index, -1);
+        statusCounts[ExpiryStatus.classify(day - countsDay)]--;
+        return index;
+    }
+
+    // Moves the status counters to another day. Each status boundary sits a
+    // fixed number of days before expiry, so only the rows of the days that
+    // pass a boundary change status: one O(log d) range count per boundary.
+    private void rollCountsTo(int today) {
+        if (today == countsDay) {
+            return;
+        }
+        // Rows at or below each boundary: expired, at most SOON_DAYS left, at most WARNING_DAYS left
+        int expired = statusCounts[ExpiryStatus.EXPIRED];
+        int soon = expired + statusCounts[ExpiryStatus.EXPIRING_SOON];
+        int warning = soon + statusCounts[ExpiryStatus.WARNING];
+
+        expired += crossing(countsDay - 1, today - 1);
+        soon += crossing(countsDay + ExpiryStatus.SOON_DAYS, today + ExpiryStatus.SOON_DAYS);
+        warning += crossing(countsDay + ExpiryStatus.WARNING_DAYS, today + ExpiryStatus.WARNING_DAYS);
+
+        statusCounts[ExpiryStatus.EXPIRED] = expired;
+        statusCounts[ExpiryStatus.EXPIRING_SOON] = soon - expired;
+        statusCounts[ExpiryStatus.WARNING] = warning - soon;
+        statusCounts[ExpiryStatus.FRESH] = size - warning;
+        countsDay = today;
+    }
+
+    // Change in the number of rows expiring on or before a boundary day when
+    // it moves from oldBoundary to newBoundary
+    private int crossing(int oldBoundary, int newBoundary) {
+        if (newBoundary > oldBoundary) {
+            return countBetween(oldBoundary + 1, newBoundary);
+        }
+        return -countBetween(newBoundary + 1, oldBoundary);
+    }
+
+    // Rows on the days before index end of the sorted array
+    private int prefixCount(int end) {
+        if (treeDirty) {
+            rebuildTree();
+        }
+        int count = 0;
+        for (int i = end; i > 0; i -= i & -i) {
+            count += tree[i];
+        }
+        return count;
+    }
+
+    private void treeAdd(int index, int delta) {
+        if (treeDirty) {
+            return; // Rebuilt from the buckets before the next count
+        }
+        for (int i = index + 1; i <= dayCount; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    // Linear Fenwick construction: each node passes its sum up to its parent
+    private void rebuildTree() {
+        if (tree.length <= dayCount) {
+            tree = new int[Math.max(dayCount + 1, tree.length * 2)];
+        }
+        for (int i = 1; i <= dayCount; i++) {
+            tree[i] = buckets[i - 1].size;
+        }
+        for (int i = 1; i <= dayCount; i++) {
+            int parent = i + (i & -i);
+            if (parent <= dayCount) {
+                tree[parent] += tree[i];
+            }
+        }
+        treeDirty = false;
+    }
+
+    private int lowerBound(int day) {
+        int index = Arrays.binarySearch(days, 0, dayCount, day);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private DayBucket insertDay(int index, int day) {
+        if (dayCount == days.length) {
+            days = Arrays.copyOf(days, dayCount * 2);
+            buckets = Arrays.copyOf(buckets, dayCount * 2);
+        }
+        System.arraycopy(days, index, days, index + 1, dayCount - index);
+        System.arraycopy(buckets, index, buckets, index + 1, dayCount - index);
+        DayBucket bucket = new DayBucket();
+        days[index] = day;
+        buckets[index] = bucket;
+        dayCount++;
+        treeDirty = true;
+        return bucket;
+    }
+
+    private void removeDay(int index) {
+        System.arraycopy(days, index + 1, days, index, dayCount - index - 1);
+        System.arraycopy(buckets, index + 1, buckets, index, dayCount - index - 1);
+        dayCount--;
+        buckets[dayCount] = null;
+        treeDirty = true;
+    }
+
+    private static final class DayBucket {
+        int[] rows = new int[4];
+        int size;
+
+        int add(int row) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+            }
+            rows[size] = row;
+            return size++;
+        }
+
+        // Swaps the last row into the hole and returns it, or -1 if none moved
+        int removeAt(int slot) {
+            int last = rows[--size];
+            if (slot == size) {
+                return -1;
+            }
+            rows[slot] = last;
+            return last;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.productexpirationtrackerapp;
+
+// Expiry thresholds shared by the list, the detail screen and the expiry index
+public final class ExpiryStatus {
+
+    public static final int EXPIRED = 0;
+    public static final int EXPIRING_SOON = 1;
+    public static final int WARNING = 2;
+    public static final int FRESH = 3;
+
+    public static final int COUNT = 4;
+
+    // Inclusive upper bounds in days left
+    public static final int SOON_DAYS = 3;
+    public static final int WARNING_DAYS = 7;
+
+    private ExpiryStatus() {
+    }
+
+    public static int classify(long daysLeft) {
+        if (daysLeft < 0) {
+            return EXPIRED;
+        } else if (daysLeft <= SOON_DAYS) {
+            return EXPIRING_SOON;
+        } else if (daysLeft <= WARNING_DAYS) {
+            return WARNING;
+        }
+        return FRESH;
+    }
+
+    public static String getLabel(int status) {
+        switch (status) {
+            case EXPIRED: return "Expired";
+            case EXPIRING_SOON: return "Expiring Soon!";
+            case WARNING: return "Warning";
+            default: return "Fresh";
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.productexpirationtrackerapp;
+
+import android.view.Choreographer;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+// Counts frames, and frames dropped, while a list is scrolling. Frame times
+// come from the Choreographer, which is only asked for callbacks during a
+// scroll, so an idle list costs nothing. Main thread only.
+public class FrameDropTracker extends RecyclerView.OnScrollListener implements Choreographer.FrameCallback {
+
+    private static final Metrics.Counter FRAMES = Metrics.counter("list.scroll.frames");
+    private static final Metrics.Counter DROPPED_FRAMES = Metrics.counter("list.scroll.frames_dropped");
+    private static final Metrics.Histogram FRAME_TIME = Metrics.histogram("list.scroll.frame");
+
+    private final long frameIntervalNanos;
+    private boolean tracking;
+    private long lastFrameNanos;
+
+    public FrameDropTracker(float refreshRate) {
+        this.frameIntervalNanos = (long) (1_000_000_000L / Math.max(refreshRate, 1f));
+    }
+
+    @Override
+    public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+        if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+            stop();
+        } else if (!tracking) {
+            tracking = true;
+            lastFrameNanos = 0;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    public void stop() {
+        if (tracking) {
+            tracking = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!tracking) {
+            return;
+        }
+        if (lastFrameNanos != 0) {
+            long interval = frameTimeNanos - lastFrameNanos;
+            FRAMES.increment();
+            FRAME_TIME.record(interval);
+            // Vsyncs that passed without a frame, rounded to the nearest one
+            long dropped = (interval + frameIntervalNanos / 2) / frameIntervalNanos - 1;
+            if (dropped > 0) {
+                DROPPED_FRAMES.add(dropped);
+            }
+        }
+        lastFrameNanos = frameTimeNanos;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+}
@@ -1,7 +1,6 @@
 package com.example.productexpirationtrackerapp;
 
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.os.Handler;
 import android.view.View;
@@ -14,6 +13,7 @@ import android.widget.Toast;
 
 import androidx.activity.EdgeToEdge;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.content.ContextCompat;
 import androidx.core.graphics.Insets;
 import androidx.core.view.ViewCompat;
 import androidx.core.view.WindowInsetsCompat;
@@ -25,13 +25,9 @@ public class MainActivity extends AppCompatActivity {
     private Button skipButton;
     private Handler handler;
     private boolean isAnimationRunning = false;
+    private boolean hasProceeded = false;
     private Animation fadeInAnimation;
 
-    // Add these constants for shared preferences
-    private static final String PREFS_NAME = "AppPrefs";
-    private static final String PREF_FIRST_TIME = "is_first_time"; // Changed from setup_completed
-    private static final String PREF_SETUP_COMPLETED = "setup_completed";
-
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -50,8 +46,8 @@ public class MainActivity extends AppCompatActivity {
         fadeInAnimation.setDuration(1000);
         handler = new Handler();
 
-        // Check immediately if user should see onboarding
-        checkFirstTimeUser();
+        // Real startup work begins right away, the splash leaves when it is done
+        startLoadingProcess();
 
         // Start animations with a small delay
         handler.postDelayed(new Runnable() {
@@ -59,7 +55,6 @@ public class MainActivity extends AppCompatActivity {
             public void run() {
                 startOneByOneDotAnimation();
                 startWelcomeAnimations();
-                startLoadingProcess();
                 setupSkipButton();
             }
         }, 100);
@@ -88,26 +83,6 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
-    private void checkFirstTimeUser() {
-        SharedPreferences preferences = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-        boolean isFirstTime = preferences.getBoolean(PREF_FIRST_TIME, true); // Default to true (first time)
-
-        // If it's not the first time AND setup is completed, go directly to ProductList
-        if (!isFirstTime) {
-            boolean setupCompleted = preferences.getBoolean(PREF_SETUP_COMPLETED, false);
-            if (setupCompleted) {
-                // User has completed setup before, go directly to ProductList
-                handler.postDelayed(new Runnable() {
-                    @Override
-                    public void run() {
-                        goToProductList();
-                    }
-                }, 1000); // Short delay to show logo
-            }
-        }
-        // If it's first time, we'll show animations and then decide in proceedToMainApp()
-    }
-
     private void resetDots() {
         if (dot1 != null) {
             dot1.setTranslationY(0);
@@ -225,53 +200,29 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
+    // Opens the product store and prepares the first screen of the product
+    // list in the background; the loading text follows the actual steps
     private void startLoadingProcess() {
-        handler.postDelayed(new Runnable() {
-            @Override
-            public void run() {
-                if (loadingText != null) {
-                    loadingText.setText("Initializing app...");
-                    loadingText.startAnimation(fadeInAnimation);
-                }
-            }
-        }, 1000);
+        // Settings are read from disk alongside, they decide where to go next
+        AppSettings.getInstance(this);
 
-        handler.postDelayed(new Runnable() {
-            @Override
-            public void run() {
-                if (loadingText != null) {
-                    loadingText.setText("Loading product database...");
-                    loadingText.startAnimation(fadeInAnimation);
-                }
-            }
-        }, 2000);
+        ProductRepository repository = ProductRepository.getInstance(getApplicationContext().getFilesDir(),
+                ContextCompat.getMainExecutor(getApplicationContext()));
 
-        handler.postDelayed(new Runnable() {
-            @Override
-            public void run() {
-                if (loadingText != null) {
-                    loadingText.setText("Checking expiry dates...");
-                    loadingText.startAnimation(fadeInAnimation);
-                }
-            }
-        }, 3000);
-
-        handler.postDelayed(new Runnable() {
-            @Override
-            public void run() {
-                if (loadingText != null) {
-                    loadingText.setText("Almost ready...");
-                    loadingText.startAnimation(fadeInAnimation);
-                }
-            }
-        }, 4000);
+        StartupWarmup.getInstance().start(repository, ProductAdapter.createRowModelFactory(this),
+                ContextCompat.getMainExecutor(this), new StartupWarmup.Listener() {
+                    @Override
+                    public void onStep(String message) {
+                        if (loadingText != null) {
+                            loadingText.setText(message);
+                        }
+                    }
 
-        handler.postDelayed(new Runnable() {
-            @Override
-            public void run() {
-                proceedToMainApp();
-            }
-        }, 5000);
+                    @Override
+                    public void onFinished() {
+                        proceedToMainApp();
+                    }
+                });
     }
 
     private void setupSkipButton() {
@@ -286,24 +237,31 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void proceedToMainApp() {
+        if (hasProceeded || isFinishing()) {
+            return;
+        }
+        hasProceeded = true;
         isAnimationRunning = false;
 
-        SharedPreferences preferences = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-        boolean isFirstTime = preferences.getBoolean(PREF_FIRST_TIME, true);
-
-        if (isFirstTime) {
-            // First time user: go to Onboarding
-            goToOnboarding();
-        } else {
-            // Returning user: check if setup was completed
-            boolean setupCompleted = preferences.getBoolean(PREF_SETUP_COMPLETED, false);
-            if (setupCompleted) {
-                goToProductList();
-            } else {
-                // User skipped setup before, go to SetupActivity
-                goToSetup();
+        // Usually loaded long before the splash is done
+        AppSettings.getInstance(this).whenLoaded(new AppSettings.LoadCallback() {
+            @Override
+            public void onLoaded(AppSettings settings) {
+                if (isFinishing() || isDestroyed()) {
+                    return;
+                }
+                if (settings.isFirstTime()) {
+                    // First time user: go to Onboarding
+                    goToOnboarding();
+                } else if (settings.isSetupCompleted()) {
+                    // Returning user who finished setup
+                    goToProductList();
+                } else {
+                    // User skipped setup before, go to SetupActivity
+                    goToSetup();
+                }
             }
-        }
+        });
     }
 
     private void skipToMainApp() {
@@ -371,6 +329,7 @@ public class MainActivity extends AppCompatActivity {
     protected void onDestroy() {
         super.onDestroy();
         isAnimationRunning = false;
+        StartupWarmup.getInstance().setListener(null);
 
         if (handler != null) {
             handler.removeCallbacksAndMessages(null);
@@ -0,0 +1,220 @@
+package com.example.productexpirationtrackerapp;
+
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Process-wide counters and latency histograms for the hot paths. Metrics are
+// registered once, usually into static fields, and recording is a handful of
+// atomic adds: no locks and no allocation, safe from any thread. Readers take
+// a consistent-enough copy for the debug screen and the text dump.
+public final class Metrics {
+
+    private static final ArrayList<Counter> COUNTERS = new ArrayList<>();
+    private static final ArrayList<Histogram> HISTOGRAMS = new ArrayList<>();
+
+    private Metrics() {
+    }
+
+    public static synchronized Counter counter(String name) {
+        for (Counter counter : COUNTERS) {
+            if (counter.name.equals(name)) {
+                return counter;
+            }
+        }
+        Counter counter = new Counter(name);
+        COUNTERS.add(counter);
+        return counter;
+    }
+
+    public static synchronized Histogram histogram(String name) {
+        for (Histogram histogram : HISTOGRAMS) {
+            if (histogram.name.equals(name)) {
+                return histogram;
+            }
+        }
+        Histogram histogram = new Histogram(name);
+        HISTOGRAMS.add(histogram);
+        return histogram;
+    }
+
+    public static final class Counter {
+        private final String name;
+        private final AtomicLong value = new AtomicLong();
+
+        private Counter(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void increment() {
+            value.incrementAndGet();
+        }
+
+        public void add(long delta) {
+            value.addAndGet(delta);
+        }
+
+        public long get() {
+            return value.get();
+        }
+
+        void reset() {
+            value.set(0);
+        }
+    }
+
+    // Latencies in power-of-two microsecond buckets: bucket 0 holds anything
+    // under 1 µs, bucket i holds [2^(i-1), 2^i) µs, the last one everything
+    // longer. Percentiles are reported as the upper bound of their bucket.
+    public static final class Histogram {
+        public static final int BUCKETS = 32;
+
+        private final String name;
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private Histogram(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void record(long nanos) {
+            if (nanos < 0) {
+                nanos = 0;
+            }
+            buckets.incrementAndGet(bucketOf(nanos));
+            count.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+            long max = maxNanos.get();
+            while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+                max = maxNanos.get();
+            }
+        }
+
+        // Records the time since a System.nanoTime() taken at the start
+        public void recordSince(long startNanos) {
+            record(System.nanoTime() - startNanos);
+        }
+
+        public Snapshot snapshot() {
+            long[] counts = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets.get(i);
+            }
+            return new Snapshot(name, counts, count.get(), totalNanos.get(), maxNanos.get());
+        }
+
+        static int bucketOf(long nanos) {
+            long micros = nanos / 1000;
+            return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets.set(i, 0);
+            }
+            count.set(0);
+            totalNanos.set(0);
+            maxNanos.set(0);
+        }
+    }
+
+    public static final class Snapshot {
+        public final String name;
+        public final long count;
+        public final long totalNanos;
+        public final long maxNanos;
+        private final long[] buckets;
+
+        Snapshot(String name, long[] buckets, long count, long totalNanos, long maxNanos) {
+            this.name = name;
+            this.buckets = buckets;
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        public long meanMicros() {
+            return count == 0 ? 0 : totalNanos / count / 1000;
+        }
+
+        // Upper bound in µs of the bucket holding the given fraction of samples,
+        // never above the largest sample actually recorded
+        public long percentileMicros(double fraction) {
+            long total = 0;
+            for (long bucket : buckets) {
+                total += bucket;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(fraction * total);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank) {
+                    return i == buckets.length - 1 ? maxNanos / 1000 : Math.min(1L << i, maxNanos / 1000);
+                }
+            }
+            return maxNanos / 1000;
+        }
+    }
+
+    public static synchronized ArrayList<Snapshot> histogramSnapshots() {
+        ArrayList<Snapshot> snapshots = new ArrayList<>(HISTOGRAMS.size());
+        for (Histogram histogram : HISTOGRAMS) {
+            snapshots.add(histogram.snapshot());
+        }
+        return snapshots;
+    }
+
+    public static synchronized ArrayList<Counter> counters() {
+        return new ArrayList<>(COUNTERS);
+    }
+
+    public static synchronized void reset() {
+        for (Counter counter : COUNTERS) {
+            counter.reset();
+        }
+        for (Histogram histogram : HISTOGRAMS) {
+            histogram.reset();
+        }
+    }
+
+    // dumpsys-style text, one metric per line under a section header
+    public static void dump(String prefix, StringBuilder out) {
+        out.append(prefix).append("Counters:\n");
+        for (Counter counter : counters()) {
+            out.append(prefix).append("  ").append(counter.getName()).append(": ")
+                    .append(counter.get()).append('\n');
+        }
+        out.append(prefix).append("Latency (us, percentiles are bucket upper bounds):\n");
+        for (Snapshot snapshot : histogramSnapshots()) {
+            out.append(prefix).append("  ").append(snapshot.name).append(": ");
+            if (snapshot.count == 0) {
+                out.append("no samples\n");
+                continue;
+            }
+            out.append(String.format(Locale.US, "count=%d mean=%d p50=%d p90=%d p99=%d max=%d\n",
+                    snapshot.count, snapshot.meanMicros(), snapshot.percentileMicros(0.5),
+                    snapshot.percentileMicros(0.9), snapshot.percentileMicros(0.99),
+                    snapshot.maxNanos / 1000));
+        }
+    }
+
+    public static String dump() {
+        StringBuilder out = new StringBuilder();
+        dump("", out);
+        return out.toString();
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.productexpirationtrackerapp;
+
+import androidx.appcompat.app.AppCompatActivity;
+import android.os.Bundle;
+import android.view.View;
+import android.widget.Button;
+import android.widget.TextView;
+
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
+
+// Debug screen showing the hot-path metrics. Opened by long-pressing the
+// product list title in debuggable builds. The same text is printed by
+// "adb shell dumpsys activity top" while the product list or this screen is
+// in front.
+public class MetricsActivity extends AppCompatActivity {
+
+    private TextView metricsTextView;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_metrics);
+
+        metricsTextView = findViewById(R.id.metricsTextView);
+        Button backButton = findViewById(R.id.backButton);
+        Button refreshButton = findViewById(R.id.refreshButton);
+        Button resetButton = findViewById(R.id.resetButton);
+
+        backButton.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                finish();
+            }
+        });
+
+        refreshButton.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                showMetrics();
+            }
+        });
+
+        resetButton.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                Metrics.reset();
+                showMetrics();
+            }
+        });
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        showMetrics();
+    }
+
+    private void showMetrics() {
+        metricsTextView.setText(Metrics.dump());
+    }
+
+    @Override
+    public void dump(String prefix, FileDescriptor fd, PrintWriter writer, String[] args) {
+        super.dump(prefix, fd, writer, args);
+        dumpMetrics(prefix, writer);
+    }
+
+    static void dumpMetrics(String prefix, PrintWriter writer) {
+        StringBuilder out = new StringBuilder();
+        out.append(prefix).append("Metrics:\n");
+        Metrics.dump(prefix + "  ", out);
+        writer.print(out);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.productexpirationtrackerapp;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+// Maps each distinct product name to a small int id so rows store an int
+// instead of their own String. Every row holding a name is one reference; a
+// name whose last reference goes is dropped and its id handed out again, so
+// the dictionary holds the distinct names in use rather than every name ever
+// seen. Ids stay dense: all are below getIdLimit().
+public class NameDictionary {
+
+    private final HashMap<String, Integer> idsByName = new HashMap<>();
+    private String[] names = new String[16];
+    private int[] refCounts = new int[16];
+    private int idLimit;
+    private int size;
+
+    // Ids of dropped names, reused before new ones
+    private int[] freeIds = new int[16];
+    private int freeCount;
+
+    // Id of the name, added if new, with one more reference
+    public int acquire(String name) {
+        Integer existing = idsByName.get(name);
+        if (existing != null) {
+            refCounts[existing]++;
+            return existing;
+        }
+        int id;
+        if (freeCount > 0) {
+            id = freeIds[--freeCount];
+        } else {
+            if (idLimit == names.length) {
+                names = Arrays.copyOf(names, idLimit * 2);
+                refCounts = Arrays.copyOf(refCounts, idLimit * 2);
+            }
+            id = idLimit++;
+        }
+        names[id] = name;
+        refCounts[id] = 1;
+        idsByName.put(name, id);
+        size++;
+        return id;
+    }
+
+    // Drops one reference. Returns true if it was the last one and the name
+    // is gone; its id may then be handed out for another name.
+    public boolean release(int id) {
+        if (id < 0 || id >= idLimit || refCounts[id] == 0) {
+            throw new IllegalArgumentException("Name id " + id + " is not in use");
+        }
+        if (--refCounts[id] > 0) {
+            return false;
+        }
+        idsByName.remove(names[id]);
+        names[id] = null;
+        if (freeCount == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+        }
+        freeIds[freeCount++] = id;
+        size--;
+        return true;
+    }
+
+    // Id of a name in use, or -1
+    public int find(String name) {
+        Integer id = idsByName.get(name);
+        return id != null ? id : -1;
+    }
+
+    // Name with this id, or null if the id is free
+    public String get(int id) {
+        return names[id];
+    }
+
+    public int getRefCount(int id) {
+        return refCounts[id];
+    }
+
+    // Distinct names in use
+    public int size() {
+        return size;
+    }
+
+    // One more than the highest id handed out so far
+    public int getIdLimit() {
+        return idLimit;
+    }
+}
@@ -0,0 +1,492 @@
+package com.example.productexpirationtrackerapp;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// Search index over the distinct product names of a NameDictionary, by name id.
+// Names are normalised (lower case, accents and symbols dropped) and split into
+// words. A trie over the words answers short prefix queries; trigram postings
+// answer substring queries and find candidates for one-typo matches. Names are
+// indexed once, when first interned, and removed when the dictionary drops
+// them, so the index follows the names in use rather than the number of rows.
+// Not thread-safe: updated together with the owning ProductTable.
+public class NameSearchIndex {
+
+    // Match quality per query token; a name's score is the sum over all tokens
+    public static final int SCORE_PREFIX = 3;
+    public static final int SCORE_SUBSTRING = 2;
+    public static final int SCORE_FUZZY = 1;
+
+    // Token lengths at which substring and one-typo matching kick in
+    static final int SUBSTRING_MIN_LENGTH = 3;
+    static final int FUZZY_MIN_LENGTH = 5;
+
+    private static final int TYPO_EDITS = 1;
+
+    private final TrieNode root = new TrieNode();
+
+    // Trigram -> index into postings; each postings list holds ascending name ids
+    private final LongIntHashMap trigramSlots = new LongIntHashMap(1024);
+    private int[][] postings = new int[256][];
+    private int[] postingSizes = new int[256];
+    private int trigramCount;
+
+    // By name id, null for ids not in use
+    private String[] normalized = new String[16];
+    private int size;
+
+    // Query scratch, reused between calls
+    private int[] seen = new int[16];
+    private int seenStamp;
+    private int[] trigramHits = new int[16];
+    private int[] candidates = new int[64];
+    private int[] editRow = new int[32];
+
+    // One more than the highest name id indexed so far
+    public int size() {
+        return size;
+    }
+
+    // Indexes a name under the next id or a free one the dictionary reused
+    public void add(int nameId, String name) {
+        if (nameId > size || (nameId < size && normalized[nameId] != null)) {
+            throw new IllegalArgumentException("Name id " + nameId + " is in use or out of order, next is " + size);
+        }
+        if (nameId == size) {
+            if (size == normalized.length) {
+                normalized = Arrays.copyOf(normalized, size * 2);
+            }
+            size++;
+        }
+        String text = normalize(name);
+        normalized[nameId] = text;
+
+        int start = 0;
+        while (start < text.length()) {
+            int end = text.indexOf(' ', start);
+            if (end < 0) {
+                end = text.length();
+            }
+            root.insert(text, start, end, nameId);
+            for (int i = start; i + 3 <= end; i++) {
+                addPosting(trigram(text, i), nameId);
+            }
+            start = end + 1;
+        }
+    }
+
+    // Drops a name the dictionary no longer holds. Its trie nodes and trigram
+    // slots stay, empty, for the next name with those words.
+    public void remove(int nameId) {
+        String text = nameId < size ? normalized[nameId] : null;
+        if (text == null) {
+            throw new IllegalArgumentException("Name id " + nameId + " is not indexed");
+        }
+        normalized[nameId] = null;
+
+        int start = 0;
+        while (start < text.length()) {
+            int end = text.indexOf(' ', start);
+            if (end < 0) {
+                end = text.length();
+            }
+            TrieNode node = root.find(text.substring(start, end));
+            if (node != null) {
+                node.remove(nameId);
+            }
+            for (int i = start; i + 3 <= end; i++) {
+                removePosting(trigram(text, i), nameId);
+            }
+            start = end + 1;
+        }
+    }
+
+    // Lower-cased words of the query, in the same form as indexed names
+    public static String[] tokenize(String query) {
+        String text = normalize(query);
+        return text.isEmpty() ? new String[0] : text.split(" ");
+    }
+
+    // Finds every name matching all tokens. Writes its score to scores[nameId]
+    // and its id to matched[], which must hold size() entries; returns the count.
+    // scores[] must be zero for every name on entry.
+    public int match(String[] tokens, int[] scores, int[] matched) {
+        String driver = tokens[0];
+        for (String token : tokens) {
+            if (token.length() > driver.length()) {
+                driver = token;
+            }
+        }
+
+        int candidateCount;
+        if (driver.length() < SUBSTRING_MIN_LENGTH) {
+            candidateCount = collectPrefix(driver);
+            if (isTrieQuery(tokens)) {
+                // Every word below the trie node starts with the token
+                for (int i = 0; i < candidateCount; i++) {
+                    scores[candidates[i]] = SCORE_PREFIX;
+                    matched[i] = candidates[i];
+                }
+                return candidateCount;
+            }
+        } else if (driver.length() < FUZZY_MIN_LENGTH) {
+            candidateCount = collectSubstring(driver);
+        } else {
+            candidateCount = collectSimilar(driver);
+        }
+        return verify(tokens, candidates, candidateCount, scores, matched);
+    }
+
+    // Same as match() but only considers the given names, e.g. the matches of
+    // the previous keystroke when the query was only extended
+    public int matchAmong(String[] tokens, int[] names, int count, int[] scores, int[] matched) {
+        return verify(tokens, names, count, scores, matched);
+    }
+
+    // True when every name matching next also matches previous, so a search
+    // for next may start from the results for previous
+    public static boolean narrows(String[] previous, String[] next) {
+        if (previous.length == 0 || next.length < previous.length) {
+            return false;
+        }
+        for (int i = 0; i < previous.length; i++) {
+            boolean last = i == previous.length - 1;
+            if (last ? !next[i].startsWith(previous[i]) : !next[i].equals(previous[i])) {
+                return false;
+            }
+            if (matchLevel(next[i].length()) != matchLevel(previous[i].length())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // True when match() answers the query from the trie alone, without
+    // checking candidates one by one
+    public static boolean isTrieQuery(String[] tokens) {
+        return tokens.length == 1 && tokens[0].length() < SUBSTRING_MIN_LENGTH;
+    }
+
+    private static int matchLevel(int tokenLength) {
+        if (tokenLength < SUBSTRING_MIN_LENGTH) {
+            return 0;
+        }
+        return tokenLength < FUZZY_MIN_LENGTH ? 1 : 2;
+    }
+
+    private int verify(String[] tokens, int[] names, int count, int[] scores, int[] matched) {
+        int matchedCount = 0;
+        for (int i = 0; i < count; i++) {
+            int nameId = names[i];
+            String text = normalized[nameId];
+            if (text == null) {
+                continue; // dropped since the previous keystroke
+            }
+            int score = 0;
+            for (String token : tokens) {
+                int tokenScore = scoreToken(text, token);
+                if (tokenScore == 0) {
+                    score = 0;
+                    break;
+                }
+                score += tokenScore;
+            }
+            if (score > 0) {
+                scores[nameId] = score;
+                matched[matchedCount++] = nameId;
+            }
+        }
+        return matchedCount;
+    }
+
+    private int scoreToken(String text, String token) {
+        int at = text.indexOf(token);
+        if (at < 0) {
+            if (token.length() >= FUZZY_MIN_LENGTH && withinEdits(text, token, TYPO_EDITS)) {
+                return SCORE_FUZZY;
+            }
+            return 0;
+        }
+        // Look for an occurrence at the start of a word
+        while (at >= 0) {
+            if (at == 0 || text.charAt(at - 1) == ' ') {
+                return SCORE_PREFIX;
+            }
+            at = text.indexOf(token, at + 1);
+        }
+        return token.length() >= SUBSTRING_MIN_LENGTH ? SCORE_SUBSTRING : 0;
+    }
+
+    // Whether pattern occurs somewhere in text with at most maxEdits
+    // insertions, deletions or substitutions (Sellers' algorithm, one row)
+    private boolean withinEdits(String text, String pattern, int maxEdits) {
+        int m = pattern.length();
+        if (editRow.length <= m) {
+            editRow = new int[m + 1];
+        }
+        int[] row = editRow;
+        for (int i = 0; i <= m; i++) {
+            row[i] = i;
+        }
+        for (int j = 0; j < text.length(); j++) {
+            char c = text.charAt(j);
+            int diagonal = 0; // row[0] stays 0: a match may start anywhere
+            for (int i = 1; i <= m; i++) {
+                int above = row[i];
+                int cost = pattern.charAt(i - 1) == c ? diagonal : diagonal + 1;
+                row[i] = Math.min(cost, Math.min(above + 1, row[i - 1] + 1));
+                diagonal = above;
+            }
+            if (row[m] <= maxEdits) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int collectPrefix(String token) {
+        TrieNode node = root.find(token);
+        int count = 0;
+        if (node == null) {
+            return 0;
+        }
+        int stamp = nextStamp();
+        ArrayList<TrieNode> stack = new ArrayList<>();
+        stack.add(node);
+        while (!stack.isEmpty()) {
+            TrieNode current = stack.remove(stack.size() - 1);
+            for (int i = 0; i < current.nameCount; i++) {
+                int nameId = current.names[i];
+                if (seen[nameId] != stamp) {
+                    seen[nameId] = stamp;
+                    count = addCandidate(count, nameId);
+                }
+            }
+            for (int i = 0; i < current.childCount; i++) {
+                stack.add(current.children[i]);
+            }
+        }
+        return count;
+    }
+
+    // Names containing every trigram of the token, found by walking the
+    // shortest postings list and probing the others
+    private int collectSubstring(String token) {
+        int trigrams = token.length() - 2;
+        int[] slots = new int[trigrams];
+        int shortest = 0;
+        for (int i = 0; i < trigrams; i++) {
+            slots[i] = trigramSlots.get(trigram(token, i));
+            if (slots[i] == LongIntHashMap.NO_VALUE) {
+                return 0;
+            }
+            if (postingSizes[slots[i]] < postingSizes[slots[shortest]]) {
+                shortest = i;
+            }
+        }
+        int[] base = postings[slots[shortest]];
+        int baseSize = postingSizes[slots[shortest]];
+        int count = 0;
+        for (int i = 0; i < baseSize; i++) {
+            int nameId = base[i];
+            boolean all = true;
+            for (int t = 0; t < trigrams && all; t++) {
+                if (t != shortest) {
+                    all = Arrays.binarySearch(postings[slots[t]], 0, postingSizes[slots[t]], nameId) >= 0;
+                }
+            }
+            if (all) {
+                count = addCandidate(count, nameId);
+            }
+        }
+        return count;
+    }
+
+    // Names sharing enough trigrams with the token to be within TYPO_EDITS of
+    // it: one edit touches at most three trigrams
+    private int collectSimilar(String token) {
+        int trigrams = token.length() - 2;
+        int needed = Math.max(1, trigrams - 3 * TYPO_EDITS);
+        if (trigramHits.length < size) {
+            trigramHits = new int[Math.max(size, trigramHits.length * 2)];
+        }
+        int stamp = nextStamp();
+        int count = 0;
+        for (int t = 0; t < trigrams; t++) {
+            int slot = trigramSlots.get(trigram(token, t));
+            if (slot == LongIntHashMap.NO_VALUE) {
+                continue;
+            }
+            int[] list = postings[slot];
+            for (int i = 0; i < postingSizes[slot]; i++) {
+                int nameId = list[i];
+                if (seen[nameId] != stamp) {
+                    seen[nameId] = stamp;
+                    trigramHits[nameId] = 0;
+                }
+                if (++trigramHits[nameId] == needed) {
+                    count = addCandidate(count, nameId);
+                }
+            }
+        }
+        return count;
+    }
+
+    private int addCandidate(int count, int nameId) {
+        if (count == candidates.length) {
+            candidates = Arrays.copyOf(candidates, count * 2);
+        }
+        candidates[count] = nameId;
+        return count + 1;
+    }
+
+    private int nextStamp() {
+        if (seen.length < size) {
+            seen = Arrays.copyOf(seen, Math.max(size, seen.length * 2));
+        }
+        if (++seenStamp == Integer.MAX_VALUE) {
+            Arrays.fill(seen, 0);
+            seenStamp = 1;
+        }
+        return seenStamp;
+    }
+
+    private void addPosting(long key, int nameId) {
+        int slot = trigramSlots.get(key);
+        if (slot == LongIntHashMap.NO_VALUE) {
+            if (trigramCount == postings.length) {
+                postings = Arrays.copyOf(postings, trigramCount * 2);
+                postingSizes = Arrays.copyOf(postingSizes, trigramCount * 2);
+            }
+            slot = trigramCount++;
+            postings[slot] = new int[4];
+            trigramSlots.put(key, slot);
+        }
+        int count = postingSizes[slot];
+        // Appends unless the id is a reused one, which goes in at its place
+        int at = count == 0 || postings[slot][count - 1] < nameId
+                ? count : Arrays.binarySearch(postings[slot], 0, count, nameId);
+        if (at >= 0 && at < count) {
+            return; // trigram repeats within the name
+        }
+        at = at < 0 ? -at - 1 : at;
+        if (count == postings[slot].length) {
+            postings[slot] = Arrays.copyOf(postings[slot], count * 2);
+        }
+        System.arraycopy(postings[slot], at, postings[slot], at + 1, count - at);
+        postings[slot][at] = nameId;
+        postingSizes[slot] = count + 1;
+    }
+
+    private void removePosting(long key, int nameId) {
+        int slot = trigramSlots.get(key);
+        if (slot == LongIntHashMap.NO_VALUE) {
+            return;
+        }
+        int count = postingSizes[slot];
+        int at = Arrays.binarySearch(postings[slot], 0, count, nameId);
+        if (at < 0) {
+            return; // trigram repeats within the name, already removed
+        }
+        System.arraycopy(postings[slot], at + 1, postings[slot], at, count - at - 1);
+        postingSizes[slot] = count - 1;
+    }
+
+    private static long trigram(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+
+    // Lower case, accents stripped, runs of anything but letters and digits
+    // (spaces, punctuation, emoji) collapsed into single spaces
+    static String normalize(String text) {
+        boolean ascii = true;
+        for (int i = 0; i < text.length() && ascii; i++) {
+            ascii = text.charAt(i) < 0x80;
+        }
+        String decomposed = ascii ? text : Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder out = new StringBuilder(decomposed.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && out.length() > 0) {
+                    out.append(' ');
+                }
+                pendingSpace = false;
+                out.append(Character.toLowerCase(c));
+            } else if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                pendingSpace = true;
+            }
+        }
+        return out.toString();
+    }
+
+    // Trie over the words of the names. Each node keeps the names having a word
+    // that ends there; a prefix query collects its node's subtree.
+    private static final class TrieNode {
+        char[] keys = new char[0];
+        TrieNode[] children = new TrieNode[0];
+        int childCount;
+        int[] names;
+        int nameCount;
+
+        void insert(String text, int start, int end, int nameId) {
+            TrieNode node = this;
+            for (int i = start; i < end; i++) {
+                node = node.childFor(text.charAt(i));
+            }
+            if (node.nameCount > 0 && node.names[node.nameCount - 1] == nameId) {
+                return; // word repeats within the name
+            }
+            if (node.names == null) {
+                node.names = new int[2];
+            } else if (node.nameCount == node.names.length) {
+                node.names = Arrays.copyOf(node.names, node.nameCount * 2);
+            }
+            node.names[node.nameCount++] = nameId;
+        }
+
+        void remove(int nameId) {
+            for (int i = 0; i < nameCount; i++) {
+                if (names[i] == nameId) {
+                    names[i] = names[--nameCount];
+                    return;
+                }
+            }
+        }
+
+        TrieNode find(String prefix) {
+            TrieNode node = this;
+            for (int i = 0; i < prefix.length() && node != null; i++) {
+                node = node.child(prefix.charAt(i));
+            }
+            return node;
+        }
+
+        private TrieNode child(char key) {
+            for (int i = 0; i < childCount; i++) {
+                if (keys[i] == key) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        private TrieNode childFor(char key) {
+            TrieNode child = child(key);
+            if (child != null) {
+                return child;
+            }
+            if (childCount == keys.length) {
+                int capacity = Math.max(2, childCount * 2);
+                keys = Arrays.copyOf(keys, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            child = new TrieNode();
+            keys[childCount] = key;
+            children[childCount++] = child;
+            return child;
+        }
+    }
+}
@@ -1,38 +1,41 @@
 package com.example.productexpirationtrackerapp;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
-
+// Flyweight view of one ProductTable row. Point it at a row with moveTo() and
+// reuse the same instance instead of allocating an object per product.
 public class Product {
-    private String name;
-    private Date expiryDate;
+    private final ProductTable table;
+    private int row = ProductTable.NO_ROW;
+
+    public Product(ProductTable table) {
+        this.table = table;
+    }
+
+    public Product moveTo(int row) {
+        this.row = row;
+        return this;
+    }
+
+    public int getRow() {
+        return row;
+    }
 
-    public Product(String name, String expiryDateStr) {
-        this.name = name;
-        try {
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-            this.expiryDate = sdf.parse(expiryDateStr);
-        } catch (ParseException e) {
-            this.expiryDate = new Date(); // Default to today if parsing fails
-        }
+    public long getId() {
+        return table.getId(row);
     }
 
     public String getName() {
-        return name;
+        return table.getName(row);
     }
 
-    public Date getExpiryDate() {
-        return expiryDate;
+    public int getExpiryEpochDay() {
+        return table.getExpiryDay(row);
     }
 
     public String getFormattedExpiryDate() {
-        SimpleDateFormat sdf = new SimpleDateFormat("MMM dd, yyyy", Locale.getDefault());
-        return sdf.format(expiryDate);
+        return DateService.formatDisplay(getExpiryEpochDay());
     }
 
     public String getDisplayText() {
-        return name + " - Expires: " + getFormattedExpiryDate();
+        return getName() + " - Expires: " + getFormattedExpiryDate();
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package com.example.productexpirationtrackerapp;
 
+import android.content.Context;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -8,109 +9,756 @@ import android.widget.LinearLayout;
 
 import androidx.annotation.NonNull;
 import androidx.core.content.ContextCompat;
+import androidx.core.widget.TextViewCompat;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
-import java.util.Locale;
-import java.util.concurrent.TimeUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
-public class ProductAdapter extends RecyclerView.Adapter<ProductAdapter.ViewHolder> {
+// Shows the products of a table, or the matches of a search. The unfiltered
+// list holds nothing per row: ids are read from the table by position and row
+// models come from a ProductPager a page at a time. Changes to the shown table
+// are reported by it at their positions and passed on as item notifications as
+// they happen. A search runs over a copy of the table taken one slice per
+// main-thread turn and joined on a background thread. The name index is asked
+// for matching names on the main thread; the rows holding them are picked out
+// of the copy on the background thread, and each result is diffed against the
+// shown one there, so a new query turns into item-range notifications rather
+// than a full rebind. When only the day moves on, the rows changing status are
+// taken from the expiry index.
+public class ProductAdapter extends RecyclerView.Adapter<ProductAdapter.ViewHolder>
+        implements ProductPager.Listener, ProductTable.ListObserver {
+
+    // Beyond this many inserted or removed rows a full refresh is cheaper than a diff
+    private static final int MAX_DIFF_SIZE_CHANGE = 1000;
+    // Rows of the table a search copies per main-thread turn
+    private static final int COPY_SLICE = 8192;
+
+    private static final Metrics.Histogram BIND_TIME = Metrics.histogram("list.bind");
+    private static final Metrics.Counter PLACEHOLDER_BINDS = Metrics.counter("list.bind.placeholder");
+    private static final Metrics.Counter UNPREPARED_TEXT_BINDS = Metrics.counter("list.bind.unprepared_text");
+    private static final Metrics.Counter DAY_ROLLOVERS = Metrics.counter("list.day_rollovers");
+    private static final Metrics.Counter DAY_ROLLOVER_ROWS = Metrics.counter("list.day_rollover.crossed_rows");
+
+    // Rebinds only the selected state of a row
+    private static final Object PAYLOAD_SELECTION = new Object();
+    // Rebinds only the days-left text of a row whose status did not change
+    private static final Object PAYLOAD_DAY = new Object();
+
+    private static final ExecutorService DIFF_EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "row-diff");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final Executor mainExecutor;
+    private final RowTextPrecomputer textPrecomputer;
+    private final ProductPager pager;
+    private final ProductSearch search = new ProductSearch();
+    private RecyclerView recyclerView;
+
+    // Shown state: the live rows of table, or the search matches when non-null
+    private ProductTable table;
+    private ProductSnapshot matches;
+    private ProductTable observed; // Table reporting its changes, while live rows are shown
+    private int shownVersion; // Table version the shown rows were taken at
+    private int shownCount;
+    private int today;
+
+    // Last requested state, lets refresh() skip redundant work
+    private ProductTable requestedTable;
+    private int requestedVersion = -1;
+    private int requestedDay;
+    private String requestedQuery = "";
+    private int requestedCount;
+    // Whole table as searched, only while a query is set
+    private ProductSnapshot source;
+    private ProductTable sourceTable;
+    private int copyGeneration; // Bumped to abandon a copy in progress
+    private int generation;
+    private int shownGeneration; // Generation of the shown rows; equal to generation when nothing is pending
+
+    // Multi-select, by product id so it survives diffs and filtering
+    private final ProductSelection selection = new ProductSelection();
+    private boolean selectionMode;
 
-    private ArrayList<Product> productList;
     private OnItemClickListener listener;
+    private OnMatchesShownListener matchesListener;
 
     public interface OnItemClickListener {
         void onItemClick(int position);
         void onItemLongClick(int position);
     }
 
+    // Told when the matches of a search are shown, which is after setQuery()
+    // returns
+    public interface OnMatchesShownListener {
+        void onMatchesShown(int count);
+    }
+
+    // Shared by every row, the holder is found through the view tag
+    private final View.OnClickListener clickListener = new View.OnClickListener() {
+        @Override
+        public void onClick(View v) {
+            int position = ((ViewHolder) v.getTag()).getBindingAdapterPosition();
+            if (listener != null && position != RecyclerView.NO_POSITION) {
+                listener.onItemClick(position);
+            }
+        }
+    };
+
+    private final View.OnLongClickListener longClickListener = new View.OnLongClickListener() {
+        @Override
+        public boolean onLongClick(View v) {
+            int position = ((ViewHolder) v.getTag()).getBindingAdapterPosition();
+            if (listener != null && position != RecyclerView.NO_POSITION) {
+                listener.onItemLongClick(position);
+                return true;
+            }
+            return false;
+        }
+    };
+
     public void setOnItemClickListener(OnItemClickListener listener) {
         this.listener = listener;
     }
 
-    public ProductAdapter(ArrayList<Product> productList) {
-        this.productList = productList;
+    public void setOnMatchesShownListener(OnMatchesShownListener listener) {
+        matchesListener = listener;
     }
 
-    @NonNull
-    @Override
-    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        // Use your custom layout instead of android.R.layout.simple_list_item_1
-        View view = LayoutInflater.from(parent.getContext())
-                .inflate(R.layout.item_product, parent, false);
-        return new ViewHolder(view);
+    public ProductAdapter(Context context) {
+        setHasStableIds(true);
+        mainExecutor = ContextCompat.getMainExecutor(context);
+        textPrecomputer = RowTextPrecomputer.getInstance(context);
+        pager = new ProductPager(createRowModelFactory(context), mainExecutor, this);
     }
 
-    @Override
-    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        Product product = productList.get(position);
-
-        // Set product data
-        holder.productName.setText(product.getName());
-        holder.productExpiry.setText("Expires: " + product.getFormattedExpiryDate());
-
-        // Get first emoji/icon from product name
-        if (product.getName().length() > 0) {
-            String firstChar = product.getName().substring(0, 2); // Get first 2 chars (emoji)
-            holder.productIcon.setText(firstChar);
-        }
-
-        // Calculate days left
-        Date now = new Date();
-        long timeDiff = product.getExpiryDate().getTime() - now.getTime();
-        long daysLeft = TimeUnit.DAYS.convert(timeDiff, TimeUnit.MILLISECONDS);
-
-        // Set days left text and color
-        if (daysLeft < 0) {
-            holder.productDaysLeft.setText("EXPIRED");
-            holder.productDaysLeft.setTextColor(ContextCompat.getColor(holder.itemView.getContext(), android.R.color.holo_red_dark));
-            holder.productDaysLeft.setBackgroundColor(ContextCompat.getColor(holder.itemView.getContext(), android.R.color.holo_red_light));
-            holder.statusIndicator.setBackgroundColor(ContextCompat.getColor(holder.itemView.getContext(), android.R.color.holo_red_dark));
-        } else if (daysLeft <= 3) {
-            holder.productDaysLeft.setText(daysLeft + " days left");
-            holder.productDaysLeft.setTextColor(ContextCompat.getColor(holder.itemView.getContext(), android.R.color.holo_orange_dark));
-            holder.productDaysLeft.setBackgroundColor(ContextCompat.getColor(holder.itemView.getContext(), android.R.color.holo_orange_light));
-            holder.statusIndicator.setBackgroundColor(ContextCompat.getColor(holder.itemView.getContext(), android.R.color.holo_orange_dark));
-        } else if (daysLeft <= 7) {
-            holder.productDaysLeft.setText(daysLeft + " days left");
-            holder.productDaysLeft.setTextColor(ContextCompat.getColor(holder.itemView.getContext(), android.R.color.holo_orange_light));
-            holder.productDaysLeft.setBackgroundColor(0xFFFBE9E7);
-            holder.statusIndicator.setBackgroundColor(ContextCompat.getColor(holder.itemView.getContext(), android.R.color.holo_orange_light));
+    // Colours for each ExpiryStatus, resolved once for the model factory, and
+    // row texts laid out for the current configuration as models are built
+    public static ProductRowModelFactory createRowModelFactory(Context context) {
+        int[] textColors = {
+                ContextCompat.getColor(context, android.R.color.holo_red_dark),
+                ContextCompat.getColor(context, android.R.color.holo_orange_dark),
+                ContextCompat.getColor(context, android.R.color.holo_orange_light),
+                ContextCompat.getColor(context, android.R.color.holo_green_dark)
+        };
+        int[] backgroundColors = {
+                ContextCompat.getColor(context, android.R.color.holo_red_light),
+                ContextCompat.getColor(context, android.R.color.holo_orange_light),
+                0xFFFBE9E7,
+                ContextCompat.getColor(context, android.R.color.holo_green_light)
+        };
+        return new ProductRowModelFactory(textColors, backgroundColors, textColors,
+                RowTextPrecomputer.getInstance(context));
+    }
+
+    // Shows the table's current contents if it changed, or the calendar day
+    // moved on, since the last call. Returns false when there was nothing to do.
+    public boolean refresh(ProductTable table) {
+        return refresh(table, requestedQuery);
+    }
+
+    // Shows only the products whose name matches the query, best matches first.
+    // Typing on from the previous query narrows its results.
+    public boolean setQuery(ProductTable table, String query) {
+        return refresh(table, query.trim());
+    }
+
+    private boolean refresh(ProductTable table, String query) {
+        int day = DateService.today();
+        boolean sameTable = table == requestedTable && table.getVersion() == requestedVersion;
+        boolean sameQuery = query.equals(requestedQuery);
+        if (sameTable && day == requestedDay && sameQuery) {
+            return false;
+        }
+        requestedTable = table;
+        requestedVersion = table.getVersion();
+        requestedDay = day;
+        requestedQuery = query;
+
+        if (query.isEmpty()) {
+            showTable(table, day);
         } else {
-            holder.productDaysLeft.setText(daysLeft + " days left");
-            holder.productDaysLeft.setTextColor(ContextCompat.getColor(holder.itemView.getContext(), android.R.color.holo_green_dark));
-            holder.productDaysLeft.setBackgroundColor(ContextCompat.getColor(holder.itemView.getContext(), android.R.color.holo_green_light));
-            holder.statusIndicator.setBackgroundColor(ContextCompat.getColor(holder.itemView.getContext(), android.R.color.holo_green_dark));
+            showMatches(table, query, day, sameTable && sameQuery);
         }
+        return true;
+    }
+
+    private void showTable(ProductTable table, int day) {
+        // The search copy goes, along with any copy still being taken
+        copyGeneration++;
+        source = null;
+        sourceTable = null;
+        requestedCount = table.size();
+
+        if (table == this.table && matches == null) {
+            // Drops a switch to search matches still on its way
+            shownGeneration = ++generation;
+            if (table.getVersion() != shownVersion) {
+                // Changed while no list was attached to be told, so the rows are paged in again
+                shownVersion = table.getVersion();
+                shownCount = table.size();
+                pager.setTable(table, today, null);
+                notifyDataSetChanged();
+            }
+            if (day != today) {
+                rollDay(table, day);
+            }
+            return;
+        }
+        // The splash screen may already have built the first rows
+        if (this.table == null) {
+            StartupWarmup.FirstScreen firstScreen = StartupWarmup.getInstance().takeFirstScreen(table, day);
+            if (firstScreen != null) {
+                showFirstScreen(table, firstScreen);
+                return;
+            }
+        }
+        switchToTable(table, day);
+    }
+
+    // Shows prepared rows right away instead of going through the diff thread
+    private void showFirstScreen(ProductTable table, StartupWarmup.FirstScreen firstScreen) {
+        shownGeneration = ++generation;
+        this.table = table;
+        matches = null;
+        shownVersion = table.getVersion();
+        shownCount = table.size();
+        today = firstScreen.today;
+        pager.setTable(table, firstScreen.today, firstScreen.pages);
+        updateObserver();
+        notifyDataSetChanged();
+    }
+
+    // Goes over to the live rows once the pages around the visible window are
+    // built; only those rows are copied here
+    private void switchToTable(final ProductTable table, final int day) {
+        final int switchGeneration = ++generation;
+        final int version = table.getVersion();
+        final int anchor = Math.max(0, Math.min(firstVisiblePosition(), table.size() - 1));
+        final int from = anchor - ProductPager.PAGE_SIZE;
+        final ProductSnapshot rows = ProductPager.copyPages(table, from, anchor + 2 * ProductPager.PAGE_SIZE);
+        final ProductRowModelFactory factory = pager.getFactory();
+
+        DIFF_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final Map<Integer, ProductRowModel[]> pages = ProductPager.buildCopiedPages(factory, rows, from, day);
+                mainExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (switchGeneration != generation) {
+                            return;
+                        }
+                        if (table.getVersion() != version) {
+                            switchToTable(table, requestedDay);
+                            return;
+                        }
+                        shownGeneration = switchGeneration;
+                        ProductAdapter.this.table = table;
+                        matches = null;
+                        shownVersion = version;
+                        shownCount = table.size();
+                        today = day;
+                        pager.setTable(table, day, pages);
+                        updateObserver();
+                        notifyDataSetChanged();
+                    }
+                });
+            }
+        });
+    }
+
+    private void showMatches(ProductTable table, String query, int day, boolean onlyDayChanged) {
+        // Only the day moved on and the shown matches are current
+        if (onlyDayChanged && matches != null && shownGeneration == generation) {
+            rollDay(table, day);
+            return;
+        }
+        if (table == sourceTable && source.getVersion() == table.getVersion()) {
+            search(table, query, day);
+        } else {
+            copySource(table);
+        }
+    }
+
+    // Only the names are matched here; the rows holding them are picked out
+    // on the diff thread
+    private void search(ProductTable table, String query, int day) {
+        ProductSearch.NameMatches found = search.match(table.getSearchIndex(), source, query);
+        submit(table, source, found, day);
+    }
+
+    // Copies the table for the search one slice per main-thread turn, so no
+    // single turn grows with the inventory; the slices are joined on the diff
+    // thread. A change to the table midway starts the copy over.
+    private void copySource(final ProductTable table) {
+        final int copy = ++copyGeneration;
+        mainExecutor.execute(new Runnable() {
+            private final ArrayList<ProductSnapshot> slices = new ArrayList<>();
+            private int version = table.getVersion();
+            private int copied;
 
-        // Set click listener on the entire item
-        holder.itemLayout.setOnClickListener(new View.OnClickListener() {
             @Override
-            public void onClick(View v) {
-                if (listener != null) {
-                    listener.onItemClick(position);
+            public void run() {
+                if (copy != copyGeneration) {
+                    return;
                 }
+                if (table.getVersion() != version) {
+                    slices.clear();
+                    copied = 0;
+                    version = table.getVersion();
+                }
+                ProductSnapshot slice = table.copyRows(copied, COPY_SLICE);
+                slices.add(slice);
+                copied += slice.size();
+                if (copied < table.size()) {
+                    mainExecutor.execute(this);
+                    return;
+                }
+                DIFF_EXECUTOR.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        final ProductSnapshot joined = ProductSnapshot.concat(slices);
+                        mainExecutor.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                if (copy != copyGeneration) {
+                                    return;
+                                }
+                                source = joined;
+                                sourceTable = table;
+                                search(table, requestedQuery, requestedDay);
+                            }
+                        });
+                    }
+                });
             }
         });
+    }
+
+    public boolean isFiltered() {
+        return !requestedQuery.isEmpty();
+    }
+
+    // Number of search matches shown; while a search is still on its way, the
+    // count of the previous one
+    public int getMatchCount() {
+        return requestedCount;
+    }
+
+    // Model shown at the position, or null while its page is still loading
+    public ProductRowModel getRowModel(int position) {
+        return pager.get(position);
+    }
+
+    // Calendar day the shown models were built for
+    public int getToday() {
+        return today;
+    }
+
+    // Table version the shown rows were taken at
+    public int getShownVersion() {
+        return shownVersion;
+    }
+
+    public boolean isSelectionMode() {
+        return selectionMode;
+    }
+
+    // Leaving selection mode clears the selection
+    public void setSelectionMode(boolean selectionMode) {
+        if (this.selectionMode == selectionMode) {
+            return;
+        }
+        this.selectionMode = selectionMode;
+        if (!selectionMode && !selection.isEmpty()) {
+            selection.clear();
+            notifyItemRangeChanged(0, getItemCount(), PAYLOAD_SELECTION);
+        }
+    }
+
+    // Returns true if the row is selected afterwards
+    public boolean toggleSelection(int position) {
+        boolean selected = selection.toggle(getItemId(position));
+        notifyItemChanged(position, PAYLOAD_SELECTION);
+        return selected;
+    }
+
+    // Adds products to the selection, shown or not; returns how many were new
+    public int select(long[] ids, int count) {
+        int added = 0;
+        for (int i = 0; i < count; i++) {
+            if (selection.add(ids[i])) {
+                added++;
+            }
+        }
+        if (added > 0) {
+            // Only bound rows are rebound, and only their selected state
+            notifyItemRangeChanged(0, getItemCount(), PAYLOAD_SELECTION);
+        }
+        return added;
+    }
+
+    public ProductSelection getSelection() {
+        return selection;
+    }
+
+    private void submit(final ProductTable table, final ProductSnapshot searched,
+            final ProductSearch.NameMatches found, final int newToday) {
+        // Nothing to diff against while the live table is shown
+        final ProductSnapshot oldMatches = matches;
+        final int oldToday = today;
+        final int submitGeneration = ++generation;
+        final int anchor = firstVisiblePosition();
+        final ProductRowModelFactory factory = pager.getFactory();
 
-        // Set long click listener
-        holder.itemLayout.setOnLongClickListener(new View.OnLongClickListener() {
+        DIFF_EXECUTOR.execute(new Runnable() {
             @Override
-            public boolean onLongClick(View v) {
-                if (listener != null) {
-                    listener.onItemLongClick(position);
-                    return true;
+            public void run() {
+                final ProductSnapshot newMatches = search.select(searched, found);
+                DiffUtil.DiffResult diff = null;
+                int newAnchor = Math.max(0, Math.min(anchor, newMatches.size() - 1));
+                if (oldMatches != null && oldToday == newToday
+                        && oldMatches.size() > 0 && newMatches.size() > 0
+                        && Math.abs(oldMatches.size() - newMatches.size()) <= MAX_DIFF_SIZE_CHANGE) {
+                    diff = DiffUtil.calculateDiff(new SnapshotDiffCallback(oldMatches, newMatches), false);
+                    if (anchor >= 0 && anchor < oldMatches.size()) {
+                        int converted = diff.convertOldPositionToNew(anchor);
+                        if (converted != RecyclerView.NO_POSITION) {
+                            newAnchor = converted;
+                        }
+                    }
                 }
-                return false;
+
+                // Visible rows of the new matches are ready before they are shown
+                final Map<Integer, ProductRowModel[]> pages = ProductPager.buildPages(factory, newMatches,
+                        newToday, newAnchor - ProductPager.PAGE_SIZE, newAnchor + 2 * ProductPager.PAGE_SIZE);
+                final DiffUtil.DiffResult result = diff;
+                mainExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (submitGeneration != generation) {
+                            return;
+                        }
+                        shownGeneration = submitGeneration;
+                        ProductAdapter.this.table = table;
+                        matches = newMatches;
+                        requestedCount = newMatches.size();
+                        shownVersion = newMatches.getVersion();
+                        shownCount = newMatches.size();
+                        today = newToday;
+                        pager.setSnapshot(newMatches, newToday, pages);
+                        updateObserver();
+                        if (result != null) {
+                            result.dispatchUpdatesTo(ProductAdapter.this);
+                        } else {
+                            notifyDataSetChanged();
+                        }
+                        if (matchesListener != null) {
+                            matchesListener.onMatchesShown(newMatches.size());
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    // Day rollover for the shown rows. Statuses change only for the rows
+    // crossing a threshold between the two days; those are popped off the
+    // expiry index, O(log d + crossings), and get a full rebind. Every other
+    // bound row only redraws its days-left text. Models are rebuilt for the
+    // new day around the visible rows first, then page by page as scrolled.
+    private void rollDay(final ProductTable table, final int newDay) {
+        final ProductSnapshot shownMatches = matches;
+        final int rollGeneration = ++generation;
+        final int version = table.getVersion();
+        final int anchor = Math.max(0, Math.min(firstVisiblePosition(), shownCount - 1));
+        final int from = anchor - ProductPager.PAGE_SIZE;
+        final int to = anchor + 2 * ProductPager.PAGE_SIZE;
+        final ProductRowModelFactory factory = pager.getFactory();
+
+        // Positions in a filtered list are not table positions
+        final int[] crossed;
+        final int[] crossedCount = new int[1];
+        final ProductSnapshot rows;
+        if (shownMatches != null) {
+            crossed = null;
+            rows = null;
+        } else {
+            int fromDay = Math.min(today, newDay) + 1;
+            int toDay = Math.max(today, newDay);
+            int[] counts = new int[ExpiryStatus.COUNT];
+            ExpiryCrossings.countCrossings(table.getExpiryIndex(), fromDay, toDay, counts);
+            crossed = new int[counts[ExpiryStatus.EXPIRED] + counts[ExpiryStatus.EXPIRING_SOON]
+                    + counts[ExpiryStatus.WARNING]];
+            ExpiryCrossings.forEachCrossing(table.getExpiryIndex(), fromDay, toDay, new ExpiryIndex.RowVisitor() {
+                @Override
+                public void visit(int row, int expiryDay) {
+                    crossed[crossedCount[0]++] = table.positionOf(row);
+                }
+            });
+            rows = ProductPager.copyPages(table, from, to);
+        }
+        DAY_ROLLOVERS.increment();
+        DAY_ROLLOVER_ROWS.add(crossedCount[0]);
+
+        DIFF_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final Map<Integer, ProductRowModel[]> pages = shownMatches != null
+                        ? ProductPager.buildPages(factory, shownMatches, newDay, from, to)
+                        : ProductPager.buildCopiedPages(factory, rows, from, newDay);
+                mainExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (rollGeneration != generation) {
+                            return;
+                        }
+                        shownGeneration = rollGeneration;
+                        today = newDay;
+                        if (shownMatches != null) {
+                            pager.setSnapshot(shownMatches, newDay, pages);
+                            notifyItemRangeChanged(0, getItemCount());
+                            return;
+                        }
+                        if (table.getVersion() != version) {
+                            // Rows moved meanwhile; the crossings and pages no longer line up
+                            pager.setTable(table, newDay, null);
+                            notifyItemRangeChanged(0, getItemCount());
+                            return;
+                        }
+                        pager.setTable(table, newDay, pages);
+                        for (int i = 0; i < crossedCount[0]; i++) {
+                            notifyItemChanged(crossed[i]);
+                        }
+                        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_DAY);
+                    }
+                });
             }
         });
     }
 
+    // Follows the live table while it is shown in an attached list
+    private void updateObserver() {
+        ProductTable wanted = recyclerView != null && matches == null ? table : null;
+        if (wanted == observed) {
+            return;
+        }
+        if (observed != null) {
+            observed.removeListObserver(this);
+        }
+        if (wanted != null) {
+            wanted.addListObserver(this);
+        }
+        observed = wanted;
+    }
+
+    // A single new row is built here so it shows at once; a batch is paged in
+    @Override
+    public void onRowsInserted(int position, int count) {
+        shownCount += count;
+        shownVersion = observed.getVersion();
+        pager.onRowsMoved();
+        if (count == 1) {
+            pager.put(position, pager.getFactory().build(observed, observed.rowAt(position), today));
+        }
+        notifyItemRangeInserted(position, count);
+    }
+
+    @Override
+    public void onRowsRemoved(int position, int count) {
+        shownCount -= count;
+        shownVersion = observed.getVersion();
+        pager.onRowsMoved();
+        notifyItemRangeRemoved(position, count);
+    }
+
+    @Override
+    public void onRowChanged(int position) {
+        shownVersion = observed.getVersion();
+        pager.put(position, pager.getFactory().build(observed, observed.rowAt(position), today));
+        notifyItemChanged(position);
+    }
+
+    private int firstVisiblePosition() {
+        if (recyclerView != null && recyclerView.getLayoutManager() instanceof LinearLayoutManager) {
+            return ((LinearLayoutManager) recyclerView.getLayoutManager()).findFirstVisibleItemPosition();
+        }
+        return 0;
+    }
+
+    @Override
+    public void onPageLoaded(int startPosition, int count) {
+        notifyItemRangeChanged(startPosition, count);
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        this.recyclerView = recyclerView;
+        updateObserver();
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+        this.recyclerView = null;
+        updateObserver();
+    }
+
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        // Use your custom layout instead of android.R.layout.simple_list_item_1
+        View view = LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.item_product, parent, false);
+        ViewHolder holder = new ViewHolder(view);
+        holder.itemLayout.setTag(holder);
+        holder.itemLayout.setOnClickListener(clickListener);
+        holder.itemLayout.setOnLongClickListener(longClickListener);
+        holder.textPrecomputed = textPrecomputer.matches(holder.productIcon, holder.productName,
+                holder.productExpiry, holder.productDaysLeft);
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        for (Object payload : payloads) {
+            if (payload != PAYLOAD_SELECTION && payload != PAYLOAD_DAY) {
+                onBindViewHolder(holder, position);
+                return;
+            }
+        }
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        for (Object payload : payloads) {
+            if (payload == PAYLOAD_SELECTION) {
+                holder.itemLayout.setActivated(selection.contains(getItemId(position)));
+            } else {
+                bindDaysLeft(holder, position);
+            }
+        }
+    }
+
+    // Status is unchanged, so the colours still hold
+    private void bindDaysLeft(ViewHolder holder, int position) {
+        ProductRowModel model = pager.get(position);
+        if (model == null) {
+            bindPlaceholder(holder);
+            PLACEHOLDER_BINDS.increment();
+        } else {
+            RowTextPrecomputer.RowText text = preparedTextOf(holder, model);
+            if (text != null) {
+                TextViewCompat.setPrecomputedText(holder.productDaysLeft, text.daysLeft);
+            } else {
+                holder.productDaysLeft.setText(model.getDaysLeftText());
+            }
+        }
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        long start = System.nanoTime();
+        holder.itemLayout.setActivated(selection.contains(getItemId(position)));
+        ProductRowModel model = pager.get(position);
+        if (model == null) {
+            bindPlaceholder(holder);
+            PLACEHOLDER_BINDS.increment();
+            BIND_TIME.recordSince(start);
+            return;
+        }
+
+        // Everything was precomputed off the main thread, text layout included
+        RowTextPrecomputer.RowText text = preparedTextOf(holder, model);
+        if (text != null) {
+            TextViewCompat.setPrecomputedText(holder.productIcon, text.icon);
+            TextViewCompat.setPrecomputedText(holder.productName, text.name);
+            TextViewCompat.setPrecomputedText(holder.productExpiry, text.expiry);
+            TextViewCompat.setPrecomputedText(holder.productDaysLeft, text.daysLeft);
+        } else {
+            holder.productIcon.setText(model.getIcon());
+            holder.productName.setText(model.getName());
+            holder.productExpiry.setText(model.getExpiryText());
+            holder.productDaysLeft.setText(model.getDaysLeftText());
+            UNPREPARED_TEXT_BINDS.increment();
+        }
+        holder.productDaysLeft.setTextColor(model.getDaysLeftTextColor());
+        holder.productDaysLeft.setBackgroundColor(model.getDaysLeftBackgroundColor());
+        holder.statusIndicator.setBackgroundColor(model.getIndicatorColor());
+        BIND_TIME.recordSince(start);
+    }
+
+    // Layouts only fit views measuring text the way they were laid out for
+    private RowTextPrecomputer.RowText preparedTextOf(ViewHolder holder, ProductRowModel model) {
+        return holder.textPrecomputed ? textPrecomputer.textOf(model) : null;
+    }
+
+    // Shown until the row's page has been built
+    private void bindPlaceholder(ViewHolder holder) {
+        holder.productIcon.setText("📦");
+        holder.productName.setText("");
+        holder.productExpiry.setText("");
+        holder.productDaysLeft.setText("");
+        holder.productDaysLeft.setBackgroundColor(0x00000000);
+        holder.statusIndicator.setBackgroundColor(0xFFE0E0E0);
+    }
+
+    // Product id at the position; O(log n) for the live table
+    @Override
+    public long getItemId(int position) {
+        return matches != null ? matches.getId(position) : table.getId(table.rowAt(position));
+    }
+
     @Override
     public int getItemCount() {
-        return productList.size();
+        return shownCount;
+    }
+
+    // Rows are matched by product id; same name and day means same content
+    // because the diff only runs when the calendar day is unchanged
+    private static class SnapshotDiffCallback extends DiffUtil.Callback {
+        private final ProductSnapshot oldSnapshot;
+        private final ProductSnapshot newSnapshot;
+
+        SnapshotDiffCallback(ProductSnapshot oldSnapshot, ProductSnapshot newSnapshot) {
+            this.oldSnapshot = oldSnapshot;
+            this.newSnapshot = newSnapshot;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return oldSnapshot.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newSnapshot.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldPosition, int newPosition) {
+            return oldSnapshot.getId(oldPosition) == newSnapshot.getId(newPosition);
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldPosition, int newPosition) {
+            return oldSnapshot.getExpiryDay(oldPosition) == newSnapshot.getExpiryDay(newPosition)
+                    && oldSnapshot.getName(oldPosition).equals(newSnapshot.getName(newPosition));
+        }
     }
 
     public static class ViewHolder extends RecyclerView.ViewHolder {
@@ -120,6 +768,7 @@ public class ProductAdapter extends RecyclerView.Adapter<ProductAdapter.ViewHold
         TextView productExpiry;
         TextView productDaysLeft;
         View statusIndicator;
+        boolean textPrecomputed; // Views accept the precomputer's layouts
 
         public ViewHolder(@NonNull View itemView) {
             super(itemView);
@@ -131,4 +780,4 @@ public class ProductAdapter extends RecyclerView.Adapter<ProductAdapter.ViewHold
             statusIndicator = itemView.findViewById(R.id.statusIndicator);
         }
     }
-}
\ No newline at end of file
+}
@@ -2,37 +2,45 @@ package com.example.productexpirationtrackerapp;
 
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
+import android.app.DatePickerDialog;
 import android.content.DialogInterface;
 import android.content.Intent;
 import android.os.Bundle;
 import android.view.View;
 import android.widget.Button;
+import android.widget.DatePicker;
+import android.widget.EditText;
 import android.widget.TextView;
 import android.widget.Toast;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
-import java.util.concurrent.TimeUnit;
+import androidx.core.content.ContextCompat;
+
+import java.io.IOException;
+import java.time.LocalDate;
 
 public class ProductDetailActivity extends AppCompatActivity {
 
+    // Id of the product to show, the only thing ProductListActivity passes
+    public static final String EXTRA_PRODUCT_ID = "product_id";
+    // Result: id of the product the user chose to delete
+    public static final String EXTRA_DELETED_ID = "deleted_id";
+
     private TextView productNameText, expiryDateText, daysLeftText, statusText;
     private Button backButton, editButton, deleteButton;
 
+    private ProductRepository repository;
+    private long productId;
     private String productName;
-    private String expiryDate;
-    private int position;
+    private int expiryDay;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_product_detail);
 
-        // Get data passed from ProductListActivity
-        Intent intent = getIntent();
-        productName = intent.getStringExtra("product_name");
-        expiryDate = intent.getStringExtra("expiry_date");
-        position = intent.getIntExtra("position", -1);
+        // Get the product id passed from ProductListActivity
+        productId = getIntent().getLongExtra(EXTRA_PRODUCT_ID, -1);
+        repository = ProductRepository.getInstance(getApplicationContext().getFilesDir(),
+                ContextCompat.getMainExecutor(getApplicationContext()));
 
         // Initialize views
         initializeViews();
@@ -40,8 +48,20 @@ public class ProductDetailActivity extends AppCompatActivity {
         // Setup click listeners
         setupClickListeners();
 
-        // Display product data
-        displayProductDetails();
+        // Display product data once the store is open, usually straight away
+        repository.load(new ProductRepository.LoadCallback() {
+            @Override
+            public void onLoaded(ProductTable table) {
+                displayProductDetails();
+            }
+
+            @Override
+            public void onLoadFailed(IOException e) {
+                // The list screen offers to retry or start over
+                Toast.makeText(ProductDetailActivity.this, "Products could not be opened", Toast.LENGTH_SHORT).show();
+                finish();
+            }
+        });
     }
 
     private void initializeViews() {
@@ -83,59 +103,94 @@ public class ProductDetailActivity extends AppCompatActivity {
     }
 
     private void displayProductDetails() {
-        // Set product name
-        productNameText.setText(productName);
-
-        // Parse and format expiry date
-        try {
-            SimpleDateFormat inputFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-            SimpleDateFormat displayFormat = new SimpleDateFormat("MMM dd, yyyy", Locale.getDefault());
-            Date expiry = inputFormat.parse(expiryDate);
-
-            // Display formatted date
-            String formattedDate = displayFormat.format(expiry);
-            expiryDateText.setText(formattedDate);
-
-            // Calculate days left
-            Date now = new Date();
-            long timeDiff = expiry.getTime() - now.getTime();
-            long days = TimeUnit.DAYS.convert(timeDiff, TimeUnit.MILLISECONDS);
-
-            // Update days left and status
-            if (days < 0) {
-                daysLeftText.setText("EXPIRED");
-                daysLeftText.setTextColor(getResources().getColor(android.R.color.holo_red_dark));
-                statusText.setText("Expired");
-                statusText.setTextColor(getResources().getColor(android.R.color.holo_red_dark));
-            } else if (days <= 3) {
-                daysLeftText.setText(days + " days left");
-                daysLeftText.setTextColor(getResources().getColor(android.R.color.holo_orange_dark));
-                statusText.setText("Expiring Soon!");
-                statusText.setTextColor(getResources().getColor(android.R.color.holo_orange_dark));
-            } else if (days <= 7) {
-                daysLeftText.setText(days + " days left");
-                daysLeftText.setTextColor(getResources().getColor(android.R.color.holo_orange_light));
-                statusText.setText("Warning");
-                statusText.setTextColor(getResources().getColor(android.R.color.holo_orange_light));
-            } else {
-                daysLeftText.setText(days + " days left");
-                daysLeftText.setTextColor(getResources().getColor(android.R.color.holo_green_dark));
-                statusText.setText("Fresh");
-                statusText.setTextColor(getResources().getColor(android.R.color.holo_green_dark));
-            }
-
-        } catch (Exception e) {
-            expiryDateText.setText("Unknown date");
-            daysLeftText.setText("Unknown");
-            statusText.setText("Unknown");
+        ProductRowModel model = repository.getRowModel(productId, ProductAdapter.createRowModelFactory(this));
+        if (model == null) {
+            // Deleted meanwhile, e.g. from another screen
+            Toast.makeText(this, "Product no longer exists", Toast.LENGTH_SHORT).show();
+            finish();
+            return;
         }
+        productName = model.getName();
+        expiryDay = model.getExpiryDay();
+
+        // Everything below was worked out when the model was built
+        productNameText.setText(model.getName());
+        expiryDateText.setText(DateService.formatDisplay(model.getExpiryDay()));
+        daysLeftText.setText(model.getDaysLeftText());
+        daysLeftText.setTextColor(model.getDaysLeftTextColor());
+        statusText.setText(ExpiryStatus.getLabel(model.getStatus()));
+        statusText.setTextColor(model.getDaysLeftTextColor());
     }
 
+    // Name first, then the expiry date
     private void editProduct() {
-        Toast.makeText(this, "Edit feature coming soon!", Toast.LENGTH_SHORT).show();
+        if (productName == null) {
+            return; // Still loading
+        }
+        final EditText nameInput = new EditText(this);
+        nameInput.setText(productName);
+        nameInput.setSelection(productName.length());
+
+        AlertDialog.Builder builder = new AlertDialog.Builder(this);
+        builder.setTitle("Edit Product");
+        builder.setView(nameInput);
+
+        builder.setPositiveButton("NEXT", new DialogInterface.OnClickListener() {
+            @Override
+            public void onClick(DialogInterface dialog, int which) {
+                String name = nameInput.getText().toString().trim();
+                if (name.isEmpty()) {
+                    Toast.makeText(ProductDetailActivity.this, "Please enter a name", Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                if (!ProductRepository.isStorableName(name)) {
+                    Toast.makeText(ProductDetailActivity.this, "Name is too long", Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                pickExpiryDate(name);
+            }
+        });
+
+        builder.setNegativeButton("CANCEL", new DialogInterface.OnClickListener() {
+            @Override
+            public void onClick(DialogInterface dialog, int which) {
+                dialog.dismiss();
+            }
+        });
+
+        builder.create().show();
+    }
+
+    private void pickExpiryDate(final String name) {
+        LocalDate current = LocalDate.ofEpochDay(expiryDay);
+        DatePickerDialog dialog = new DatePickerDialog(this, new DatePickerDialog.OnDateSetListener() {
+            @Override
+            public void onDateSet(DatePicker view, int year, int month, int dayOfMonth) {
+                saveEdit(name, (int) LocalDate.of(year, month + 1, dayOfMonth).toEpochDay());
+            }
+        }, current.getYear(), current.getMonthValue() - 1, current.getDayOfMonth());
+        dialog.show();
+    }
+
+    // Updated in place; the list shows the change when it is back in front
+    private void saveEdit(String name, int newExpiryDay) {
+        if (!repository.isLoaded()) {
+            Toast.makeText(this, "Products could not be saved", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        if (!repository.update(productId, name, newExpiryDay)) {
+            Toast.makeText(this, "Product no longer exists", Toast.LENGTH_SHORT).show();
+            finish();
+            return;
+        }
+        displayProductDetails();
+        Toast.makeText(this, "Saved: " + name, Toast.LENGTH_SHORT).show();
     }
 
     private void confirmDelete() {
+        if (productName == null) {
+            return; // Still loading
+        }
         AlertDialog.Builder builder = new AlertDialog.Builder(this);
         builder.setTitle("Delete Product");
         builder.setMessage("Delete " + productName + "?");
@@ -161,10 +216,10 @@ public class ProductDetailActivity extends AppCompatActivity {
     private void deleteProduct() {
         // Send result back to ProductListActivity
         Intent resultIntent = new Intent();
-        resultIntent.putExtra("deleted_position", position);
+        resultIntent.putExtra(EXTRA_DELETED_ID, productId);
         setResult(RESULT_OK, resultIntent);
 
-        Toast.makeText(this, "Deleted: " + productName, Toast.LENGTH_SHORT).show();
+        // The list confirms the delete and offers undo
         finish();
     }
 }
\ No newline at end of file
@@ -0,0 +1,476 @@
+package com.example.productexpirationtrackerapp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+// Writes the inventory as CSV or JSON. Rows are read from the table a chunk
+// at a time and encoded straight into one reusable direct buffer that is
+// drained to the channel whenever it fills up, so nothing grows with the row
+// count; in expiry order a chunk holds whole days, so the largest day sets
+// its size. Columns: id, name, expiry (yyyy-MM-dd), days_left, status.
+public class ProductExporter {
+
+    public enum Format {
+        CSV, JSON;
+
+        public static Format forName(String fileName) {
+            String name = fileName == null ? "" : fileName.toLowerCase();
+            return name.endsWith(".json") || name.endsWith(".json.gz") ? JSON : CSV;
+        }
+    }
+
+    public enum Order {
+        // As shown in the product list
+        LIST,
+        // Soonest expiry first, ties in list order
+        EXPIRY
+    }
+
+    public interface ProgressListener {
+        void onProgress(int written, int total);
+    }
+
+    // Rows to export, handed over a chunk at a time
+    public interface Source {
+        // Rows the export is expected to cover, for progress
+        int getTotal();
+
+        // Appends the next rows to the empty chunk. Returns false once no rows are left.
+        boolean fill(Chunk chunk);
+    }
+
+    // Rows copied out of the table for the writer
+    public static final class Chunk {
+        private long[] ids = new long[CHUNK_SIZE];
+        private String[] names = new String[CHUNK_SIZE];
+        private int[] expiryDays = new int[CHUNK_SIZE];
+        private int count;
+
+        // Grows past CHUNK_SIZE only to keep an expiry day in one chunk
+        void add(long id, String name, int expiryDay) {
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+                names = Arrays.copyOf(names, count * 2);
+                expiryDays = Arrays.copyOf(expiryDays, count * 2);
+            }
+            ids[count] = id;
+            names[count] = name;
+            expiryDays[count++] = expiryDay;
+        }
+
+        public int size() {
+            return count;
+        }
+
+        void clear() {
+            Arrays.fill(names, 0, count, null);
+            count = 0;
+        }
+    }
+
+    public static final int ALL_STATUSES = (1 << ExpiryStatus.COUNT) - 1;
+    // Rows, or list slots walked, per chunk taken from the table
+    public static final int CHUNK_SIZE = 4096;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Worst case for everything but the name: id, date, days left, status and JSON punctuation
+    private static final int ROW_OVERHEAD = 128;
+    private static final String[] STATUS_KEYS = {"expired", "expiring_soon", "warning", "fresh"};
+
+    private static final byte[] CSV_HEADER = ascii("id,name,expiry,days_left,status\n");
+    private static final byte[] JSON_ID = ascii("{\"id\":");
+    private static final byte[] JSON_NAME = ascii(",\"name\":\"");
+    private static final byte[] JSON_EXPIRY = ascii("\",\"expiry\":\"");
+    private static final byte[] JSON_DAYS_LEFT = ascii("\",\"days_left\":");
+    private static final byte[] JSON_STATUS = ascii(",\"status\":\"");
+    private static final byte[][] STATUS_BYTES = new byte[ExpiryStatus.COUNT][];
+
+    static {
+        for (int i = 0; i < ExpiryStatus.COUNT; i++) {
+            STATUS_BYTES[i] = ascii(STATUS_KEYS[i]);
+        }
+    }
+
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final Chunk chunk = new Chunk();
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+
+    private Format format = Format.CSV;
+    private Order order = Order.LIST;
+    private boolean gzip;
+    private int statusMask = ALL_STATUSES;
+    private int fromDay = Integer.MIN_VALUE;
+    private int toDay = Integer.MAX_VALUE;
+
+    // Gzip path only: deflater input, copied out of the direct buffer
+    private byte[] gzipScratch;
+    private ChannelGzipStream gzipStream;
+    private FileChannel channel;
+
+    public ProductExporter setFormat(Format format) {
+        this.format = format;
+        return this;
+    }
+
+    public ProductExporter setOrder(Order order) {
+        this.order = order;
+        return this;
+    }
+
+    public ProductExporter setGzip(boolean gzip) {
+        this.gzip = gzip;
+        return this;
+    }
+
+    // Bit (1 << status) per ExpiryStatus to include
+    public ProductExporter setStatuses(int statusMask) {
+        this.statusMask = statusMask;
+        return this;
+    }
+
+    // Inclusive range of expiry days to include
+    public ProductExporter setDayRange(int fromDay, int toDay) {
+        this.fromDay = fromDay;
+        this.toDay = toDay;
+        return this;
+    }
+
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    // Source over the live rows of the table in this exporter's order and day
+    // range. Create and fill it on the thread owning the table.
+    public Source openSource(ProductTable table) {
+        return new TableSource(table, order, fromDay, toDay);
+    }
+
+    // Writes the matching rows to the channel at its current position and
+    // returns how many were written. The channel is left open.
+    public int export(Source source, int today, FileChannel channel,
+                      ProgressListener progress) throws IOException {
+        this.channel = channel;
+        buffer.clear();
+        int total = source.getTotal();
+        int written = 0;
+        try {
+            if (gzip) {
+                if (gzipScratch == null) {
+                    gzipScratch = new byte[BUFFER_SIZE];
+                }
+                gzipStream = new ChannelGzipStream(channel, BUFFER_SIZE);
+            }
+
+            if (format == Format.CSV) {
+                buffer.put(CSV_HEADER);
+            } else {
+                buffer.put((byte) '[');
+            }
+            boolean more = true;
+            while (more && !cancelled.get()) {
+                chunk.clear();
+                more = source.fill(chunk);
+                for (int i = 0; i < chunk.count; i++) {
+                    int expiryDay = chunk.expiryDays[i];
+                    long daysLeft = (long) expiryDay - today;
+                    int status = ExpiryStatus.classify(daysLeft);
+                    if ((statusMask & (1 << status)) == 0) {
+                        continue;
+                    }
+
+                    String name = chunk.names[i];
+                    if (buffer.remaining() < ROW_OVERHEAD + name.length() * 6) {
+                        drain();
+                        if (progress != null) {
+                            progress.onProgress(written, total);
+                        }
+                    }
+                    if (format == Format.CSV) {
+                        writeCsvRow(chunk.ids[i], name, expiryDay, daysLeft, status);
+                    } else {
+                        writeJsonRow(written > 0, chunk.ids[i], name, expiryDay, daysLeft, status);
+                    }
+                    written++;
+                }
+            }
+            if (format == Format.JSON) {
+                buffer.put((byte) '\n');
+                buffer.put((byte) ']');
+                buffer.put((byte) '\n');
+            }
+
+            drain();
+            if (gzipStream != null) {
+                // Writes the gzip trailer; closing the stream would close the channel
+                gzipStream.finish();
+                gzipStream.flush();
+            }
+        } finally {
+            // The deflater's native memory goes now, also when a fill or write failed
+            if (gzipStream != null) {
+                gzipStream.end();
+                gzipStream = null;
+            }
+            this.channel = null;
+            chunk.clear();
+        }
+        if (progress != null) {
+            progress.onProgress(written, total);
+        }
+        return written;
+    }
+
+    private void writeCsvRow(long id, String name, int expiryDay, long daysLeft, int status) {
+        putNumber(id);
+        buffer.put((byte) ',');
+        if (needsCsvQuotes(name)) {
+            buffer.put((byte) '"');
+            putUtf8(name, true, false);
+            buffer.put((byte) '"');
+        } else {
+            putUtf8(name, false, false);
+        }
+        buffer.put((byte) ',');
+        DateService.formatStorage(expiryDay, buffer);
+        buffer.put((byte) ',');
+        putNumber(daysLeft);
+        buffer.put((byte) ',');
+        buffer.put(STATUS_BYTES[status]);
+        buffer.put((byte) '\n');
+    }
+
+    private void writeJsonRow(boolean separator, long id, String name, int expiryDay, long daysLeft, int status) {
+        if (separator) {
+            buffer.put((byte) ',');
+        }
+        buffer.put((byte) '\n');
+        buffer.put(JSON_ID);
+        putNumber(id);
+        buffer.put(JSON_NAME);
+        putUtf8(name, false, true);
+        buffer.put(JSON_EXPIRY);
+        DateService.formatStorage(expiryDay, buffer);
+        buffer.put(JSON_DAYS_LEFT);
+        putNumber(daysLeft);
+        buffer.put(JSON_STATUS);
+        buffer.put(STATUS_BYTES[status]);
+        buffer.put((byte) '"');
+        buffer.put((byte) '}');
+    }
+
+    private static boolean needsCsvQuotes(String name) {
+        if (name.isEmpty()) {
+            return false;
+        }
+        if (name.charAt(0) == ' ' || name.charAt(name.length() - 1) == ' ') {
+            return true;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Encodes UTF-8 by hand so no byte[] is allocated per name. CSV doubles
+    // quotes; JSON escapes quotes, backslashes and control characters.
+    private void putUtf8(String text, boolean csvQuoted, boolean json) {
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                if (csvQuoted && c == '"') {
+                    buffer.put((byte) '"');
+                } else if (json && (c == '"' || c == '\\')) {
+                    buffer.put((byte) '\\');
+                } else if (json && c < 0x20) {
+                    putJsonControl(c);
+                    continue;
+                }
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                buffer.put((byte) '?'); // unpaired surrogate, as String.getBytes() does
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    private void putJsonControl(char c) {
+        buffer.put((byte) '\\');
+        switch (c) {
+            case '\n': buffer.put((byte) 'n'); return;
+            case '\r': buffer.put((byte) 'r'); return;
+            case '\t': buffer.put((byte) 't'); return;
+            default:
+                buffer.put((byte) 'u');
+                buffer.put((byte) '0');
+                buffer.put((byte) '0');
+                buffer.put((byte) Character.forDigit(c >> 4, 16));
+                buffer.put((byte) Character.forDigit(c & 0xF, 16));
+        }
+    }
+
+    private void putNumber(long value) {
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+        int position = buffer.position();
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = digits - 1; i >= 0; i--) {
+            buffer.put(position + i, (byte) ('0' + value % 10));
+            value /= 10;
+        }
+        buffer.position(position + digits);
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        if (gzipStream != null) {
+            while (buffer.hasRemaining()) {
+                int count = Math.min(buffer.remaining(), gzipScratch.length);
+                buffer.get(gzipScratch, 0, count);
+                gzipStream.write(gzipScratch, 0, count);
+            }
+        } else {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        buffer.clear();
+    }
+
+    private static byte[] ascii(String text) {
+        byte[] bytes = new byte[text.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) text.charAt(i);
+        }
+        return bytes;
+    }
+
+    // Walks the table's insertion order slot by slot, or its expiry index day
+    // by day, resuming where the last chunk ended. Slots hold still while no
+    // reclaim pass runs. Each chunk shows its rows as they are when it is
+    // copied; rows added after the first chunk are left out of list order.
+    // Gzip over the channel whose deflater can be ended without closing the
+    // channel, as close() would
+    private static final class ChannelGzipStream extends GZIPOutputStream {
+        ChannelGzipStream(FileChannel channel, int size) throws IOException {
+            super(Channels.newOutputStream(channel), size);
+        }
+
+        void end() {
+            def.end();
+        }
+    }
+
+    private static final class TableSource implements Source, ExpiryIndex.RowVisitor {
+        private final ProductTable table;
+        private final Order order;
+        private final int fromDay;
+        private final int toDay;
+        private final int total;
+        private boolean started;
+        private int nextSlot;
+        private int endSlot;
+        private int nextDay;
+        // Rows of one expiry day, keyed by list position then row
+        private long[] dayKeys = new long[64];
+        private int dayCount;
+
+        TableSource(ProductTable table, Order order, int fromDay, int toDay) {
+            this.table = table;
+            this.order = order;
+            this.fromDay = fromDay;
+            this.toDay = toDay;
+            total = order == Order.EXPIRY ? table.getExpiryIndex().countBetween(fromDay, toDay) : table.size();
+        }
+
+        @Override
+        public int getTotal() {
+            return total;
+        }
+
+        @Override
+        public boolean fill(Chunk chunk) {
+            // A pass running ahead of the first chunk is let finish, a turn at a time
+            if (!started) {
+                if (table.isReclaiming()) {
+                    return true;
+                }
+                started = true;
+                endSlot = table.getSlotCount();
+                nextDay = table.getExpiryIndex().firstDayAtOrAfter(fromDay);
+            }
+            return order == Order.EXPIRY ? fillByExpiry(chunk) : fillByList(chunk);
+        }
+
+        private boolean fillByList(Chunk chunk) {
+            int end = Math.min(endSlot, nextSlot + CHUNK_SIZE);
+            for (; nextSlot < end; nextSlot++) {
+                int row = table.rowAtSlot(nextSlot);
+                if (row == ProductTable.NO_ROW) {
+                    continue;
+                }
+                int expiryDay = table.getExpiryDay(row);
+                if (expiryDay >= fromDay && expiryDay <= toDay) {
+                    chunk.add(table.getId(row), table.getName(row), expiryDay);
+                }
+            }
+            return nextSlot < endSlot;
+        }
+
+        // Whole days only: bucket order does not hold between turns, so a day
+        // could not be picked up again midway
+        private boolean fillByExpiry(Chunk chunk) {
+            ExpiryIndex index = table.getExpiryIndex();
+            while (nextDay != ExpiryIndex.NO_DAY && nextDay <= toDay && chunk.count < CHUNK_SIZE) {
+                dayCount = 0;
+                index.forEachBetween(nextDay, nextDay, this);
+                // Ties in list order
+                Arrays.sort(dayKeys, 0, dayCount);
+                for (int i = 0; i < dayCount; i++) {
+                    int row = (int) dayKeys[i];
+                    chunk.add(table.getId(row), table.getName(row), nextDay);
+                }
+                nextDay = nextDay == toDay ? ExpiryIndex.NO_DAY : index.firstDayAtOrAfter(nextDay + 1);
+            }
+            return nextDay != ExpiryIndex.NO_DAY && nextDay <= toDay;
+        }
+
+        @Override
+        public void visit(int row, int expiryDay) {
+            if (dayCount == dayKeys.length) {
+                dayKeys = Arrays.copyOf(dayKeys, dayCount * 2);
+            }
+            dayKeys[dayCount++] = ((long) table.positionOf(row) << 32) | row;
+        }
+    }
+}
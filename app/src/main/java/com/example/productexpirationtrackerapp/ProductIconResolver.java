@@ -0,0 +1,195 @@
+package com.example.productexpirationtrackerapp;
+
+import java.util.HashMap;
+import java.util.Locale;
+
+// Icon shown next to a product: the emoji the name starts with, taken as a
+// whole grapheme so ZWJ sequences, skin tones, flags and keycaps stay intact,
+// or a default for the product's category when the name has none.
+//
+// Icons are cached by name id in a fixed-size direct-mapped table, so the
+// thousands of lots sharing a name cost one lookup and no allocation each.
+// Entries also remember the name instance they were made for, which keeps a
+// reused id from returning a stale icon. Equal icons are interned, so every
+// "🥛" row holds the same String. Safe to use from any thread.
+public class ProductIconResolver {
+
+    public static final String DEFAULT_ICON = "📦";
+
+    private static final int CACHE_SIZE = 4096; // Power of two
+    private static final int MAX_INTERNED = 1024;
+
+    private static final int ZERO_WIDTH_JOINER = 0x200D;
+    private static final int KEYCAP = 0x20E3;
+
+    // Name word prefix -> icon, first match wins
+    private static final String[][] CATEGORY_ICONS = {
+            {"ice cream", "🍦"}, {"milk", "🥛"}, {"cream", "🥛"}, {"yog", "🥛"}, {"cheese", "🧀"}, {"butter", "🧈"},
+            {"egg", "🥚"}, {"bread", "🍞"}, {"bagel", "🥯"}, {"croissant", "🥐"}, {"cake", "🍰"}, {"cookie", "🍪"},
+            {"chicken", "🍗"}, {"turkey", "🍗"}, {"beef", "🥩"}, {"steak", "🥩"}, {"pork", "🥩"}, {"meat", "🥩"},
+            {"mince", "🥩"}, {"ham", "🥓"}, {"bacon", "🥓"}, {"sausage", "🌭"}, {"fish", "🐟"}, {"salmon", "🐟"},
+            {"tuna", "🐟"}, {"shrimp", "🦐"}, {"prawn", "🦐"}, {"apple", "🍎"}, {"banana", "🍌"}, {"grape", "🍇"},
+            {"berr", "🍓"}, {"strawberr", "🍓"}, {"lemon", "🍋"}, {"orange", "🍊"}, {"fruit", "🍎"}, {"tomato", "🍅"},
+            {"carrot", "🥕"}, {"potato", "🥔"}, {"broccoli", "🥦"}, {"lettuce", "🥬"}, {"salad", "🥗"},
+            {"spinach", "🥬"}, {"veg", "🥦"}, {"avocado", "🥑"}, {"juice", "🧃"}, {"coffee", "☕"}, {"tea", "🍵"},
+            {"water", "💧"}, {"beer", "🍺"}, {"wine", "🍷"}, {"rice", "🍚"}, {"pasta", "🍝"}, {"noodle", "🍜"},
+            {"soup", "🥫"}, {"canned", "🥫"}, {"frozen", "🧊"}, {"pizza", "🍕"}, {"chocolate", "🍫"}, {"honey", "🍯"}
+    };
+
+    private static final class Entry {
+        final int nameId;
+        final String name;
+        final String icon;
+
+        Entry(int nameId, String name, String icon) {
+            this.nameId = nameId;
+            this.name = name;
+            this.icon = icon;
+        }
+    }
+
+    private static ProductIconResolver instance;
+
+    public static synchronized ProductIconResolver getInstance() {
+        if (instance == null) {
+            instance = new ProductIconResolver();
+        }
+        return instance;
+    }
+
+    // Entries are immutable, so a racing reader sees either a whole entry or
+    // an older one, and at worst resolves the name again
+    private final Entry[] cache = new Entry[CACHE_SIZE];
+    private final HashMap<String, String> interned = new HashMap<>();
+
+    // Icon for the name with this id in its NameDictionary
+    public String iconOf(int nameId, String name) {
+        int slot = nameId & (CACHE_SIZE - 1);
+        Entry entry = cache[slot];
+        if (entry != null && entry.nameId == nameId && entry.name == name) {
+            return entry.icon;
+        }
+        String icon = intern(resolve(name));
+        cache[slot] = new Entry(nameId, name, icon);
+        return icon;
+    }
+
+    // Uncached: the leading emoji grapheme, else the category default
+    public static String resolve(String name) {
+        int start = 0;
+        while (start < name.length() && Character.isWhitespace(name.charAt(start))) {
+            start++;
+        }
+        int end = leadingEmojiEnd(name, start);
+        return end > start ? name.substring(start, end) : categoryIcon(name);
+    }
+
+    // End of the emoji grapheme starting at start, or start if there is none
+    static int leadingEmojiEnd(CharSequence text, int start) {
+        int length = text.length();
+        if (start >= length) {
+            return start;
+        }
+        int codePoint = Character.codePointAt(text, start);
+        int i = start + Character.charCount(codePoint);
+
+        // Flags are pairs of regional indicators
+        if (isRegionalIndicator(codePoint)) {
+            if (i < length && isRegionalIndicator(Character.codePointAt(text, i))) {
+                return i + 2;
+            }
+            return start;
+        }
+        // Keycaps: digit, # or *, optional variation selector, then U+20E3
+        if ((codePoint >= '0' && codePoint <= '9') || codePoint == '#' || codePoint == '*') {
+            if (i < length && text.charAt(i) == 0xFE0F) {
+                i++;
+            }
+            return i < length && text.charAt(i) == KEYCAP ? i + 1 : start;
+        }
+        if (!isPictographic(codePoint)) {
+            return start;
+        }
+        while (true) {
+            i = skipExtenders(text, i);
+            if (i + 1 < length && text.charAt(i) == ZERO_WIDTH_JOINER) {
+                int joined = Character.codePointAt(text, i + 1);
+                if (isPictographic(joined)) {
+                    i += 1 + Character.charCount(joined);
+                    continue;
+                }
+            }
+            return i;
+        }
+    }
+
+    // Variation selectors, skin tones, tag characters (subdivision flags) and
+    // combining marks all belong to the preceding emoji
+    private static int skipExtenders(CharSequence text, int i) {
+        while (i < text.length()) {
+            int codePoint = Character.codePointAt(text, i);
+            boolean extender = (codePoint >= 0xFE00 && codePoint <= 0xFE0F)
+                    || (codePoint >= 0x1F3FB && codePoint <= 0x1F3FF)
+                    || (codePoint >= 0xE0020 && codePoint <= 0xE007F)
+                    || Character.getType(codePoint) == Character.NON_SPACING_MARK
+                    || Character.getType(codePoint) == Character.ENCLOSING_MARK;
+            if (!extender) {
+                return i;
+            }
+            i += Character.charCount(codePoint);
+        }
+        return i;
+    }
+
+    private static boolean isRegionalIndicator(int codePoint) {
+        return codePoint >= 0x1F1E6 && codePoint <= 0x1F1FF;
+    }
+
+    // Extended_Pictographic, approximated by the blocks emoji come from
+    private static boolean isPictographic(int codePoint) {
+        return (codePoint >= 0x1F000 && codePoint <= 0x1FAFF && !isRegionalIndicator(codePoint))
+                || (codePoint >= 0x2190 && codePoint <= 0x21FF)
+                || (codePoint >= 0x2300 && codePoint <= 0x23FF)
+                || (codePoint >= 0x25A0 && codePoint <= 0x27BF)
+                || (codePoint >= 0x2900 && codePoint <= 0x297F)
+                || (codePoint >= 0x2B00 && codePoint <= 0x2BFF)
+                || codePoint == 0x00A9 || codePoint == 0x00AE || codePoint == 0x203C || codePoint == 0x2049
+                || codePoint == 0x2122 || codePoint == 0x2139 || codePoint == 0x3030 || codePoint == 0x303D
+                || codePoint == 0x3297 || codePoint == 0x3299;
+    }
+
+    private static String categoryIcon(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        for (String[] category : CATEGORY_ICONS) {
+            if (startsWord(lower, category[0])) {
+                return category[1];
+            }
+        }
+        return DEFAULT_ICON;
+    }
+
+    // True if a word of the text starts with the prefix
+    private static boolean startsWord(String text, String prefix) {
+        int at = text.indexOf(prefix);
+        while (at >= 0) {
+            if (at == 0 || !Character.isLetter(text.charAt(at - 1))) {
+                return true;
+            }
+            at = text.indexOf(prefix, at + 1);
+        }
+        return false;
+    }
+
+    private String intern(String icon) {
+        synchronized (interned) {
+            String shared = interned.get(icon);
+            if (shared != null) {
+                return shared;
+            }
+            if (interned.size() < MAX_INTERNED) {
+                interned.put(icon, icon);
+            }
+            return icon;
+        }
+    }
+}
@@ -0,0 +1,589 @@
+package com.example.productexpirationtrackerapp;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Streams products out of a CSV or JSON export in fixed-size chunks, so memory
+// use does not depend on the file size. Rows are validated one by one, bad rows
+// are reported instead of guessed at, and good rows are handed to the sink in
+// batches. Runs on the calling thread; cancel() may be called from any thread.
+//
+// CSV: "name,expiry" per line, optional header naming the columns, fields may
+// be double-quoted. JSON: an array of (or a sequence of) objects with string
+// "name" and "expiry" members. Expiry dates are yyyy-MM-dd.
+public class ProductImporter {
+
+    public enum Format {
+        CSV, JSON;
+
+        public static Format forName(String fileName) {
+            return fileName != null && fileName.toLowerCase().endsWith(".json") ? JSON : CSV;
+        }
+    }
+
+    // Receives validated rows; the arrays are reused after the call returns
+    public interface Sink {
+        void commit(String[] names, int[] expiryDays, int count) throws IOException;
+    }
+
+    public interface ProgressListener {
+        void onProgress(long bytesRead, long totalBytes, int imported, int rejected);
+    }
+
+    public static final class RowError {
+        public final int row;
+        public final String message;
+
+        RowError(int row, String message) {
+            this.row = row;
+            this.message = message;
+        }
+
+        @Override
+        public String toString() {
+            return "Row " + row + ": " + message;
+        }
+    }
+
+    public static final class Result {
+        public final int imported;
+        public final int rejected;
+        public final boolean cancelled;
+        // The first MAX_REPORTED_ERRORS problems, in file order
+        public final List<RowError> errors;
+
+        Result(int imported, int rejected, boolean cancelled, List<RowError> errors) {
+            this.imported = imported;
+            this.rejected = rejected;
+            this.cancelled = cancelled;
+            this.errors = errors;
+        }
+    }
+
+    public static final int BATCH_SIZE = 5000;
+    public static final int MAX_REPORTED_ERRORS = 100;
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private static final byte[] KEY_NAME = "name".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] KEY_EXPIRY = "expiry".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] KEY_EXPIRY_DATE = "expiry_date".getBytes(StandardCharsets.UTF_8);
+
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+
+    // Chunk buffer; CSV lines are parsed in place from its array
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+    private final ByteBuffer chunkBuffer = ByteBuffer.wrap(chunk);
+
+    // Pending batch
+    private final String[] batchNames = new String[BATCH_SIZE];
+    private final int[] batchDays = new int[BATCH_SIZE];
+    private int batchCount;
+
+    private Sink sink;
+    private int imported;
+    private int rejected;
+    private final ArrayList<RowError> errors = new ArrayList<>();
+
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    public Result importFile(File file, Sink sink, ProgressListener progress) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            return importChannel(channel, channel.size(), Format.forName(file.getName()), sink, progress);
+        } finally {
+            raf.close();
+        }
+    }
+
+    // Batches already handed to the sink stay committed if the import is
+    // cancelled or fails part way
+    public Result importChannel(FileChannel channel, long totalBytes, Format format, Sink sink,
+                                ProgressListener progress) throws IOException {
+        this.sink = sink;
+        imported = 0;
+        rejected = 0;
+        batchCount = 0;
+        errors.clear();
+
+        if (format == Format.JSON) {
+            new JsonReader().read(channel, totalBytes, progress);
+        } else {
+            new CsvReader().read(channel, totalBytes, progress);
+        }
+        if (!cancelled.get()) {
+            flushBatch();
+        }
+        return new Result(imported, rejected, cancelled.get(), new ArrayList<>(errors));
+    }
+
+    private void acceptRow(String name, int expiryDay) throws IOException {
+        batchNames[batchCount] = name;
+        batchDays[batchCount] = expiryDay;
+        batchCount++;
+        if (batchCount == BATCH_SIZE) {
+            flushBatch();
+        }
+    }
+
+    private void flushBatch() throws IOException {
+        if (batchCount > 0) {
+            sink.commit(batchNames, batchDays, batchCount);
+            imported += batchCount;
+            Arrays.fill(batchNames, 0, batchCount, null);
+            batchCount = 0;
+        }
+    }
+
+    private void rejectRow(int row, String message) {
+        rejected++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new RowError(row, message));
+        }
+    }
+
+    // Checks a decoded row and either batches it or records why not
+    private void finishRow(int row, String name, byte[] dateBytes, int dateStart, int dateLength)
+            throws IOException {
+        if (name == null || name.isEmpty()) {
+            rejectRow(row, "Missing product name");
+            return;
+        }
+        if (!ProductJournal.fitsName(name)) {
+            rejectRow(row, "Product name too long");
+            return;
+        }
+        if (dateLength == 0) {
+            rejectRow(row, "Missing expiry date");
+            return;
+        }
+        int expiryDay = DateService.parseStorage(dateBytes, dateStart, dateLength);
+        if (expiryDay == DateService.NO_DATE) {
+            rejectRow(row, "Invalid expiry date \""
+                    + new String(dateBytes, dateStart, dateLength, StandardCharsets.UTF_8) + "\"");
+            return;
+        }
+        acceptRow(name, expiryDay);
+    }
+
+    private static boolean bytesEqual(byte[] a, int start, int length, byte[] b) {
+        if (length != b.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            int c = a[start + i];
+            if (c >= 'A' && c <= 'Z') {
+                c += 'a' - 'A';
+            }
+            if (c != b[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isExpiryKey(byte[] bytes, int start, int length) {
+        return bytesEqual(bytes, start, length, KEY_EXPIRY) || bytesEqual(bytes, start, length, KEY_EXPIRY_DATE);
+    }
+
+    private void reportProgress(ProgressListener progress, long bytesRead, long totalBytes) {
+        if (progress != null) {
+            progress.onProgress(bytesRead, totalBytes, imported, rejected);
+        }
+    }
+
+    // Line-oriented reader. Complete lines are parsed straight out of the chunk;
+    // a partial last line is moved to the front before the next read.
+    private final class CsvReader {
+        private int nameColumn = 0;
+        private int expiryColumn = 1;
+        private int line;
+        private boolean skippingLongLine;
+
+        // Start and end of each field of the current line, unquoted
+        private int[] fieldStarts = new int[8];
+        private int[] fieldEnds = new int[8];
+        private final byte[] unquoted = new byte[CHUNK_SIZE];
+
+        void read(FileChannel channel, long totalBytes, ProgressListener progress) throws IOException {
+            long bytesRead = 0;
+            int filled = 0;
+            boolean first = true;
+            while (!cancelled.get()) {
+                chunkBuffer.clear();
+                chunkBuffer.position(filled);
+                int read = channel.read(chunkBuffer);
+                boolean eof = read < 0;
+                if (!eof) {
+                    bytesRead += read;
+                    filled += read;
+                }
+
+                int start = 0;
+                if (first && filled >= 3 && (chunk[0] & 0xFF) == 0xEF
+                        && (chunk[1] & 0xFF) == 0xBB && (chunk[2] & 0xFF) == 0xBF) {
+                    start = 3; // UTF-8 byte order mark
+                }
+                first = false;
+
+                for (int i = start; i < filled; i++) {
+                    if (chunk[i] == '\n') {
+                        parseLine(start, i);
+                        start = i + 1;
+                    }
+                }
+                if (eof) {
+                    if (start < filled) {
+                        parseLine(start, filled);
+                    }
+                    break;
+                }
+                if (start == 0 && filled == chunk.length) {
+                    // No line break in a whole chunk: reject the line and skip to its end
+                    if (!skippingLongLine) {
+                        line++;
+                        rejectRow(line, "Line too long");
+                    }
+                    skippingLongLine = true;
+                    filled = 0;
+                } else {
+                    System.arraycopy(chunk, start, chunk, 0, filled - start);
+                    filled -= start;
+                }
+                reportProgress(progress, bytesRead, totalBytes);
+            }
+            reportProgress(progress, bytesRead, totalBytes);
+        }
+
+        private void parseLine(int start, int end) throws IOException {
+            if (skippingLongLine) {
+                skippingLongLine = false;
+                return;
+            }
+            line++;
+            if (end > start && chunk[end - 1] == '\r') {
+                end--;
+            }
+            if (isBlank(start, end)) {
+                return;
+            }
+            int fields = splitFields(start, end);
+            if (fields < 0) {
+                rejectRow(line, "Unterminated quoted field");
+                return;
+            }
+            if (line == 1 && readHeader(fields)) {
+                return;
+            }
+            if (nameColumn >= fields || expiryColumn >= fields) {
+                rejectRow(line, "Expected name and expiry columns");
+                return;
+            }
+            String name = new String(unquoted, fieldStarts[nameColumn],
+                    fieldEnds[nameColumn] - fieldStarts[nameColumn], StandardCharsets.UTF_8).trim();
+            finishRow(line, name, unquoted, fieldStarts[expiryColumn],
+                    fieldEnds[expiryColumn] - fieldStarts[expiryColumn]);
+        }
+
+        // A first line naming a "name" column is a header that fixes the column order
+        private boolean readHeader(int fields) {
+            int name = -1;
+            int expiry = -1;
+            for (int i = 0; i < fields; i++) {
+                int length = fieldEnds[i] - fieldStarts[i];
+                if (bytesEqual(unquoted, fieldStarts[i], length, KEY_NAME)) {
+                    name = i;
+                } else if (isExpiryKey(unquoted, fieldStarts[i], length)) {
+                    expiry = i;
+                }
+            }
+            if (name < 0) {
+                return false;
+            }
+            nameColumn = name;
+            expiryColumn = expiry >= 0 ? expiry : (name == 0 ? 1 : 0);
+            return true;
+        }
+
+        // Copies the fields into unquoted[] with quotes removed and surrounding
+        // blanks trimmed. Returns the field count, or -1 for a stray quote.
+        private int splitFields(int start, int end) {
+            int fields = 0;
+            int out = 0;
+            int i = start;
+            while (true) {
+                while (i < end && (chunk[i] == ' ' || chunk[i] == '\t')) {
+                    i++;
+                }
+                if (fields == fieldStarts.length) {
+                    fieldStarts = Arrays.copyOf(fieldStarts, fields * 2);
+                    fieldEnds = Arrays.copyOf(fieldEnds, fields * 2);
+                }
+                fieldStarts[fields] = out;
+                if (i < end && chunk[i] == '"') {
+                    i++;
+                    boolean closed = false;
+                    while (i < end) {
+                        if (chunk[i] == '"') {
+                            if (i + 1 < end && chunk[i + 1] == '"') {
+                                unquoted[out++] = '"';
+                                i += 2;
+                                continue;
+                            }
+                            closed = true;
+                            i++;
+                            break;
+                        }
+                        unquoted[out++] = chunk[i++];
+                    }
+                    if (!closed) {
+                        return -1;
+                    }
+                    fieldEnds[fields] = out;
+                    while (i < end && chunk[i] != ',') {
+                        i++;
+                    }
+                } else {
+                    while (i < end && chunk[i] != ',') {
+                        unquoted[out++] = chunk[i++];
+                    }
+                    int fieldEnd = out;
+                    while (fieldEnd > fieldStarts[fields]
+                            && (unquoted[fieldEnd - 1] == ' ' || unquoted[fieldEnd - 1] == '\t')) {
+                        fieldEnd--;
+                    }
+                    fieldEnds[fields] = fieldEnd;
+                }
+                fields++;
+                if (i >= end) {
+                    return fields;
+                }
+                i++; // comma
+            }
+        }
+
+        private boolean isBlank(int start, int end) {
+            for (int i = start; i < end; i++) {
+                if (chunk[i] != ' ' && chunk[i] != '\t') {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    // Byte-at-a-time JSON scanner whose state survives chunk boundaries. Only
+    // string members called name and expiry of the record objects are decoded;
+    // every other value, nested or not, is skipped.
+    private final class JsonReader {
+        private static final int KEY_OTHER = 0;
+        private static final int KEY_IS_NAME = 1;
+        private static final int KEY_IS_EXPIRY = 2;
+
+        private int depth;
+        private int recordDepth; // 1 for a sequence of objects, 2 inside a top-level array
+        private boolean inRecord;
+        private boolean expectKey;
+        private int currentKey;
+        private int record;
+
+        private String name;
+        private boolean nameOverflow;
+        private final byte[] expiry = new byte[16];
+        private int expiryLength;
+        private boolean expiryNotString;
+
+        // Current string, capped; longer strings are marked as overflowed
+        private boolean inString;
+        private boolean escape;
+        private int unicodeDigits = -1;
+        private int unicodeValue;
+        private char highSurrogate;
+        private byte[] string = new byte[256];
+        private int stringLength;
+        private boolean stringOverflow;
+
+        void read(FileChannel channel, long totalBytes, ProgressListener progress) throws IOException {
+            long bytesRead = 0;
+            while (!cancelled.get()) {
+                chunkBuffer.clear();
+                int read = channel.read(chunkBuffer);
+                if (read < 0) {
+                    break;
+                }
+                bytesRead += read;
+                for (int i = 0; i < read; i++) {
+                    accept(chunk[i]);
+                }
+                reportProgress(progress, bytesRead, totalBytes);
+            }
+        }
+
+        private void accept(byte b) throws IOException {
+            if (inString) {
+                acceptStringByte(b);
+                return;
+            }
+            switch (b) {
+                case '"':
+                    inString = true;
+                    stringLength = 0;
+                    stringOverflow = false;
+                    break;
+                case '[':
+                    if (depth == 0 && recordDepth == 0) {
+                        recordDepth = 2;
+                    }
+                    depth++;
+                    break;
+                case '{':
+                    depth++;
+                    if (depth == 1 && recordDepth == 0) {
+                        recordDepth = 1;
+                    }
+                    if (!inRecord && depth == recordDepth) {
+                        inRecord = true;
+                        expectKey = true;
+                        currentKey = KEY_OTHER;
+                        name = null;
+                        nameOverflow = false;
+                        expiryLength = 0;
+                        expiryNotString = false;
+                        record++;
+                    }
+                    break;
+                case '}':
+                    if (inRecord && depth == recordDepth) {
+                        inRecord = false;
+                        endRecord();
+                    }
+                    depth--;
+                    break;
+                case ']':
+                    depth--;
+                    break;
+                case ':':
+                    if (inRecord && depth == recordDepth) {
+                        expectKey = false;
+                    }
+                    break;
+                case ',':
+                    if (inRecord && depth == recordDepth) {
+                        expectKey = true;
+                        currentKey = KEY_OTHER;
+                    }
+                    break;
+                case ' ': case '\t': case '\n': case '\r':
+                    break;
+                default:
+                    // Number or literal
+                    if (inRecord && depth == recordDepth && !expectKey && currentKey == KEY_IS_EXPIRY) {
+                        expiryNotString = true;
+                    }
+                    break;
+            }
+        }
+
+        private void acceptStringByte(byte b) {
+            if (unicodeDigits >= 0) {
+                int digit = Character.digit(b, 16);
+                unicodeValue = unicodeValue * 16 + Math.max(digit, 0);
+                if (++unicodeDigits == 4) {
+                    unicodeDigits = -1;
+                    appendChar((char) unicodeValue);
+                }
+            } else if (escape) {
+                escape = false;
+                switch (b) {
+                    case 'u': unicodeDigits = 0; unicodeValue = 0; break;
+                    case 'n': appendByte((byte) '\n'); break;
+                    case 't': appendByte((byte) '\t'); break;
+                    case 'r': appendByte((byte) '\r'); break;
+                    case 'b': appendByte((byte) '\b'); break;
+                    case 'f': appendByte((byte) '\f'); break;
+                    default: appendByte(b); break;
+                }
+            } else if (b == '\\') {
+                escape = true;
+            } else if (b == '"') {
+                inString = false;
+                endString();
+            } else {
+                appendByte(b);
+            }
+        }
+
+        private void appendChar(char c) {
+            if (Character.isHighSurrogate(c)) {
+                highSurrogate = c;
+                return;
+            }
+            String text = Character.isLowSurrogate(c) && highSurrogate != 0
+                    ? new String(new char[] {highSurrogate, c}) : String.valueOf(c);
+            highSurrogate = 0;
+            for (byte encoded : text.getBytes(StandardCharsets.UTF_8)) {
+                appendByte(encoded);
+            }
+        }
+
+        private void appendByte(byte b) {
+            if (stringLength == string.length) {
+                if (string.length >= ProductJournal.MAX_NAME_BYTES * 2) {
+                    stringOverflow = true;
+                    return;
+                }
+                string = Arrays.copyOf(string, string.length * 2);
+            }
+            string[stringLength++] = b;
+        }
+
+        private void endString() {
+            if (!inRecord || depth != recordDepth) {
+                return;
+            }
+            if (expectKey) {
+                if (bytesEqual(string, 0, stringLength, KEY_NAME)) {
+                    currentKey = KEY_IS_NAME;
+                } else if (isExpiryKey(string, 0, stringLength)) {
+                    currentKey = KEY_IS_EXPIRY;
+                } else {
+                    currentKey = KEY_OTHER;
+                }
+            } else if (currentKey == KEY_IS_NAME) {
+                name = new String(string, 0, stringLength, StandardCharsets.UTF_8).trim();
+                nameOverflow = stringOverflow;
+            } else if (currentKey == KEY_IS_EXPIRY) {
+                // Anything longer than the buffer cannot be a date and fails to parse
+                expiryLength = Math.min(stringLength, expiry.length);
+                System.arraycopy(string, 0, expiry, 0, expiryLength);
+            }
+        }
+
+        private void endRecord() throws IOException {
+            if (nameOverflow) {
+                rejectRow(record, "Product name too long");
+                return;
+            }
+            if (expiryNotString) {
+                rejectRow(record, "Expiry date must be a \"yyyy-MM-dd\" string");
+                return;
+            }
+            finishRow(record, name, expiry, 0, expiryLength);
+        }
+    }
+}
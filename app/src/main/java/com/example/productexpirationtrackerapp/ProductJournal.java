@@ -0,0 +1,600 @@
+package com.example.productexpirationtrackerapp;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+// On-disk format of the product store: a compacted snapshot plus an append-only
+// journal of the writes made since. The snapshot stores each distinct name once
+// and rows refer to it by index; version 1 snapshots, with a name on every row,
+// are still read. Every compaction bumps a generation number kept in both the
+// snapshot and the journal header, so a journal left over from before the
+// current snapshot is recognised and skipped rather than replayed over it.
+// Only ever used from the repository's I/O thread.
+class ProductJournal {
+
+    // Receives the stored state in write order while the store is opened
+    interface Visitor {
+        void onSnapshot(long nextId, int rowCount);
+        void onAdd(long id, String name, int expiryDay);
+        void onDelete(long id);
+        void onUpdate(long id, String name, int expiryDay);
+    }
+
+    static final byte OP_ADD = 1;
+    static final byte OP_DELETE = 2;
+    // Bracket a batch of adds or of deletes that is replayed all or nothing
+    static final byte OP_BEGIN_BATCH = 3;
+    static final byte OP_COMMIT_BATCH = 4;
+    // New name and day of an existing product, laid out like OP_ADD
+    static final byte OP_UPDATE = 5;
+
+    static final int MAX_NAME_BYTES = 1024;
+
+    private static final int JOURNAL_MAGIC = 0x5045544A; // "PETJ"
+    private static final int SNAPSHOT_MAGIC = 0x50455453; // "PETS"
+    private static final int JOURNAL_VERSION = 2;
+    // Written before generations; replayed over whatever snapshot there is
+    private static final int JOURNAL_VERSION_UNTAGGED = 1;
+    private static final int SNAPSHOT_VERSION = 3;
+    private static final int SNAPSHOT_VERSION_UNTAGGED = 2;
+    private static final int SNAPSHOT_VERSION_INLINE_NAMES = 1;
+    private static final int SNAPSHOT_HEADER_SIZE = 8;
+    private static final int JOURNAL_HEADER_SIZE = 16;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File journalFile;
+    private final File snapshotFile;
+    private final File snapshotTmpFile;
+
+    private RandomAccessFile journalRaf;
+    private FileChannel journalChannel;
+
+    // Pending journal bytes, drained by flush()
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    // One encoded record body, checksummed before it goes into buffer
+    private final ByteBuffer record = ByteBuffer.allocate(1 + 8 + 4 + 2 + MAX_NAME_BYTES);
+    private final byte[] nameScratch = new byte[MAX_NAME_BYTES];
+    private final CRC32 crc = new CRC32();
+
+    private int recordCount;
+    // Generation of the current snapshot, 0 before the first compaction
+    private long generation;
+
+    ProductJournal(File dir) {
+        journalFile = new File(dir, "products.journal");
+        snapshotFile = new File(dir, "products.snapshot");
+        snapshotTmpFile = new File(dir, "products.snapshot.tmp");
+    }
+
+    boolean exists() {
+        return journalFile.exists() || snapshotFile.exists();
+    }
+
+    // Number of records appended since the last snapshot
+    int getRecordCount() {
+        return recordCount;
+    }
+
+    // Loads the snapshot, replays the journal on top of it and leaves the
+    // journal open for appending. A torn record at the tail is cut off.
+    void open(Visitor visitor) throws IOException {
+        File dir = journalFile.getParentFile();
+        if (dir != null && !dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        snapshotTmpFile.delete();
+
+        generation = 0;
+        buffer.clear();
+        readSnapshot(visitor);
+
+        journalRaf = new RandomAccessFile(journalFile, "rw");
+        journalChannel = journalRaf.getChannel();
+        try {
+            long validLength = replayJournal(visitor);
+            if (validLength < journalChannel.size()) {
+                journalChannel.truncate(validLength);
+            }
+            if (validLength == 0) {
+                writeJournalHeader();
+            }
+            journalChannel.position(journalChannel.size());
+        } catch (IOException | RuntimeException e) {
+            // Left closed, so a failed open can be retried
+            journalRaf.close();
+            journalRaf = null;
+            journalChannel = null;
+            throw e;
+        }
+    }
+
+    void appendAdd(long id, String name, int expiryDay) throws IOException {
+        byte[] nameBytes = encodeName(name);
+        record.clear();
+        record.put(OP_ADD);
+        record.putLong(id);
+        record.putInt(expiryDay);
+        record.putShort((short) nameBytes.length);
+        record.put(nameBytes);
+        appendRecord();
+    }
+
+    // A single checksummed record, so a torn edit is dropped whole on the next
+    // open and the product keeps its previous values
+    void appendUpdate(long id, String name, int expiryDay) throws IOException {
+        byte[] nameBytes = encodeName(name);
+        record.clear();
+        record.put(OP_UPDATE);
+        record.putLong(id);
+        record.putInt(expiryDay);
+        record.putShort((short) nameBytes.length);
+        record.put(nameBytes);
+        appendRecord();
+    }
+
+    // Whether the name fits a record: at most MAX_NAME_BYTES in UTF-8
+    static boolean fitsName(String name) {
+        return name.length() * 3 <= MAX_NAME_BYTES
+                || name.getBytes(StandardCharsets.UTF_8).length <= MAX_NAME_BYTES;
+    }
+
+    // Appends the adds between a begin and a commit record. If the commit record
+    // never reaches the disk the whole batch is dropped on the next open.
+    void appendAddBatch(long firstId, String[] names, int[] expiryDays, int count) throws IOException {
+        checkNames(names, count);
+        record.clear();
+        record.put(OP_BEGIN_BATCH);
+        record.putInt(count);
+        appendRecord();
+        for (int i = 0; i < count; i++) {
+            appendAdd(firstId + i, names[i], expiryDays[i]);
+        }
+        record.clear();
+        record.put(OP_COMMIT_BATCH);
+        record.putInt(count);
+        appendRecord();
+    }
+
+    // Like appendAddBatch() for products that already have ids, such as the
+    // ones brought back by an undo
+    void appendAddBatch(long[] ids, String[] names, int[] expiryDays, int count) throws IOException {
+        checkNames(names, count);
+        record.clear();
+        record.put(OP_BEGIN_BATCH);
+        record.putInt(count);
+        appendRecord();
+        for (int i = 0; i < count; i++) {
+            appendAdd(ids[i], names[i], expiryDays[i]);
+        }
+        record.clear();
+        record.put(OP_COMMIT_BATCH);
+        record.putInt(count);
+        appendRecord();
+    }
+
+    // Appends the deletes between a begin and a commit record, all or nothing
+    // like appendAddBatch()
+    void appendDeleteBatch(long[] ids, int count) throws IOException {
+        record.clear();
+        record.put(OP_BEGIN_BATCH);
+        record.putInt(count);
+        appendRecord();
+        for (int i = 0; i < count; i++) {
+            appendDelete(ids[i]);
+        }
+        record.clear();
+        record.put(OP_COMMIT_BATCH);
+        record.putInt(count);
+        appendRecord();
+    }
+
+    void appendDelete(long id) throws IOException {
+        record.clear();
+        record.put(OP_DELETE);
+        record.putLong(id);
+        appendRecord();
+    }
+
+    // Writes buffered records and forces them to disk
+    void flush() throws IOException {
+        ensureOpen();
+        drain();
+        journalChannel.force(false);
+    }
+
+    // Replaces the snapshot with the given rows and empties the journal. Row i
+    // is named names[nameIndexes[i]]. The new snapshot is written and synced
+    // beside the old one, renamed over it, and the directory is synced so the
+    // rename is durable before the journal is emptied. A crash before the
+    // rename leaves the old snapshot and its journal; after it, the new
+    // snapshot and a journal of the previous generation, skipped on open.
+    void compact(long nextId, long[] ids, int[] nameIndexes, String[] names, int nameCount,
+                 int[] expiryDays, int count) throws IOException {
+        flush();
+
+        RandomAccessFile raf = new RandomAccessFile(snapshotTmpFile, "rw");
+        try {
+            FileChannel channel = raf.getChannel();
+            channel.truncate(0);
+            crc.reset();
+
+            buffer.clear();
+            buffer.putInt(SNAPSHOT_MAGIC);
+            buffer.putInt(SNAPSHOT_VERSION);
+            int bodyStart = buffer.position();
+            buffer.putLong(generation + 1);
+            buffer.putLong(nextId);
+            buffer.putInt(nameCount);
+            for (int i = 0; i < nameCount; i++) {
+                byte[] nameBytes = encodeName(names[i]);
+                if (buffer.remaining() < 2 + nameBytes.length + 4 + 4) {
+                    updateCrc(bodyStart);
+                    bodyStart = 0;
+                    writeBuffer(channel);
+                }
+                buffer.putShort((short) nameBytes.length);
+                buffer.put(nameBytes);
+            }
+            buffer.putInt(count);
+            for (int i = 0; i < count; i++) {
+                if (buffer.remaining() < 8 + 4 + 4 + 4) {
+                    updateCrc(bodyStart);
+                    bodyStart = 0;
+                    writeBuffer(channel);
+                }
+                buffer.putLong(ids[i]);
+                buffer.putInt(expiryDays[i]);
+                buffer.putInt(nameIndexes[i]);
+            }
+            updateCrc(bodyStart);
+            buffer.putInt((int) crc.getValue());
+            writeBuffer(channel);
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            // Snapshot bytes must not be flushed into the journal later
+            buffer.clear();
+            throw e;
+        } finally {
+            raf.close();
+        }
+
+        if (!snapshotTmpFile.renameTo(snapshotFile)) {
+            throw new IOException("Cannot replace " + snapshotFile);
+        }
+        generation++;
+
+        try {
+            syncDirectory();
+            journalChannel.truncate(0);
+            writeJournalHeader();
+            journalChannel.force(true);
+        } catch (IOException e) {
+            // The journal on disk may now belong to the previous generation and
+            // be skipped on the next open, so nothing more may be appended to it
+            journalRaf.close();
+            journalRaf = null;
+            journalChannel = null;
+            throw e;
+        }
+        recordCount = 0;
+    }
+
+    // Renames the store files out of the way, keeping them for recovery, so
+    // the next open starts an empty store
+    void setAside() throws IOException {
+        if (journalRaf != null) {
+            journalRaf.close();
+            journalRaf = null;
+            journalChannel = null;
+        }
+        String suffix = ".broken-" + System.currentTimeMillis();
+        for (File file : new File[] {snapshotFile, journalFile}) {
+            if (file.exists() && !file.renameTo(new File(file.getPath() + suffix))) {
+                throw new IOException("Cannot set aside " + file);
+            }
+        }
+    }
+
+    // Writes out the buffered records and closes the journal. It ends up
+    // closed even if the write fails, so it can be opened again.
+    void close() throws IOException {
+        if (journalRaf != null) {
+            try {
+                flush();
+            } finally {
+                buffer.clear();
+                journalRaf.close();
+                journalRaf = null;
+                journalChannel = null;
+            }
+        }
+    }
+
+    private void readSnapshot(Visitor visitor) throws IOException {
+        if (!snapshotFile.exists()) {
+            return;
+        }
+        ByteBuffer data = readFully(snapshotFile);
+        if (data.remaining() < SNAPSHOT_HEADER_SIZE + 8 + 4 + 4 || data.getInt() != SNAPSHOT_MAGIC) {
+            throw new IOException("Unrecognised snapshot " + snapshotFile);
+        }
+        int version = data.getInt();
+        if (version != SNAPSHOT_VERSION && version != SNAPSHOT_VERSION_UNTAGGED
+                && version != SNAPSHOT_VERSION_INLINE_NAMES) {
+            throw new IOException("Unrecognised snapshot version " + version + " " + snapshotFile);
+        }
+
+        int bodyStart = data.position();
+        int bodyEnd = data.limit() - 4;
+        crc.reset();
+        ByteBuffer body = data.duplicate();
+        body.position(bodyStart);
+        body.limit(bodyEnd);
+        crc.update(body);
+        if ((int) crc.getValue() != data.getInt(bodyEnd)) {
+            throw new IOException("Snapshot checksum mismatch " + snapshotFile);
+        }
+
+        if (version == SNAPSHOT_VERSION) {
+            generation = data.getLong();
+        }
+        long nextId = data.getLong();
+        if (version == SNAPSHOT_VERSION_INLINE_NAMES) {
+            int count = data.getInt();
+            visitor.onSnapshot(nextId, count);
+            for (int i = 0; i < count; i++) {
+                long id = data.getLong();
+                int expiryDay = data.getInt();
+                visitor.onAdd(id, readName(data), expiryDay);
+            }
+            return;
+        }
+
+        // Every row of a name gets the same String instance
+        String[] names = new String[data.getInt()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = readName(data);
+        }
+        int count = data.getInt();
+        visitor.onSnapshot(nextId, count);
+        for (int i = 0; i < count; i++) {
+            long id = data.getLong();
+            int expiryDay = data.getInt();
+            int nameIndex = data.getInt();
+            if (nameIndex < 0 || nameIndex >= names.length) {
+                throw new IOException("Bad name index " + nameIndex + " in " + snapshotFile);
+            }
+            visitor.onAdd(id, names[nameIndex], expiryDay);
+        }
+    }
+
+    // Returns the length of the valid prefix of the journal, 0 if it has no
+    // valid header or belongs to the previous snapshot
+    private long replayJournal(Visitor visitor) throws IOException {
+        long size = journalChannel.size();
+        recordCount = 0;
+        if (size < 8) {
+            return 0; // Not even a magic and version
+        }
+        ByteBuffer data = ByteBuffer.allocate((int) size);
+        journalChannel.position(0);
+        while (data.hasRemaining() && journalChannel.read(data) >= 0) {
+            // keep reading
+        }
+        data.flip();
+        int magic = data.getInt();
+        int version = data.getInt();
+        if (magic != JOURNAL_MAGIC || (version != JOURNAL_VERSION && version != JOURNAL_VERSION_UNTAGGED)) {
+            throw new IOException("Unrecognised journal " + journalFile);
+        }
+        if (version == JOURNAL_VERSION) {
+            if (data.remaining() < 8) {
+                return 0; // Torn header, no records yet
+            }
+            long journalGeneration = data.getLong();
+            if (journalGeneration == generation - 1) {
+                // A compaction crashed after its snapshot was in place; every
+                // record here is already part of it
+                return 0;
+            }
+            if (journalGeneration != generation) {
+                throw new IOException("Journal generation " + journalGeneration
+                        + " does not match snapshot generation " + generation);
+            }
+        }
+
+        // Records of an open batch, held back until its commit record is seen;
+        // a null name marks a delete
+        int batchStart = -1;
+        int batchCount = 0;
+        int recordsBeforeBatch = 0;
+        long[] batchIds = null;
+        String[] batchNames = null;
+        int[] batchDays = null;
+        while (data.remaining() >= 4) {
+            int start = data.position();
+            int length = data.getInt();
+            if (length <= 0 || length > record.capacity() || data.remaining() < length + 4) {
+                data.position(start);
+                break;
+            }
+            int bodyStart = data.position();
+            crc.reset();
+            ByteBuffer body = data.duplicate();
+            body.limit(bodyStart + length);
+            crc.update(body);
+            if ((int) crc.getValue() != data.getInt(bodyStart + length)) {
+                data.position(start);
+                break;
+            }
+
+            byte op = data.get();
+            if ((op == OP_ADD || op == OP_DELETE) && batchStart >= 0) {
+                if (batchCount == batchIds.length) {
+                    data.position(batchStart);
+                    break;
+                }
+                batchIds[batchCount] = data.getLong();
+                if (op == OP_ADD) {
+                    batchDays[batchCount] = data.getInt();
+                    batchNames[batchCount] = readName(data);
+                } else {
+                    batchNames[batchCount] = null;
+                }
+                batchCount++;
+            } else if (op == OP_ADD) {
+                long id = data.getLong();
+                int expiryDay = data.getInt();
+                visitor.onAdd(id, readName(data), expiryDay);
+            } else if (op == OP_DELETE) {
+                visitor.onDelete(data.getLong());
+            } else if (op == OP_UPDATE) {
+                long id = data.getLong();
+                int expiryDay = data.getInt();
+                visitor.onUpdate(id, readName(data), expiryDay);
+            } else if (op == OP_BEGIN_BATCH) {
+                int count = data.getInt();
+                if (batchStart >= 0 || count < 0 || count > size / 16) {
+                    data.position(batchStart >= 0 ? batchStart : start);
+                    break;
+                }
+                batchStart = start;
+                batchCount = 0;
+                recordsBeforeBatch = recordCount;
+                batchIds = new long[count];
+                batchNames = new String[count];
+                batchDays = new int[count];
+            } else if (op == OP_COMMIT_BATCH) {
+                if (batchStart < 0 || data.getInt() != batchCount || batchCount != batchIds.length) {
+                    data.position(batchStart >= 0 ? batchStart : start);
+                    break;
+                }
+                for (int i = 0; i < batchCount; i++) {
+                    if (batchNames[i] != null) {
+                        visitor.onAdd(batchIds[i], batchNames[i], batchDays[i]);
+                    } else {
+                        visitor.onDelete(batchIds[i]);
+                    }
+                }
+                batchStart = -1;
+                batchIds = null;
+                batchNames = null;
+                batchDays = null;
+            }
+            data.position(bodyStart + length + 4);
+            recordCount++;
+        }
+        if (batchStart >= 0) {
+            // Torn batch: cut it off along with anything after it
+            data.position(batchStart);
+            recordCount = recordsBeforeBatch;
+        }
+        return data.position();
+    }
+
+    private void appendRecord() throws IOException {
+        ensureOpen();
+        int length = record.position();
+        crc.reset();
+        crc.update(record.array(), 0, length);
+        if (buffer.remaining() < 4 + length + 4) {
+            drain();
+        }
+        buffer.putInt(length);
+        buffer.put(record.array(), 0, length);
+        buffer.putInt((int) crc.getValue());
+        recordCount++;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (journalChannel == null) {
+            throw new IOException("Product journal is not open");
+        }
+    }
+
+    private void drain() throws IOException {
+        writeBuffer(journalChannel);
+    }
+
+    private void writeBuffer(FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void updateCrc(int from) {
+        ByteBuffer body = buffer.duplicate();
+        body.flip();
+        body.position(from);
+        crc.update(body);
+    }
+
+    private void writeJournalHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(JOURNAL_HEADER_SIZE);
+        header.putInt(JOURNAL_MAGIC);
+        header.putInt(JOURNAL_VERSION);
+        header.putLong(generation);
+        header.flip();
+        journalChannel.position(0);
+        while (header.hasRemaining()) {
+            journalChannel.write(header);
+        }
+    }
+
+    // Makes the last rename in the store directory durable
+    private void syncDirectory() throws IOException {
+        File dir = snapshotFile.getAbsoluteFile().getParentFile();
+        FileChannel channel = FileChannel.open(dir.toPath(), StandardOpenOption.READ);
+        try {
+            channel.force(true);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private String readName(ByteBuffer data) {
+        int length = data.getShort() & 0xFFFF;
+        data.get(nameScratch, 0, length);
+        return new String(nameScratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    // Before a batch begins, so a bad name cannot leave it open
+    private static void checkNames(String[] names, int count) {
+        for (int i = 0; i < count; i++) {
+            if (!fitsName(names[i])) {
+                throw new IllegalArgumentException("Product name too long at batch index " + i);
+            }
+        }
+    }
+
+    private static byte[] encodeName(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_NAME_BYTES) {
+            throw new IllegalArgumentException("Product name too long: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+
+    private static ByteBuffer readFully(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            ByteBuffer data = ByteBuffer.allocate((int) channel.size());
+            while (data.hasRemaining() && channel.read(data) >= 0) {
+                // keep reading
+            }
+            data.flip();
+            return data;
+        } finally {
+            raf.close();
+        }
+    }
+}
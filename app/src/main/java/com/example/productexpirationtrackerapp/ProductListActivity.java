@@ -1,37 +1,78 @@
 package com.example.productexpirationtrackerapp;
 
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
+import android.app.DatePickerDialog;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.DialogInterface;
 import android.content.Intent;
-import android.content.SharedPreferences;
+import android.content.IntentFilter;
+import android.content.pm.ApplicationInfo;
+import android.content.res.AssetFileDescriptor;
+import android.database.Cursor;
+import android.net.Uri;
 import android.os.Bundle;
+import android.os.ParcelFileDescriptor;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.provider.OpenableColumns;
 import android.util.Log;
 import android.view.View;
 import android.widget.AdapterView;
-import android.widget.ArrayAdapter;
+import android.widget.AutoCompleteTextView;
 import android.widget.Button;
-import android.widget.ListView;
+import android.widget.DatePicker;
+import android.widget.EditText;
 import android.widget.TextView;
 import android.widget.Toast;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.Locale;
+import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.DividerItemDecoration;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.recyclerview.widget.SimpleItemAnimator;
+
+import com.google.android.material.snackbar.Snackbar;
+
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.LocalDate;
 
 public class ProductListActivity extends AppCompatActivity {
 
     private static final String TAG = "ProductListDebug";
+    private static final int REQUEST_IMPORT = 200;
+    private static final int REQUEST_EXPORT = 201;
+    private static final String CATALOG_ASSET = "shelf_life.catalog";
+    // Expiry offered for products the catalog does not know
+    private static final int DEFAULT_SHELF_LIFE_DAYS = 7;
+
+    // Shared by every instance, the mapping stays valid once the asset is closed
+    private static ShelfLifeCatalog shelfLifeCatalog;
+    private static boolean shelfLifeCatalogFailed;
 
     // UI Components - matching your simple XML
     private TextView titleTextView;
-    private Button backButton, addButton;
+    private Button backButton, addButton, importButton, exportButton;
     private TextView productCountText;
-    private ListView productListView;
+    private EditText searchEditText;
+    private RecyclerView productRecyclerView;
+    private View selectionBar;
+    private TextView selectionCountText;
+    private Button cancelSelectionButton, selectExpiredButton, deleteSelectedButton;
 
     // Data
-    private ArrayList<String> productList;
-    private ArrayList<String> expiryDates; // Store dates separately
-    private ArrayAdapter<String> adapter;
-    private SharedPreferences preferences;
+    private ProductTable table; // Shared with the repository, one row per product
+    private final int[] statusCounts = new int[ExpiryStatus.COUNT];
+    private ProductAdapter adapter;
+    private AppSettings settings;
+    private ProductRepository repository;
+    private ProductImporter runningImport; // Non-null while an import is in progress
+    private ProductExporter runningExport; // Non-null while an export is in progress
+    private FrameDropTracker frameDropTracker;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -50,10 +91,19 @@ public class ProductListActivity extends AppCompatActivity {
             return;
         }
 
-        // Get preferences
-        preferences = getSharedPreferences("AppPrefs", MODE_PRIVATE);
+        // Settings are cached for the whole process, the title follows user_name changes
+        settings = AppSettings.getInstance(this);
+        settings.addChangeListener(settingsListener);
         Log.d(TAG, "Preferences loaded");
 
+        // Product store lives for the whole process, disk work stays off the UI thread
+        repository = ProductRepository.getInstance(getApplicationContext().getFilesDir(),
+                ContextCompat.getMainExecutor(getApplicationContext()));
+
+        // One alarm for the next expiry threshold, re-armed as products change
+        ExpiryAlarmScheduler.getInstance(this).attach(repository);
+        repository.addFailureListener(storeFailureListener);
+
         // Initialize ALL UI components
         initializeViews();
 
@@ -66,6 +116,9 @@ public class ProductListActivity extends AppCompatActivity {
         // Update the UI
         updateProductCount();
 
+        // Fill the list once the store has been read in the background
+        loadProducts();
+
         Log.d(TAG, "ProductListActivity setup complete");
     }
 
@@ -77,8 +130,16 @@ public class ProductListActivity extends AppCompatActivity {
             titleTextView = findViewById(R.id.titleTextView);
             backButton = findViewById(R.id.backButton);
             addButton = findViewById(R.id.addButton);
+            importButton = findViewById(R.id.importButton);
+            exportButton = findViewById(R.id.exportButton);
             productCountText = findViewById(R.id.productCountText);
-            productListView = findViewById(R.id.productListView);
+            searchEditText = findViewById(R.id.searchEditText);
+            productRecyclerView = findViewById(R.id.productRecyclerView);
+            selectionBar = findViewById(R.id.selectionBar);
+            selectionCountText = findViewById(R.id.selectionCountText);
+            cancelSelectionButton = findViewById(R.id.cancelSelectionButton);
+            selectExpiredButton = findViewById(R.id.selectExpiredButton);
+            deleteSelectedButton = findViewById(R.id.deleteSelectedButton);
 
             Log.d(TAG, "Simple views found successfully");
 
@@ -87,7 +148,7 @@ public class ProductListActivity extends AppCompatActivity {
             if (backButton == null) Log.e(TAG, "backButton is null!");
             if (addButton != null) Log.d(TAG, "addButton found");
             if (productCountText != null) Log.d(TAG, "productCountText found");
-            if (productListView != null) Log.d(TAG, "productListView found");
+            if (productRecyclerView != null) Log.d(TAG, "productRecyclerView found");
 
         } catch (Exception e) {
             Log.e(TAG, "Error in initializeViews: " + e.getMessage());
@@ -98,61 +159,136 @@ public class ProductListActivity extends AppCompatActivity {
     private void setupProductList() {
         Log.d(TAG, "Setting up simple product list");
 
-        // Initialize lists
-        productList = new ArrayList<>();
-        expiryDates = new ArrayList<>();
+        // Empty until loadProducts() hands over the stored table
+        table = repository.getTable();
 
-        // Add sample products with their dates
-        addProductWithDate("🥛 Milk", "2024-12-25");
-        addProductWithDate("🥚 Eggs", "2024-12-20");
-        addProductWithDate("🍞 Bread", "2024-12-30");
-        addProductWithDate("🧀 Cheese", "2025-01-15");
-        addProductWithDate("🍗 Chicken", "2024-12-28");
-        addProductWithDate("🍎 Apples", "2025-01-10");
-        addProductWithDate("☕ Coffee", "2025-03-01");
-        addProductWithDate("🍪 Cookies", "2025-02-14");
+        // Rows are built a page at a time in the background, see refreshRows()
+        adapter = new ProductAdapter(this);
 
-        Log.d(TAG, "Created " + productList.size() + " sample products");
+        if (productRecyclerView != null) {
+            productRecyclerView.setLayoutManager(new LinearLayoutManager(this));
+            // Pages arriving for placeholder rows should not cross-fade
+            ((SimpleItemAnimator) productRecyclerView.getItemAnimator()).setSupportsChangeAnimations(false);
+            productRecyclerView.addItemDecoration(
+                    new DividerItemDecoration(this, DividerItemDecoration.VERTICAL));
+            productRecyclerView.setAdapter(adapter);
 
-        // Create adapter for the ListView
-        adapter = new ArrayAdapter<>(
-                this,
-                android.R.layout.simple_list_item_1,
-                productList
-        );
-
-        // Set adapter to ListView
-        if (productListView != null) {
-            productListView.setAdapter(adapter);
-            Log.d(TAG, "Adapter set to ListView");
+            // Frames dropped while scrolling, see MetricsActivity
+            frameDropTracker = new FrameDropTracker(getDisplay().getRefreshRate());
+            productRecyclerView.addOnScrollListener(frameDropTracker);
+            Log.d(TAG, "Adapter set to RecyclerView");
         }
 
         // Set user's name in title
-        String userName = preferences.getString("user_name", "User");
+        updateTitle();
+    }
+
+    private void updateTitle() {
         if (titleTextView != null) {
-            titleTextView.setText("📦 " + userName + "'s Products");
+            titleTextView.setText("📦 " + settings.getUserName() + "'s Products");
             Log.d(TAG, "Title set to: " + titleTextView.getText());
         }
     }
 
-    private void addProductWithDate(String productName, String dateStr) {
-        try {
-            // Convert date to display format
-            SimpleDateFormat inputFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-            SimpleDateFormat displayFormat = new SimpleDateFormat("MMM dd, yyyy", Locale.getDefault());
-            Date date = inputFormat.parse(dateStr);
-            String displayDate = displayFormat.format(date);
+    private void loadProducts() {
+        repository.load(newLoadCallback());
+    }
+
+    private ProductRepository.LoadCallback newLoadCallback() {
+        return new ProductRepository.LoadCallback() {
+            @Override
+            public void onLoaded(ProductTable loadedTable) {
+                if (isFinishing() || isDestroyed()) {
+                    return;
+                }
+
+                table = loadedTable;
+                Log.d(TAG, "Loaded " + table.size() + " stored products");
+
+                // Seed sample products only the first time the store is created
+                if (repository.isNewStore() && table.size() == 0) {
+                    addProductWithDate("🥛 Milk", "2024-12-25");
+                    addProductWithDate("🥚 Eggs", "2024-12-20");
+                    addProductWithDate("🍞 Bread", "2024-12-30");
+                    addProductWithDate("🧀 Cheese", "2025-01-15");
+                    addProductWithDate("🍗 Chicken", "2024-12-28");
+                    addProductWithDate("🍎 Apples", "2025-01-10");
+                    addProductWithDate("☕ Coffee", "2025-03-01");
+                    addProductWithDate("🍪 Cookies", "2025-02-14");
+                    Log.d(TAG, "Created " + table.size() + " sample products");
+                }
+
+                refreshRows();
+            }
 
-            // Add to lists
-            productList.add(productName + " - Expires: " + displayDate);
-            expiryDates.add(dateStr);
+            @Override
+            public void onLoadFailed(IOException e) {
+                if (isFinishing() || isDestroyed()) {
+                    return;
+                }
+                Log.e(TAG, "Failed to open products", e);
+                showStoreFailure("Products could not be opened",
+                        "Your saved products could not be read (" + e.getMessage() + "). "
+                                + "You can try again, or start with an empty list; the old files are kept.");
+            }
+        };
+    }
 
+    private final ProductRepository.FailureListener storeFailureListener = new ProductRepository.FailureListener() {
+        @Override
+        public void onStoreFailed(IOException e) {
+            Log.e(TAG, "Failed to save products", e);
+            showStoreFailure("Products could not be saved",
+                    "Your latest changes could not be saved (" + e.getMessage() + "). "
+                            + "You can reload the saved products, or start with an empty list; the old files are kept.");
+        }
+    };
+
+    // The store refuses writes until it opens, so an unreadable one is never
+    // silently replaced; the user picks whether to try again or start over
+    private void showStoreFailure(String title, String message) {
+        AlertDialog.Builder builder = new AlertDialog.Builder(this);
+        builder.setTitle(title);
+        builder.setMessage(message);
+        builder.setCancelable(false);
+
+        builder.setPositiveButton("TRY AGAIN", new DialogInterface.OnClickListener() {
+            @Override
+            public void onClick(DialogInterface dialog, int which) {
+                loadProducts();
+            }
+        });
+
+        builder.setNegativeButton("START OVER", new DialogInterface.OnClickListener() {
+            @Override
+            public void onClick(DialogInterface dialog, int which) {
+                repository.resetStore(newLoadCallback());
+            }
+        });
+
+        builder.create().show();
+    }
+
+    private void addProductWithDate(String productName, String dateStr) {
+        int expiryDay;
+        try {
+            expiryDay = DateService.parseStorage(dateStr);
         } catch (Exception e) {
             // If parsing fails, use default
-            productList.add(productName + " - Expires: Unknown");
-            expiryDates.add("2024-12-31");
+            expiryDay = DateService.parseStorage("2024-12-31");
             Log.e(TAG, "Date parsing error for " + productName + ": " + e.getMessage());
         }
+
+        // Saved in the background, shown right away
+        repository.add(productName, expiryDay);
+    }
+
+    // Re-shows the table if it or the day changed. Table changes already
+    // reached the adapter at their positions; search results are diffed in
+    // the background.
+    private void refreshRows() {
+        adapter.refresh(table);
+        updateProductCount();
     }
 
     private void setupClickListeners() {
@@ -172,6 +308,17 @@ public class ProductListActivity extends AppCompatActivity {
             });
         }
 
+        // Long-press the title for diagnostics, debuggable builds only
+        if (titleTextView != null && (getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) {
+            titleTextView.setOnLongClickListener(new View.OnLongClickListener() {
+                @Override
+                public boolean onLongClick(View v) {
+                    startActivity(new Intent(ProductListActivity.this, MetricsActivity.class));
+                    return true;
+                }
+            });
+        }
+
         // Add button - add new product
         if (addButton != null) {
             addButton.setOnClickListener(new View.OnClickListener() {
@@ -183,82 +330,259 @@ public class ProductListActivity extends AppCompatActivity {
             });
         }
 
-        // List item click - OPEN PRODUCT DETAILS
-        if (productListView != null) {
-            productListView.setOnItemClickListener(new AdapterView.OnItemClickListener() {
+        // Import button - pick a CSV/JSON export, or cancel the running import
+        if (importButton != null) {
+            importButton.setOnClickListener(new View.OnClickListener() {
                 @Override
-                public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
-                    String productText = productList.get(position);
-
-                    // Extract product name (remove emoji if needed)
-                    String[] parts = productText.split(" - Expires: ");
-                    String productName = parts[0];
+                public void onClick(View v) {
+                    Log.d(TAG, "Import button clicked");
+                    if (runningImport != null) {
+                        runningImport.cancel();
+                    } else {
+                        pickImportFile();
+                    }
+                }
+            });
+        }
 
-                    // Get the expiry date
-                    String expiryDate = "";
-                    if (position < expiryDates.size()) {
-                        expiryDate = expiryDates.get(position);
+        // Export button - save the inventory as CSV/JSON, or cancel the running export
+        if (exportButton != null) {
+            exportButton.setOnClickListener(new View.OnClickListener() {
+                @Override
+                public void onClick(View v) {
+                    Log.d(TAG, "Export button clicked");
+                    if (runningExport != null) {
+                        runningExport.cancel();
                     } else {
-                        // Try to extract from display text
-                        if (parts.length > 1) {
-                            expiryDate = convertDisplayDateToStorage(parts[1]);
-                        }
+                        pickExportFile();
                     }
+                }
+            });
+        }
 
-                    Log.d(TAG, "Opening product details: " + productName + " | Date: " + expiryDate);
+        // Search bar - filter by name on every keystroke
+        if (searchEditText != null) {
+            searchEditText.addTextChangedListener(new TextWatcher() {
+                @Override
+                public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+                }
 
-                    // Open ProductDetailActivity
-                    Intent intent = new Intent(ProductListActivity.this, ProductDetailActivity.class);
-                    intent.putExtra("product_name", productName);
-                    intent.putExtra("expiry_date", expiryDate);
-                    intent.putExtra("position", position);
+                @Override
+                public void onTextChanged(CharSequence s, int start, int before, int count) {
+                }
 
-                    // Use startActivityForResult to handle deletion from detail screen
-                    startActivityForResult(intent, 100);
-                    overridePendingTransition(android.R.anim.fade_in, android.R.anim.fade_out);
+                @Override
+                public void afterTextChanged(Editable s) {
+                    adapter.setQuery(table, s.toString());
+                    updateProductCount();
                 }
             });
         }
 
-        // List item long click - delete product
-        if (productListView != null) {
-            productListView.setOnItemLongClickListener(new AdapterView.OnItemLongClickListener() {
+        // Selection bar - cancel, select every expired product, delete the selection
+        if (cancelSelectionButton != null) {
+            cancelSelectionButton.setOnClickListener(new View.OnClickListener() {
                 @Override
-                public boolean onItemLongClick(AdapterView<?> parent, View view, int position, long id) {
-                    String removedProduct = productList.get(position);
-                    String productName = removedProduct.split(" - ")[0];
-
-                    // Remove from both lists
-                    productList.remove(position);
-                    if (position < expiryDates.size()) {
-                        expiryDates.remove(position);
-                    }
-
-                    adapter.notifyDataSetChanged();
-                    updateProductCount();
+                public void onClick(View v) {
+                    exitSelectionMode();
+                }
+            });
+        }
 
-                    Toast.makeText(ProductListActivity.this,
-                            "Removed: " + productName,
-                            Toast.LENGTH_SHORT).show();
+        if (selectExpiredButton != null) {
+            selectExpiredButton.setOnClickListener(new View.OnClickListener() {
+                @Override
+                public void onClick(View v) {
+                    selectAllExpired();
+                }
+            });
+        }
 
-                    Log.d(TAG, "Item long clicked and removed: " + productName);
-                    return true;
+        if (deleteSelectedButton != null) {
+            deleteSelectedButton.setOnClickListener(new View.OnClickListener() {
+                @Override
+                public void onClick(View v) {
+                    confirmDeleteSelected();
                 }
             });
         }
+
+        // Search matches arrive after the keystroke that asked for them
+        adapter.setOnMatchesShownListener(new ProductAdapter.OnMatchesShownListener() {
+            @Override
+            public void onMatchesShown(int count) {
+                updateProductCount();
+            }
+        });
+
+        adapter.setOnItemClickListener(new ProductAdapter.OnItemClickListener() {
+            // List item click - OPEN PRODUCT DETAILS, or toggle it while selecting
+            @Override
+            public void onItemClick(int position) {
+                if (adapter.isSelectionMode()) {
+                    adapter.toggleSelection(position);
+                    updateSelectionBar();
+                    return;
+                }
+
+                long productId = adapter.getItemId(position);
+
+                // The detail screen shows the row's model as already built for the list
+                ProductRowModel model = adapter.getRowModel(position);
+                if (model != null) {
+                    repository.cacheRowModel(model, adapter.getShownVersion(), adapter.getToday());
+                }
+
+                Log.d(TAG, "Opening product details, id " + productId);
+
+                // Open ProductDetailActivity, which looks the product up by id
+                Intent intent = new Intent(ProductListActivity.this, ProductDetailActivity.class);
+                intent.putExtra(ProductDetailActivity.EXTRA_PRODUCT_ID, productId);
+
+                // Use startActivityForResult to handle deletion from detail screen
+                startActivityForResult(intent, 100);
+                overridePendingTransition(android.R.anim.fade_in, android.R.anim.fade_out);
+            }
+
+            // List item long click - start selecting, with this product selected
+            @Override
+            public void onItemLongClick(int position) {
+                if (!adapter.isSelectionMode()) {
+                    enterSelectionMode();
+                }
+                adapter.toggleSelection(position);
+                updateSelectionBar();
+
+                Log.d(TAG, "Item long clicked, " + adapter.getSelection().size() + " selected");
+            }
+        });
+    }
+
+    private void enterSelectionMode() {
+        adapter.setSelectionMode(true);
+        if (selectionBar != null) {
+            selectionBar.setVisibility(View.VISIBLE);
+        }
+        if (addButton != null) {
+            addButton.setVisibility(View.GONE);
+        }
+        updateSelectionBar();
     }
 
-    // Helper method to convert display date (MMM dd, yyyy) to storage format (yyyy-MM-dd)
-    private String convertDisplayDateToStorage(String displayDate) {
-        try {
-            SimpleDateFormat displayFormat = new SimpleDateFormat("MMM dd, yyyy", Locale.getDefault());
-            SimpleDateFormat storageFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-            Date date = displayFormat.parse(displayDate);
-            return storageFormat.format(date);
-        } catch (Exception e) {
-            Log.e(TAG, "Date conversion error: " + e.getMessage());
-            return "2024-12-31"; // Default date
+    private void exitSelectionMode() {
+        adapter.setSelectionMode(false);
+        if (selectionBar != null) {
+            selectionBar.setVisibility(View.GONE);
+        }
+        if (addButton != null) {
+            addButton.setVisibility(View.VISIBLE);
+        }
+    }
+
+    private void updateSelectionBar() {
+        if (selectionCountText != null) {
+            selectionCountText.setText(adapter.getSelection().size() + " selected");
+        }
+        if (deleteSelectedButton != null) {
+            deleteSelectedButton.setEnabled(!adapter.getSelection().isEmpty());
+        }
+    }
+
+    // Every expired product, found through the expiry index rather than a scan
+    private void selectAllExpired() {
+        if (!repository.isLoaded()) {
+            return;
         }
+        int today = DateService.today();
+        ExpiryIndex index = table.getExpiryIndex();
+        final long[] ids = new long[index.countExpired(today)];
+        final int[] count = new int[1];
+        index.forEachExpired(today, new ExpiryIndex.RowVisitor() {
+            @Override
+            public void visit(int row, int expiryDay) {
+                ids[count[0]++] = table.getId(row);
+            }
+        });
+
+        int added = adapter.select(ids, count[0]);
+        updateSelectionBar();
+        Toast.makeText(this, count[0] == 0 ? "No expired products"
+                : "Selected " + added + " more expired products", Toast.LENGTH_SHORT).show();
+    }
+
+    private void confirmDeleteSelected() {
+        final int selected = adapter.getSelection().size();
+        if (selected == 0) {
+            return;
+        }
+        AlertDialog.Builder builder = new AlertDialog.Builder(this);
+        builder.setTitle("Delete Products");
+        builder.setMessage("Delete " + selected + (selected == 1 ? " product?" : " products?"));
+
+        builder.setPositiveButton("DELETE", new DialogInterface.OnClickListener() {
+            @Override
+            public void onClick(DialogInterface dialog, int which) {
+                deleteSelected();
+            }
+        });
+
+        builder.setNegativeButton("CANCEL", new DialogInterface.OnClickListener() {
+            @Override
+            public void onClick(DialogInterface dialog, int which) {
+                dialog.dismiss();
+            }
+        });
+
+        builder.create().show();
+    }
+
+    // One store transaction and one item-range removal per run of adjacent rows
+    private void deleteSelected() {
+        if (!repository.isLoaded()) {
+            return;
+        }
+        ProductSelection selection = adapter.getSelection();
+        int deleted = repository.deleteAll(selection.getIds(), selection.size());
+        exitSelectionMode();
+        refreshRows();
+
+        showUndoDelete("Deleted " + deleted + (deleted == 1 ? " product" : " products"));
+        Log.d(TAG, "Deleted " + deleted + " selected products");
+    }
+
+    // Deleted rows are only tombstoned, so undo puts them back where they were
+    private void showUndoDelete(String message) {
+        Snackbar snackbar = Snackbar.make(productRecyclerView, message, Snackbar.LENGTH_LONG);
+        snackbar.setAction("UNDO", new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                if (!repository.isLoaded()) {
+                    return;
+                }
+                int restored = repository.undoDelete();
+                refreshRows();
+                Log.d(TAG, "Undo restored " + restored + " products");
+            }
+        });
+        snackbar.addCallback(new Snackbar.Callback() {
+            @Override
+            public void onDismissed(Snackbar transientBottomBar, int event) {
+                // A newer delete replaced this one and owns the undo now
+                if (event != DISMISS_EVENT_ACTION && event != DISMISS_EVENT_CONSECUTIVE) {
+                    repository.discardUndo();
+                }
+            }
+        });
+        snackbar.show();
+    }
+
+    @Override
+    public void onBackPressed() {
+        if (adapter != null && adapter.isSelectionMode()) {
+            exitSelectionMode();
+            return;
+        }
+        super.onBackPressed();
     }
 
     // Handle result from ProductDetailActivity (for deletion)
@@ -266,23 +590,26 @@ public class ProductListActivity extends AppCompatActivity {
     protected void onActivityResult(int requestCode, int resultCode, Intent data) {
         super.onActivityResult(requestCode, resultCode, data);
 
-        if (requestCode == 100 && resultCode == RESULT_OK) {
-            if (data != null && data.hasExtra("deleted_position")) {
-                int deletedPosition = data.getIntExtra("deleted_position", -1);
+        if (requestCode == REQUEST_IMPORT && resultCode == RESULT_OK && data != null && data.getData() != null) {
+            startImport(data.getData());
+        }
 
-                if (deletedPosition != -1 && deletedPosition < productList.size()) {
-                    String productName = productList.get(deletedPosition).split(" - ")[0];
+        if (requestCode == REQUEST_EXPORT && resultCode == RESULT_OK && data != null && data.getData() != null) {
+            startExport(data.getData());
+        }
 
-                    // Remove from both lists
-                    productList.remove(deletedPosition);
-                    if (deletedPosition < expiryDates.size()) {
-                        expiryDates.remove(deletedPosition);
-                    }
+        if (requestCode == 100 && resultCode == RESULT_OK) {
+            if (data != null && data.hasExtra(ProductDetailActivity.EXTRA_DELETED_ID)) {
+                // By id, so the right product goes even if the list changed meanwhile
+                long deletedId = data.getLongExtra(ProductDetailActivity.EXTRA_DELETED_ID, -1);
+                int row = repository.isLoaded() ? table.findRow(deletedId) : ProductTable.NO_ROW;
 
-                    adapter.notifyDataSetChanged();
-                    updateProductCount();
+                if (row != ProductTable.NO_ROW) {
+                    String productName = table.getName(row);
+                    repository.delete(deletedId);
+                    refreshRows();
 
-                    Toast.makeText(this, "Deleted from details: " + productName, Toast.LENGTH_SHORT).show();
+                    showUndoDelete("Deleted: " + productName);
                     Log.d(TAG, "Product deleted from detail screen: " + productName);
                 }
             }
@@ -290,39 +617,377 @@ public class ProductListActivity extends AppCompatActivity {
     }
 
     private void addNewProduct() {
-        // Sample products to add
-        String[] products = {"🍌 Banana", "🥦 Broccoli", "🥩 Steak", "🐟 Fish", "🍇 Grapes", "🥑 Avocado"};
-        String[] dates = {"2025-01-05", "2025-01-08", "2025-01-12", "2025-01-15", "2025-01-20", "2025-01-25"};
+        if (!repository.isLoaded()) {
+            Toast.makeText(this, "Still loading products...", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        // Typing a known product suggests it and its shelf life from the catalog
+        final ShelfLifeCatalog catalog = getCatalog();
+        final AutoCompleteTextView nameInput = new AutoCompleteTextView(this);
+        nameInput.setHint("Product name, e.g. milk");
+        nameInput.setSingleLine(true);
+        final ShelfLifeCatalog.Item[] picked = new ShelfLifeCatalog.Item[1];
+        if (catalog != null) {
+            nameInput.setThreshold(1);
+            nameInput.setAdapter(new CatalogSuggestionAdapter(getLayoutInflater(), catalog));
+            nameInput.setOnItemClickListener(new AdapterView.OnItemClickListener() {
+                @Override
+                public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
+                    picked[0] = (ShelfLifeCatalog.Item) parent.getItemAtPosition(position);
+                }
+            });
+        }
+
+        AlertDialog.Builder builder = new AlertDialog.Builder(this);
+        builder.setTitle("Add Product");
+        builder.setView(nameInput);
+
+        builder.setPositiveButton("NEXT", new DialogInterface.OnClickListener() {
+            @Override
+            public void onClick(DialogInterface dialog, int which) {
+                String name = nameInput.getText().toString().trim();
+                if (name.isEmpty()) {
+                    Toast.makeText(ProductListActivity.this, "Name cannot be empty", Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                if (!ProductRepository.isStorableName(name)) {
+                    Toast.makeText(ProductListActivity.this, "Name is too long", Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                ShelfLifeCatalog.Item item = picked[0];
+                if (item == null || !name.equals(item.getDisplayName())) {
+                    // Typed out rather than picked, or edited after picking
+                    item = catalog != null ? catalog.find(name) : null;
+                    if (item != null && name.equalsIgnoreCase(item.getName())) {
+                        // "milk" is listed like the catalog names it, "🥛 Milk"
+                        name = item.getDisplayName();
+                    }
+                }
+                pickExpiryDate(name, item);
+            }
+        });
 
-        // Pick a random product
-        int randomIndex = (int) (Math.random() * products.length);
+        builder.setNegativeButton("CANCEL", new DialogInterface.OnClickListener() {
+            @Override
+            public void onClick(DialogInterface dialog, int which) {
+                dialog.dismiss();
+            }
+        });
 
-        // Add product with date
-        addProductWithDate(products[randomIndex], dates[randomIndex]);
+        builder.create().show();
+    }
 
-        adapter.notifyDataSetChanged();
-        updateProductCount();
+    // Starts at today plus the catalog's shelf life for where the item is usually kept
+    private void pickExpiryDate(final String name, ShelfLifeCatalog.Item item) {
+        int suggestedDay = DateService.today() + DEFAULT_SHELF_LIFE_DAYS;
+        if (item != null) {
+            suggestedDay = DateService.today() + item.getShelfLifeDays(item.getDefaultStorage());
+            Toast.makeText(this, item.getName() + " keeps about " + item.getShelfLifeDays(item.getDefaultStorage())
+                    + " days in the " + CatalogSuggestionAdapter.storageName(item.getDefaultStorage()),
+                    Toast.LENGTH_SHORT).show();
+        }
+        LocalDate suggested = LocalDate.ofEpochDay(suggestedDay);
+        DatePickerDialog dialog = new DatePickerDialog(this, new DatePickerDialog.OnDateSetListener() {
+            @Override
+            public void onDateSet(DatePicker view, int year, int month, int dayOfMonth) {
+                // The store may have stopped taking writes while the dialog was open
+                if (!repository.isLoaded()) {
+                    return;
+                }
+                // Saved in the background, shown right away
+                repository.add(name, (int) LocalDate.of(year, month + 1, dayOfMonth).toEpochDay());
+                refreshRows();
+
+                Toast.makeText(ProductListActivity.this, "Added: " + name, Toast.LENGTH_SHORT).show();
+                Log.d(TAG, "Added new product: " + name);
+            }
+        }, suggested.getYear(), suggested.getMonthValue() - 1, suggested.getDayOfMonth());
+        dialog.show();
+    }
+
+    // Mapped straight from the uncompressed asset on first use and kept for the
+    // process; nothing is parsed, so this is cheap enough for the main thread
+    private ShelfLifeCatalog getCatalog() {
+        if (shelfLifeCatalog == null && !shelfLifeCatalogFailed) {
+            try (AssetFileDescriptor fd = getAssets().openFd(CATALOG_ASSET);
+                 FileInputStream in = fd.createInputStream()) {
+                shelfLifeCatalog = ShelfLifeCatalog.map(in.getChannel(), fd.getStartOffset(), fd.getDeclaredLength());
+                Log.d(TAG, "Shelf-life catalog mapped, " + shelfLifeCatalog.size() + " items");
+            } catch (IOException e) {
+                // Adding still works, just without suggestions
+                shelfLifeCatalogFailed = true;
+                Log.e(TAG, "Cannot open shelf-life catalog: " + e.getMessage());
+            }
+        }
+        return shelfLifeCatalog;
+    }
 
-        // Show confirmation
-        Toast.makeText(this, "Added: " + products[randomIndex], Toast.LENGTH_SHORT).show();
-        Log.d(TAG, "Added new product: " + products[randomIndex]);
+    private void pickImportFile() {
+        if (!repository.isLoaded()) {
+            Toast.makeText(this, "Still loading products...", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        Intent intent = new Intent(Intent.ACTION_OPEN_DOCUMENT);
+        intent.addCategory(Intent.CATEGORY_OPENABLE);
+        intent.setType("*/*");
+        intent.putExtra(Intent.EXTRA_MIME_TYPES,
+                new String[] {"text/csv", "text/comma-separated-values", "text/plain", "application/json"});
+        startActivityForResult(intent, REQUEST_IMPORT);
+    }
+
+    // Streams the file into the store in the background; the list and count
+    // follow along as batches are committed
+    private void startImport(Uri uri) {
+        String mimeType = getContentResolver().getType(uri);
+        ProductImporter.Format format = mimeType != null && mimeType.contains("json")
+                ? ProductImporter.Format.JSON
+                : ProductImporter.Format.forName(displayNameOf(uri));
+
+        FileInputStream input;
+        try {
+            ParcelFileDescriptor descriptor = getContentResolver().openFileDescriptor(uri, "r");
+            if (descriptor == null) {
+                throw new IOException("No file descriptor for " + uri);
+            }
+            input = new ParcelFileDescriptor.AutoCloseInputStream(descriptor);
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot open import file: " + e.getMessage());
+            Toast.makeText(this, "Cannot open file: " + e.getMessage(), Toast.LENGTH_LONG).show();
+            return;
+        }
+
+        long size;
+        try {
+            size = input.getChannel().size();
+        } catch (IOException e) {
+            size = -1; // Not seekable, progress shows rows only
+        }
+
+        Log.d(TAG, "Importing " + uri + " as " + format);
+        if (importButton != null) {
+            importButton.setText("✖");
+        }
+        runningImport = repository.importProducts(input.getChannel(), size, format,
+                new ProductRepository.ImportCallback() {
+                    @Override
+                    public void onImportProgress(long bytesRead, long totalBytes, int imported, int rejected) {
+                        if (isFinishing() || isDestroyed()) {
+                            return;
+                        }
+                        refreshRows();
+                        if (productCountText != null) {
+                            String percent = totalBytes > 0 ? " (" + (bytesRead * 100 / totalBytes) + "%)" : "";
+                            productCountText.setText("Importing... " + imported + " added" + percent);
+                        }
+                    }
+
+                    @Override
+                    public void onImportFinished(ProductImporter.Result result) {
+                        finishImport();
+                        for (ProductImporter.RowError error : result.errors) {
+                            Log.w(TAG, "Import skipped " + error);
+                        }
+                        String message = (result.cancelled ? "Import cancelled: " : "Imported ")
+                                + result.imported + " products";
+                        if (result.rejected > 0) {
+                            message += ", skipped " + result.rejected + " invalid rows";
+                            if (!result.errors.isEmpty()) {
+                                message += "\n" + result.errors.get(0);
+                            }
+                        }
+                        Toast.makeText(ProductListActivity.this, message, Toast.LENGTH_LONG).show();
+                    }
+
+                    @Override
+                    public void onImportFailed(IOException e) {
+                        finishImport();
+                        Toast.makeText(ProductListActivity.this,
+                                "Import failed: " + e.getMessage(), Toast.LENGTH_LONG).show();
+                    }
+                });
+    }
+
+    private void finishImport() {
+        runningImport = null;
+        if (importButton != null) {
+            importButton.setText("📥");
+        }
+        if (!isFinishing() && !isDestroyed()) {
+            refreshRows();
+        }
+    }
+
+    private void pickExportFile() {
+        if (!repository.isLoaded()) {
+            Toast.makeText(this, "Still loading products...", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        Intent intent = new Intent(Intent.ACTION_CREATE_DOCUMENT);
+        intent.addCategory(Intent.CATEGORY_OPENABLE);
+        intent.setType("text/csv");
+        intent.putExtra(Intent.EXTRA_TITLE, "products-" + DateService.formatStorage(DateService.today()) + ".csv");
+        startActivityForResult(intent, REQUEST_EXPORT);
+    }
+
+    // Audit export of every product, soonest expiry first. Rename the file to
+    // .json for JSON and add .gz to compress it.
+    private void startExport(Uri uri) {
+        String fileName = displayNameOf(uri);
+        ProductExporter exporter = new ProductExporter()
+                .setFormat(ProductExporter.Format.forName(fileName))
+                .setGzip(fileName != null && fileName.toLowerCase().endsWith(".gz"))
+                .setOrder(ProductExporter.Order.EXPIRY);
+
+        FileOutputStream output;
+        try {
+            ParcelFileDescriptor descriptor = getContentResolver().openFileDescriptor(uri, "wt");
+            if (descriptor == null) {
+                throw new IOException("No file descriptor for " + uri);
+            }
+            output = new ParcelFileDescriptor.AutoCloseOutputStream(descriptor);
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot open export file: " + e.getMessage());
+            Toast.makeText(this, "Cannot open file: " + e.getMessage(), Toast.LENGTH_LONG).show();
+            return;
+        }
+
+        Log.d(TAG, "Exporting to " + uri);
+        runningExport = exporter;
+        if (exportButton != null) {
+            exportButton.setText("✖");
+        }
+        repository.exportProducts(output.getChannel(), exporter, new ProductRepository.ExportCallback() {
+            @Override
+            public void onExportProgress(int written, int total) {
+                if (productCountText != null && !isFinishing() && !isDestroyed()) {
+                    productCountText.setText("Exporting... " + written + " of " + total);
+                }
+            }
+
+            @Override
+            public void onExportFinished(int written, boolean cancelled) {
+                finishExport();
+                Toast.makeText(ProductListActivity.this,
+                        (cancelled ? "Export cancelled after " : "Exported ") + written + " products",
+                        Toast.LENGTH_LONG).show();
+            }
+
+            @Override
+            public void onExportFailed(IOException e) {
+                finishExport();
+                Toast.makeText(ProductListActivity.this,
+                        "Export failed: " + e.getMessage(), Toast.LENGTH_LONG).show();
+            }
+        });
+    }
+
+    private void finishExport() {
+        runningExport = null;
+        if (exportButton != null) {
+            exportButton.setText("📤");
+        }
+        if (!isFinishing() && !isDestroyed()) {
+            updateProductCount();
+        }
+    }
+
+    // File name the user picked; document URIs do not end in it
+    private String displayNameOf(Uri uri) {
+        try (Cursor cursor = getContentResolver().query(uri,
+                new String[] {OpenableColumns.DISPLAY_NAME}, null, null, null)) {
+            if (cursor != null && cursor.moveToFirst()) {
+                return cursor.getString(0);
+            }
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Cannot read file name: " + e.getMessage());
+        }
+        return uri.getLastPathSegment();
     }
 
     private void updateProductCount() {
         if (productCountText != null) {
-            productCountText.setText("Total: " + productList.size() + " products");
-            Log.d(TAG, "Updated product count: " + productList.size());
+            if (adapter.isFiltered()) {
+                productCountText.setText("Showing " + adapter.getMatchCount() + " of " + table.size() + " products");
+            } else {
+                // Read from counters the expiry index keeps, nothing is scanned
+                table.getExpiryIndex().countStatuses(DateService.today(), statusCounts);
+                productCountText.setText(statusCounts[ExpiryStatus.EXPIRED] + " expired · "
+                        + statusCounts[ExpiryStatus.EXPIRING_SOON] + " expiring soon · "
+                        + statusCounts[ExpiryStatus.WARNING] + " warning · "
+                        + statusCounts[ExpiryStatus.FRESH] + " fresh");
+            }
+            Log.d(TAG, "Updated product count: " + table.size());
         }
     }
 
     @Override
     protected void onResume() {
         super.onResume();
-        // Update user name if changed
-        String userName = preferences.getString("user_name", "User");
-        if (titleTextView != null) {
-            titleTextView.setText("📦 " + userName + "'s Products");
+        // Days left change at midnight, rebuilds only if the day moved on
+        if (repository.isLoaded()) {
+            refreshRows();
+        }
+        // Midnight, clock and time zone changes while the list is in front
+        IntentFilter dayFilter = new IntentFilter();
+        dayFilter.addAction(Intent.ACTION_TIME_TICK);
+        dayFilter.addAction(Intent.ACTION_DATE_CHANGED);
+        dayFilter.addAction(Intent.ACTION_TIME_CHANGED);
+        dayFilter.addAction(Intent.ACTION_TIMEZONE_CHANGED);
+        registerReceiver(dayChangeReceiver, dayFilter);
+        Log.d(TAG, "onResume called");
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        unregisterReceiver(dayChangeReceiver);
+        if (frameDropTracker != null) {
+            frameDropTracker.stop();
         }
-        Log.d(TAG, "onResume called, title updated");
     }
+
+    // adb shell dumpsys activity top
+    @Override
+    public void dump(String prefix, FileDescriptor fd, PrintWriter writer, String[] args) {
+        super.dump(prefix, fd, writer, args);
+        MetricsActivity.dumpMetrics(prefix, writer);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (repository != null) {
+            repository.removeFailureListener(storeFailureListener);
+        }
+        if (productRecyclerView != null) {
+            // Detaching stops the adapter following the shared table
+            productRecyclerView.setAdapter(null);
+        }
+        if (settings != null) {
+            settings.removeChangeListener(settingsListener);
+        }
+    }
+
+    // Cheap when the day is unchanged; on a new day only rows crossing a
+    // status threshold are reclassified
+    private final BroadcastReceiver dayChangeReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            if (repository.isLoaded() && adapter.refresh(table)) {
+                updateProductCount();
+                Log.d(TAG, "Day changed, list refreshed");
+            }
+        }
+    };
+
+    // Retitles the list only when the name really changed
+    private final AppSettings.ChangeListener settingsListener = new AppSettings.ChangeListener() {
+        @Override
+        public void onSettingChanged(String key) {
+            if (AppSettings.KEY_USER_NAME.equals(key)) {
+                updateTitle();
+            }
+        }
+    };
 }
\ No newline at end of file
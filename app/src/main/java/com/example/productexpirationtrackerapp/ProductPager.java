@@ -0,0 +1,330 @@
+package com.example.productexpirationtrackerapp;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+// Builds row models a page at a time around the visible window instead of for
+// the whole inventory. Pages are built on a background thread, prefetched in
+// the scroll direction and evicted least-recently-used once more than
+// MAX_PAGES are held, so the number of live models stays bounded.
+// Rows come straight from the live table by list position: only the rows of
+// the requested page are copied on the main thread. When rows move, the held
+// models are matched to their new positions by row, and only the gaps are
+// built again; a page built while the table changed is matched the same way,
+// so a stream of changes cannot keep it from ever being shown. A filtered
+// list is shown from a snapshot instead.
+// Call from the main thread; listener callbacks arrive on the main executor.
+public class ProductPager {
+
+    public interface Listener {
+        void onPageLoaded(int startPosition, int count);
+    }
+
+    public static final int PAGE_SIZE = 50;
+
+    private static final int MAX_PAGES = 16;
+    private static final int PREFETCH_PAGES = 2;
+
+    private static final ExecutorService PAGE_EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "row-pages");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final ProductRowModelFactory factory;
+    private final Executor mainExecutor;
+    private final Listener listener;
+
+    // Page index -> models, in access order for LRU eviction
+    private final LinkedHashMap<Integer, ProductRowModel[]> pages =
+            new LinkedHashMap<Integer, ProductRowModel[]>(MAX_PAGES, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, ProductRowModel[]> eldest) {
+                    return size() > MAX_PAGES;
+                }
+            };
+    private final HashSet<Integer> pending = new HashSet<>();
+    // Held pages with gaps left by moved rows, built again when next shown
+    private final HashSet<Integer> incomplete = new HashSet<>();
+    // Rows moved since the held pages were last matched to their positions
+    private boolean moved;
+
+    // Exactly one of the two is shown
+    private ProductTable table;
+    private ProductSnapshot snapshot;
+    private int today;
+    private int generation;
+    private int lastPosition;
+
+    public ProductPager(ProductRowModelFactory factory, Executor mainExecutor, Listener listener) {
+        this.factory = factory;
+        this.mainExecutor = mainExecutor;
+        this.listener = listener;
+    }
+
+    public ProductRowModelFactory getFactory() {
+        return factory;
+    }
+
+    // Switches to the live rows of a table. Pages built for it ahead of time,
+    // keyed by page index, are installed straight away so visible rows never
+    // blank out.
+    public void setTable(ProductTable table, int today, Map<Integer, ProductRowModel[]> prebuilt) {
+        reset(table, null, today, prebuilt);
+    }
+
+    // Switches to a snapshot, with pages built for it ahead of time
+    public void setSnapshot(ProductSnapshot snapshot, int today, Map<Integer, ProductRowModel[]> prebuilt) {
+        reset(null, snapshot, today, prebuilt);
+    }
+
+    private void reset(ProductTable table, ProductSnapshot snapshot, int today,
+                       Map<Integer, ProductRowModel[]> prebuilt) {
+        this.table = table;
+        this.snapshot = snapshot;
+        this.today = today;
+        generation++;
+        pages.clear();
+        pending.clear();
+        incomplete.clear();
+        moved = false;
+        if (prebuilt != null) {
+            pages.putAll(prebuilt);
+        }
+    }
+
+    public int size() {
+        if (table != null) {
+            return table.size();
+        }
+        return snapshot != null ? snapshot.size() : 0;
+    }
+
+    // Model at the position, or null while its page is still loading
+    public ProductRowModel get(int position) {
+        rematch();
+        int page = position / PAGE_SIZE;
+        ProductRowModel[] models = pages.get(page);
+
+        // Prefetch ahead of the scroll direction
+        int step = position >= lastPosition ? 1 : -1;
+        lastPosition = position;
+        for (int i = 1; i <= PREFETCH_PAGES; i++) {
+            request(page + step * i);
+        }
+
+        int index = position - page * PAGE_SIZE;
+        ProductRowModel model = models != null && index < models.length ? models[index] : null;
+        if (model == null) {
+            request(page);
+        }
+        return model;
+    }
+
+    // Live table rows were inserted or removed. Held models are matched to
+    // their new positions on the next access, once per burst of changes.
+    public void onRowsMoved() {
+        moved = true;
+    }
+
+    // Replaces the model shown at a position of the live table, if its page is held
+    public void put(int position, ProductRowModel model) {
+        rematch();
+        ProductRowModel[] models = pages.get(position / PAGE_SIZE);
+        if (models != null && position % PAGE_SIZE < models.length) {
+            models[position % PAGE_SIZE] = model;
+        }
+    }
+
+    // Rebuilds each held page from the models of the rows now at its
+    // positions. O(held models * log n), however many rows moved.
+    private void rematch() {
+        if (!moved) {
+            return;
+        }
+        moved = false;
+        HashMap<Integer, ProductRowModel> byRow = new HashMap<>();
+        for (ProductRowModel[] models : pages.values()) {
+            for (ProductRowModel model : models) {
+                if (model != null) {
+                    byRow.put(model.getRow(), model);
+                }
+            }
+        }
+        int size = table.size();
+        Iterator<Map.Entry<Integer, ProductRowModel[]>> entries = pages.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<Integer, ProductRowModel[]> entry = entries.next();
+            int start = entry.getKey() * PAGE_SIZE;
+            if (start >= size) {
+                entries.remove();
+                continue;
+            }
+            ProductRowModel[] models = new ProductRowModel[Math.min(PAGE_SIZE, size - start)];
+            for (int i = 0; i < models.length; i++) {
+                int row = table.rowAt(start + i);
+                ProductRowModel model = byRow.get(row);
+                // A reused row holds another product now
+                if (model != null && model.getId() == table.getId(row)) {
+                    models[i] = model;
+                } else {
+                    incomplete.add(entry.getKey());
+                }
+            }
+            entry.setValue(models);
+        }
+    }
+
+    // Fills the page from models built before the table last changed, taking
+    // each position from the held model or the built one of the row now there,
+    // as long as it still shows that product as it is. Positions neither has
+    // are left for the next request. Null if the page is past the end now.
+    private ProductRowModel[] place(int page, ProductRowModel[] built) {
+        rematch();
+        int start = page * PAGE_SIZE;
+        int size = table.size();
+        if (start >= size) {
+            pages.remove(page);
+            incomplete.remove(page);
+            return null;
+        }
+        HashMap<Integer, ProductRowModel> byRow = new HashMap<>();
+        for (ProductRowModel model : built) {
+            byRow.put(model.getRow(), model);
+        }
+        ProductRowModel[] held = pages.get(page);
+        ProductRowModel[] models = new ProductRowModel[Math.min(PAGE_SIZE, size - start)];
+        boolean complete = true;
+        for (int i = 0; i < models.length; i++) {
+            int row = table.rowAt(start + i);
+            ProductRowModel model = held != null && i < held.length ? held[i] : null;
+            if (model == null) {
+                model = byRow.get(row);
+                if (model != null && !isCurrent(model, row)) {
+                    model = null;
+                }
+            }
+            models[i] = model;
+            complete &= model != null;
+        }
+        if (complete) {
+            incomplete.remove(page);
+        } else {
+            incomplete.add(page);
+        }
+        return models;
+    }
+
+    // False once the row holds another product, or the product was edited
+    private boolean isCurrent(ProductRowModel model, int row) {
+        return model.getId() == table.getId(row) && model.getExpiryDay() == table.getExpiryDay(row)
+                && model.getName().equals(table.getName(row));
+    }
+
+    // Builds the pages covering [fromPosition, toPosition) of a snapshot.
+    // Runs on any thread, used to prepare pages before a snapshot is shown.
+    public static Map<Integer, ProductRowModel[]> buildPages(ProductRowModelFactory factory,
+                                                               ProductSnapshot snapshot, int today,
+                                                               int fromPosition, int toPosition) {
+        LinkedHashMap<Integer, ProductRowModel[]> built = new LinkedHashMap<>();
+        int from = Math.max(0, fromPosition) / PAGE_SIZE;
+        int to = Math.min(snapshot.size(), toPosition);
+        for (int page = from; page * PAGE_SIZE < to && built.size() < MAX_PAGES; page++) {
+            built.put(page, buildPage(factory, snapshot, 0, today, page));
+        }
+        return built;
+    }
+
+    // Copies the rows of the pages covering [fromPosition, toPosition) of the
+    // table, on the main thread that owns it, for buildCopiedPages() to turn
+    // into models on any thread
+    public static ProductSnapshot copyPages(ProductTable table, int fromPosition, int toPosition) {
+        int first = firstPagePosition(fromPosition);
+        int pageCount = Math.min(MAX_PAGES, (Math.max(first, toPosition) - first + PAGE_SIZE - 1) / PAGE_SIZE);
+        return table.copyRows(first, pageCount * PAGE_SIZE);
+    }
+
+    // Builds the pages held in rows copied by copyPages(table, fromPosition, ...)
+    public static Map<Integer, ProductRowModel[]> buildCopiedPages(ProductRowModelFactory factory,
+                                                                     ProductSnapshot rows, int fromPosition,
+                                                                     int today) {
+        LinkedHashMap<Integer, ProductRowModel[]> built = new LinkedHashMap<>();
+        int first = firstPagePosition(fromPosition);
+        for (int start = 0; start < rows.size(); start += PAGE_SIZE) {
+            int page = (first + start) / PAGE_SIZE;
+            built.put(page, buildPage(factory, rows, first, today, page));
+        }
+        return built;
+    }
+
+    private static int firstPagePosition(int position) {
+        return Math.max(0, position) / PAGE_SIZE * PAGE_SIZE;
+    }
+
+    private void request(final int page) {
+        if (page < 0 || page * PAGE_SIZE >= size() || (pages.containsKey(page) && !incomplete.contains(page))
+                || !pending.add(page)) {
+            return;
+        }
+        final ProductSnapshot rows;
+        final int firstPosition;
+        final int requestVersion;
+        if (table != null) {
+            rows = table.copyRows(page * PAGE_SIZE, PAGE_SIZE);
+            firstPosition = page * PAGE_SIZE;
+            requestVersion = table.getVersion();
+        } else {
+            rows = snapshot;
+            firstPosition = 0;
+            requestVersion = 0;
+        }
+        final int requestToday = today;
+        final int requestGeneration = generation;
+        PAGE_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final ProductRowModel[] models = buildPage(factory, rows, firstPosition, requestToday, page);
+                mainExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        // Dropped if the shown rows were replaced meanwhile
+                        if (requestGeneration != generation) {
+                            return;
+                        }
+                        pending.remove(page);
+                        ProductRowModel[] placed = models;
+                        // The table changed under the copy; its rows may have moved
+                        if (table != null && table.getVersion() != requestVersion) {
+                            placed = place(page, models);
+                            if (placed == null) {
+                                return;
+                            }
+                        } else {
+                            incomplete.remove(page);
+                        }
+                        pages.put(page, placed);
+                        listener.onPageLoaded(page * PAGE_SIZE, placed.length);
+                    }
+                });
+            }
+        });
+    }
+
+    // Models of a page, from rows whose first one is at list position firstPosition
+    private static ProductRowModel[] buildPage(ProductRowModelFactory factory, ProductSnapshot rows,
+                                               int firstPosition, int today, int page) {
+        int start = page * PAGE_SIZE - firstPosition;
+        int end = Math.min(rows.size(), start + PAGE_SIZE);
+        return factory.build(rows, start, end, today);
+    }
+}
@@ -0,0 +1,930 @@
+package com.example.productexpirationtrackerapp;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Process-wide product store. The in-memory state is owned by the main thread;
+// every disk access runs on a single background I/O thread in submission order.
+public class ProductRepository {
+
+    private static final Logger LOG = Logger.getLogger("ProductRepository");
+
+    // Compact once the journal holds more records than this and more than live rows
+    private static final int COMPACTION_MIN_RECORDS = 1024;
+    // Import batches waiting for the main thread; bounds the memory an import holds
+    private static final int MAX_IMPORT_BATCHES_IN_FLIGHT = 2;
+    private static final long TRANSFER_PROGRESS_INTERVAL_MS = 100;
+    // Reclaim tombstoned rows once there are more than this and more than a
+    // quarter of the live rows
+    private static final int RECLAIM_MIN_DELETED = 256;
+    // Insertion order slots a reclaim pass covers per main-thread turn
+    private static final int RECLAIM_SLICE = 4096;
+
+    private static final Metrics.Histogram LOAD_TIME = Metrics.histogram("store.load");
+    private static final Metrics.Histogram WRITE_TIME = Metrics.histogram("store.write");
+    private static final Metrics.Histogram COMPACT_TIME = Metrics.histogram("store.compact");
+    private static final Metrics.Histogram RECLAIM_TIME = Metrics.histogram("store.reclaim");
+    private static final Metrics.Counter WRITE_FAILURES = Metrics.counter("store.write.failures");
+
+    // Told on the main thread. After a failure the store stays closed and
+    // refuses writes until load() succeeds or resetStore() starts over.
+    public interface LoadCallback {
+        void onLoaded(ProductTable table);
+        void onLoadFailed(IOException e);
+    }
+
+    // Told on the main thread after products are loaded, added or deleted
+    public interface ChangeListener {
+        void onProductsChanged(ProductTable table);
+    }
+
+    // Told on the main thread when a journal write or compaction failed. The
+    // store then refuses writes, as after a failed load, until load() opens
+    // it again or resetStore() starts over.
+    public interface FailureListener {
+        void onStoreFailed(IOException e);
+    }
+
+    // Told on the main thread
+    public interface ImportCallback {
+        void onImportProgress(long bytesRead, long totalBytes, int imported, int rejected);
+        void onImportFinished(ProductImporter.Result result);
+        void onImportFailed(IOException e);
+    }
+
+    // Told on the main thread
+    public interface ExportCallback {
+        void onExportProgress(int written, int total);
+        void onExportFinished(int written, boolean cancelled);
+        void onExportFailed(IOException e);
+    }
+
+    private interface JournalWrite {
+        void writeTo(ProductJournal journal) throws IOException;
+    }
+
+    private static ProductRepository instance;
+
+    public static synchronized ProductRepository getInstance(File dir, Executor mainExecutor) {
+        if (instance == null) {
+            instance = new ProductRepository(dir, mainExecutor);
+        }
+        return instance;
+    }
+
+    private final ProductJournal journal;
+    private final Executor mainExecutor;
+    private final ExecutorService ioExecutor;
+    // Bulk imports and exports, kept off the I/O thread so edits stay prompt
+    private final ExecutorService transferExecutor;
+
+    // Main-thread state
+    private ProductTable table = new ProductTable();
+    private final AtomicInteger pendingWrites = new AtomicInteger();
+    private final ArrayList<LoadCallback> pendingCallbacks = new ArrayList<>();
+    private final ArrayList<ChangeListener> changeListeners = new ArrayList<>();
+    private final ArrayList<FailureListener> failureListeners = new ArrayList<>();
+    private long nextId = 1;
+    private boolean loaded;
+    private boolean loading;
+    // Why the last load, or a later write, failed; the files on disk are left untouched
+    private IOException loadFailure;
+    // I/O thread only: set once a write failed, until the journal is opened again
+    private IOException ioFailure;
+    private boolean newStore;
+    private int journalRecords;
+    // Ids of the last delete, restorable by undoDelete() until the next one
+    private long[] undoIds = new long[0];
+    private int undoCount;
+    private boolean reclaimScheduled;
+    // Exports walking the table; reclaim passes wait for them, as they move list slots
+    private int exportsRunning;
+    // Row model last shown for a single product, valid for one table version and day
+    private ProductRowModel cachedModel;
+    private int cachedModelVersion;
+    private int cachedModelDay;
+
+    ProductRepository(File dir, Executor mainExecutor) {
+        this.journal = new ProductJournal(dir);
+        this.mainExecutor = mainExecutor;
+        this.ioExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "product-store");
+                thread.setPriority(Thread.NORM_PRIORITY - 1);
+                return thread;
+            }
+        });
+        this.transferExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "product-transfer");
+                thread.setPriority(Thread.NORM_PRIORITY - 1);
+                return thread;
+            }
+        });
+    }
+
+    // Opens the store on the I/O thread and delivers the products on the main
+    // executor. Later calls are answered from memory; after a failure the next
+    // call tries to open the store again.
+    public void load(final LoadCallback callback) {
+        if (loaded) {
+            mainExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    callback.onLoaded(table);
+                }
+            });
+            return;
+        }
+        pendingCallbacks.add(callback);
+        if (loading) {
+            return;
+        }
+        loading = true;
+        loadFailure = null;
+
+        ioExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final LoadedState state = openJournal();
+                mainExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        onJournalOpened(state);
+                    }
+                });
+            }
+        });
+    }
+
+    public void addChangeListener(ChangeListener listener) {
+        if (!changeListeners.contains(listener)) {
+            changeListeners.add(listener);
+        }
+    }
+
+    public void removeChangeListener(ChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    public void addFailureListener(FailureListener listener) {
+        if (!failureListeners.contains(listener)) {
+            failureListeners.add(listener);
+        }
+    }
+
+    public void removeFailureListener(FailureListener listener) {
+        failureListeners.remove(listener);
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    // Why the store could not be opened or stopped taking writes, or null
+    public IOException getLoadFailure() {
+        return loadFailure;
+    }
+
+    // Gives up on a store that failed to open: its files are renamed aside,
+    // not deleted, and an empty store is opened in their place
+    public void resetStore(LoadCallback callback) {
+        if (loadFailure == null || loading) {
+            throw new IllegalStateException("Product store has not failed");
+        }
+        ioExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    journal.setAside();
+                } catch (IOException e) {
+                    LOG.log(Level.SEVERE, "Failed to set aside product store", e);
+                }
+            }
+        });
+        load(callback);
+    }
+
+    // True when no store existed on disk before this process opened it
+    public boolean isNewStore() {
+        return newStore;
+    }
+
+    public int size() {
+        return table.size();
+    }
+
+    // Live table, read and written on the main thread only
+    public ProductTable getTable() {
+        return table;
+    }
+
+    // Keeps a model the list already built, so a detail screen opened for the
+    // same product shows it as is
+    public void cacheRowModel(ProductRowModel model, int version, int today) {
+        cachedModel = model;
+        cachedModelVersion = version;
+        cachedModelDay = today;
+    }
+
+    // Model of the live product with this id, or null if it no longer exists.
+    // An O(1) id lookup; the cached model is reused while neither the table
+    // nor the day has changed since it was built.
+    public ProductRowModel getRowModel(long id, ProductRowModelFactory factory) {
+        int row = table.findRow(id);
+        if (row == ProductTable.NO_ROW) {
+            return null;
+        }
+        int today = DateService.today();
+        if (cachedModel == null || cachedModel.getId() != id
+                || cachedModelVersion != table.getVersion() || cachedModelDay != today) {
+            cacheRowModel(factory.build(table, row, today), table.getVersion(), today);
+        }
+        return cachedModel;
+    }
+
+    // Whether a product may be given this name. Longer names do not fit a
+    // journal record, so add(), addBatch() and update() refuse them.
+    public static boolean isStorableName(String name) {
+        return ProductJournal.fitsName(name);
+    }
+
+    // Returns the row of the new product
+    public int add(final String name, final int expiryDay) {
+        checkLoaded();
+        checkName(name);
+        final long id = nextId++;
+        int row = table.insert(id, name, expiryDay);
+
+        submitWrite(new JournalWrite() {
+            @Override
+            public void writeTo(ProductJournal journal) throws IOException {
+                journal.appendAdd(id, name, expiryDay);
+            }
+        });
+        notifyChanged();
+        return row;
+    }
+
+    // Adds the products as one journal transaction with a single change
+    // notification. The arrays must not be modified afterwards.
+    public void addBatch(final String[] names, final int[] expiryDays, final int count) {
+        checkLoaded();
+        if (count == 0) {
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            checkName(names[i]);
+        }
+        final long firstId = nextId;
+        nextId += count;
+        table.insertAll(firstId, names, expiryDays, count);
+
+        submitWrite(new JournalWrite() {
+            @Override
+            public void writeTo(ProductJournal journal) throws IOException {
+                journal.appendAddBatch(firstId, names, expiryDays, count);
+            }
+        }, count + 2);
+        notifyChanged();
+    }
+
+    // Streams products from the channel on a background thread and adds them
+    // in batches. Rows committed before a cancel or failure are kept. The
+    // channel is closed when the import ends. Returns the importer so the
+    // caller can cancel it.
+    public ProductImporter importProducts(final FileChannel channel, final long totalBytes,
+                                          final ProductImporter.Format format,
+                                          final ImportCallback callback) {
+        checkLoaded();
+        final ProductImporter importer = new ProductImporter();
+        final Semaphore batchesInFlight = new Semaphore(MAX_IMPORT_BATCHES_IN_FLIGHT);
+
+        transferExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    final ProductImporter.Result result = importer.importChannel(channel, totalBytes, format,
+                            new ProductImporter.Sink() {
+                                @Override
+                                public void commit(String[] names, int[] expiryDays, final int count) {
+                                    final String[] batchNames = Arrays.copyOf(names, count);
+                                    final int[] batchDays = Arrays.copyOf(expiryDays, count);
+                                    batchesInFlight.acquireUninterruptibly();
+                                    mainExecutor.execute(new Runnable() {
+                                        @Override
+                                        public void run() {
+                                            try {
+                                                // Dropped once the store stopped taking writes
+                                                if (loaded) {
+                                                    addBatch(batchNames, batchDays, count);
+                                                }
+                                            } finally {
+                                                batchesInFlight.release();
+                                            }
+                                        }
+                                    });
+                                }
+                            }, new ImportProgress(callback));
+
+                    // Report only once every batch has reached the table
+                    batchesInFlight.acquireUninterruptibly(MAX_IMPORT_BATCHES_IN_FLIGHT);
+                    batchesInFlight.release(MAX_IMPORT_BATCHES_IN_FLIGHT);
+                    mainExecutor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            callback.onImportFinished(result);
+                        }
+                    });
+                } catch (final IOException e) {
+                    LOG.log(Level.WARNING, "Product import failed", e);
+                    mainExecutor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            callback.onImportFailed(e);
+                        }
+                    });
+                } finally {
+                    try {
+                        channel.close();
+                    } catch (IOException e) {
+                        LOG.log(Level.FINE, "Failed to close import source", e);
+                    }
+                }
+            }
+        });
+        return importer;
+    }
+
+    // Writes the products to the channel on a background thread, then closes
+    // it. Rows are copied one chunk per main-thread turn while the writer
+    // waits, so no turn grows with the inventory. A chunk shows its rows as
+    // they are when copied, so edits made meanwhile may reach the export.
+    public void exportProducts(final FileChannel channel, final ProductExporter exporter,
+                               final ExportCallback callback) {
+        checkLoaded();
+        final ProductExporter.Source source = new MainThreadSource(exporter.openSource(table));
+        final int today = DateService.today();
+        exportsRunning++;
+
+        transferExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    final int written = exporter.export(source, today, channel, new ProductExporter.ProgressListener() {
+                        private long lastReport;
+
+                        @Override
+                        public void onProgress(final int written, final int total) {
+                            long now = System.currentTimeMillis();
+                            if (now - lastReport < TRANSFER_PROGRESS_INTERVAL_MS) {
+                                return;
+                            }
+                            lastReport = now;
+                            mainExecutor.execute(new Runnable() {
+                                @Override
+                                public void run() {
+                                    callback.onExportProgress(written, total);
+                                }
+                            });
+                        }
+                    });
+                    mainExecutor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            callback.onExportFinished(written, exporter.isCancelled());
+                        }
+                    });
+                } catch (final IOException e) {
+                    LOG.log(Level.WARNING, "Product export failed", e);
+                    mainExecutor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            callback.onExportFailed(e);
+                        }
+                    });
+                } finally {
+                    try {
+                        channel.close();
+                    } catch (IOException e) {
+                        LOG.log(Level.FINE, "Failed to close export target", e);
+                    }
+                    mainExecutor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            exportsRunning--;
+                            scheduleReclaim();
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    public boolean delete(final long id) {
+        checkLoaded();
+        int row = table.findRow(id);
+        if (row == ProductTable.NO_ROW) {
+            return false;
+        }
+        table.delete(row);
+        undoIds = new long[] {id};
+        undoCount = 1;
+
+        submitWrite(new JournalWrite() {
+            @Override
+            public void writeTo(ProductJournal journal) throws IOException {
+                journal.appendDelete(id);
+            }
+        });
+        notifyChanged();
+        scheduleReclaim();
+        return true;
+    }
+
+    // Deletes the products as one journal transaction with a single change
+    // notification. Unknown and repeated ids are skipped; returns how many
+    // products were deleted.
+    public int deleteAll(long[] ids, int count) {
+        checkLoaded();
+        LongIntHashMap rowsToDelete = new LongIntHashMap(count);
+        int[] rows = new int[count];
+        final long[] deletedIds = new long[count];
+        int found = 0;
+        for (int i = 0; i < count; i++) {
+            long id = ids[i];
+            int row = table.findRow(id);
+            if (row != ProductTable.NO_ROW && rowsToDelete.get(id) == LongIntHashMap.NO_VALUE) {
+                rowsToDelete.put(id, row);
+                rows[found] = row;
+                deletedIds[found++] = id;
+            }
+        }
+        if (found == 0) {
+            return 0;
+        }
+        table.deleteAll(rows, found);
+        undoIds = deletedIds;
+        undoCount = found;
+
+        final int deleted = found;
+        submitWrite(new JournalWrite() {
+            @Override
+            public void writeTo(ProductJournal journal) throws IOException {
+                journal.appendDeleteBatch(deletedIds, deleted);
+            }
+        }, deleted + 2);
+        notifyChanged();
+        scheduleReclaim();
+        return deleted;
+    }
+
+    // Edits the product in place as one journal record. The list sees a single
+    // changed item at the same position. Returns false if the product is gone.
+    public boolean update(final long id, final String name, final int expiryDay) {
+        checkLoaded();
+        checkName(name);
+        int row = table.findRow(id);
+        if (row == ProductTable.NO_ROW) {
+            return false;
+        }
+        if (table.getExpiryDay(row) == expiryDay && table.getName(row).equals(name)) {
+            return true;
+        }
+        table.update(row, name, expiryDay);
+
+        submitWrite(new JournalWrite() {
+            @Override
+            public void writeTo(ProductJournal journal) throws IOException {
+                journal.appendUpdate(id, name, expiryDay);
+            }
+        });
+        notifyChanged();
+        return true;
+    }
+
+    // Whether the last delete can still be undone
+    public boolean canUndoDelete() {
+        return undoCount > 0;
+    }
+
+    // Restores the products of the last delete at their old list positions.
+    // They are journaled again as one batch of adds under their old ids, so a
+    // reload before the next compaction lists them last. Returns how many
+    // products came back.
+    public int undoDelete() {
+        checkLoaded();
+        final long[] ids = new long[undoCount];
+        final String[] names = new String[undoCount];
+        final int[] expiryDays = new int[undoCount];
+        int[] rows = new int[undoCount];
+        int restored = 0;
+        for (int i = 0; i < undoCount; i++) {
+            int row = table.findDeletedRow(undoIds[i]);
+            if (row != ProductTable.NO_ROW) {
+                rows[restored] = row;
+                ids[restored] = undoIds[i];
+                names[restored] = table.getName(row);
+                expiryDays[restored++] = table.getExpiryDay(row);
+            }
+        }
+        table.restoreAll(rows, restored);
+        discardUndo();
+        if (restored == 0) {
+            return 0;
+        }
+
+        final int count = restored;
+        submitWrite(new JournalWrite() {
+            @Override
+            public void writeTo(ProductJournal journal) throws IOException {
+                journal.appendAddBatch(ids, names, expiryDays, count);
+            }
+        }, count + 2);
+        notifyChanged();
+        return count;
+    }
+
+    // Ends the undo window of the last delete; its rows may now be reclaimed
+    public void discardUndo() {
+        if (undoCount > 0) {
+            undoIds = new long[0];
+            undoCount = 0;
+            scheduleReclaim();
+        }
+    }
+
+    // Tombstones cost nothing on the delete path; their rows are freed later by
+    // a pass posted behind the current work on the main thread, which owns the
+    // table. The pass covers RECLAIM_SLICE slots per turn and yields in
+    // between, so frames and input interleave with it however large the table.
+    private void scheduleReclaim() {
+        // Rows still undoable are spared, so they do not count towards a pass
+        int deleted = table.getDeletedCount() - undoCount;
+        if (reclaimScheduled || table.isReclaiming() || exportsRunning > 0
+                || deleted <= RECLAIM_MIN_DELETED || deleted <= table.size() / 4) {
+            return;
+        }
+        reclaimScheduled = true;
+        final ProductTable reclaiming = table;
+        mainExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                reclaimScheduled = false;
+                if (reclaiming != table) {
+                    return;
+                }
+                // An export started meanwhile; it schedules the pass again when done
+                if (exportsRunning > 0) {
+                    return;
+                }
+                int[] keepRows = new int[undoCount];
+                int keepCount = 0;
+                for (int i = 0; i < undoCount; i++) {
+                    int row = table.findDeletedRow(undoIds[i]);
+                    if (row != ProductTable.NO_ROW) {
+                        keepRows[keepCount++] = row;
+                    }
+                }
+                table.beginReclaim(keepRows, keepCount);
+                continueReclaim(reclaiming);
+            }
+        });
+    }
+
+    private void continueReclaim(final ProductTable reclaiming) {
+        // A reload replaced the table; the pass goes with it
+        if (reclaiming != table) {
+            return;
+        }
+        long start = System.nanoTime();
+        boolean finished = table.reclaimStep(RECLAIM_SLICE);
+        RECLAIM_TIME.recordSince(start);
+        if (finished) {
+            // Deletes made during the pass were spared by it
+            scheduleReclaim();
+            return;
+        }
+        mainExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                continueReclaim(reclaiming);
+            }
+        });
+    }
+
+    private void notifyChanged() {
+        for (ChangeListener listener : new ArrayList<>(changeListeners)) {
+            listener.onProductsChanged(table);
+        }
+    }
+
+    // Queues a journal write. Writes queued back to back share a single flush,
+    // so a burst of edits costs one fsync rather than one per record.
+    private void submitWrite(JournalWrite write) {
+        submitWrite(write, 1);
+    }
+
+    private void submitWrite(final JournalWrite write, int records) {
+        pendingWrites.incrementAndGet();
+        ioExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                // Counted down whatever happens, so the last write of a burst always flushes
+                boolean last = pendingWrites.decrementAndGet() == 0;
+                if (ioFailure != null) {
+                    return;
+                }
+                long start = System.nanoTime();
+                try {
+                    write.writeTo(journal);
+                    if (last) {
+                        journal.flush();
+                    }
+                    WRITE_TIME.recordSince(start);
+                } catch (IOException | RuntimeException e) {
+                    failStore("Failed to write product journal", e);
+                }
+            }
+        });
+
+        journalRecords += records;
+        if (journalRecords > COMPACTION_MIN_RECORDS && journalRecords > table.size()) {
+            compact();
+        }
+    }
+
+    // Copies the live rows on the main thread and writes them out behind any
+    // journal writes already queued, so the snapshot matches the journal order.
+    // Names of live rows are renumbered densely; tombstones may hold others.
+    private void compact() {
+        final int count = table.size();
+        final long[] ids = new long[count];
+        final int[] nameIndexes = new int[count];
+        final int[] expiryDays = new int[count];
+        NameDictionary dictionary = table.getNames();
+        int[] indexByNameId = new int[dictionary.getIdLimit()];
+        Arrays.fill(indexByNameId, -1);
+        String[] names = new String[Math.min(count, dictionary.size())];
+        int nameCount = 0;
+        for (int i = 0; i < count; i++) {
+            int row = table.rowAt(i);
+            int nameId = table.getNameId(row);
+            if (indexByNameId[nameId] < 0) {
+                indexByNameId[nameId] = nameCount;
+                names[nameCount++] = dictionary.get(nameId);
+            }
+            ids[i] = table.getId(row);
+            nameIndexes[i] = indexByNameId[nameId];
+            expiryDays[i] = table.getExpiryDay(row);
+        }
+        final String[] snapshotNames = names;
+        final int snapshotNameCount = nameCount;
+        final long snapshotNextId = nextId;
+        journalRecords = 0;
+
+        ioExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (ioFailure != null) {
+                    return;
+                }
+                long start = System.nanoTime();
+                try {
+                    journal.compact(snapshotNextId, ids, nameIndexes, snapshotNames, snapshotNameCount,
+                            expiryDays, count);
+                    COMPACT_TIME.recordSince(start);
+                } catch (IOException | RuntimeException e) {
+                    failStore("Failed to compact product journal", e);
+                }
+            }
+        });
+    }
+
+    // I/O thread. The journal is closed so nothing lands after a record that
+    // may be torn; writes still queued are skipped. The main thread then
+    // refuses writes until the store is opened again.
+    private void failStore(String message, Exception e) {
+        WRITE_FAILURES.increment();
+        LOG.log(Level.SEVERE, message, e);
+        final IOException failure = e instanceof IOException ? (IOException) e : new IOException(message, e);
+        ioFailure = failure;
+        try {
+            journal.close();
+        } catch (IOException closeFailure) {
+            LOG.log(Level.FINE, "Failed to close product journal", closeFailure);
+        }
+        mainExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                onStoreFailed(failure);
+            }
+        });
+    }
+
+    private void onStoreFailed(IOException failure) {
+        if (!loaded) {
+            return;
+        }
+        loaded = false;
+        loadFailure = failure;
+        for (FailureListener listener : new ArrayList<>(failureListeners)) {
+            listener.onStoreFailed(failure);
+        }
+    }
+
+    private LoadedState openJournal() {
+        long start = System.nanoTime();
+        final LoadedState state = new LoadedState();
+        ioFailure = null;
+        state.newStore = !journal.exists();
+        try {
+            journal.open(new ProductJournal.Visitor() {
+                @Override
+                public void onSnapshot(long nextId, int rowCount) {
+                    state.nextId = Math.max(state.nextId, nextId);
+                    state.table = new ProductTable(rowCount);
+                }
+
+                @Override
+                public void onAdd(long id, String name, int expiryDay) {
+                    int row = state.table.findRow(id);
+                    if (row != ProductTable.NO_ROW) {
+                        state.table.delete(row);
+                    }
+                    state.table.insert(id, name, expiryDay);
+                    state.nextId = Math.max(state.nextId, id + 1);
+                }
+
+                @Override
+                public void onDelete(long id) {
+                    int row = state.table.findRow(id);
+                    if (row != ProductTable.NO_ROW) {
+                        state.table.delete(row);
+                    }
+                }
+
+                @Override
+                public void onUpdate(long id, String name, int expiryDay) {
+                    int row = state.table.findRow(id);
+                    if (row != ProductTable.NO_ROW) {
+                        state.table.update(row, name, expiryDay);
+                    }
+                }
+            });
+            // Nothing to undo across a restart
+            state.table.reclaimDeleted(new int[0], 0);
+            state.journalRecords = journal.getRecordCount();
+        } catch (IOException e) {
+            LOG.log(Level.SEVERE, "Failed to open product store", e);
+            state.failure = e;
+        } catch (RuntimeException e) {
+            // Records that pass their checksum but make no sense, e.g. a duplicate id
+            LOG.log(Level.SEVERE, "Product store is inconsistent", e);
+            state.failure = new IOException("Product store is inconsistent", e);
+        }
+        LOAD_TIME.recordSince(start);
+        return state;
+    }
+
+    private void onJournalOpened(LoadedState state) {
+        loading = false;
+        ArrayList<LoadCallback> callbacks = new ArrayList<>(pendingCallbacks);
+        pendingCallbacks.clear();
+        if (state.failure != null) {
+            // Stay unloaded so no write or compaction can replace the files
+            loadFailure = state.failure;
+            for (LoadCallback callback : callbacks) {
+                callback.onLoadFailed(loadFailure);
+            }
+            return;
+        }
+
+        table = state.table;
+        nextId = Math.max(nextId, state.nextId);
+        journalRecords = state.journalRecords;
+        newStore = state.newStore;
+        loaded = true;
+
+        for (LoadCallback callback : callbacks) {
+            callback.onLoaded(table);
+        }
+        notifyChanged();
+    }
+
+    // Checked before the table is touched, so memory never holds a product
+    // the journal cannot
+    private static void checkName(String name) {
+        if (!ProductJournal.fitsName(name)) {
+            throw new IllegalArgumentException("Product name too long");
+        }
+    }
+
+    // Blocks until the disk work queued so far is done. Only for tests: on
+    // the main thread it would stall the UI behind the disk.
+    void awaitIdle() throws InterruptedException {
+        final Semaphore idle = new Semaphore(0);
+        ioExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                idle.release();
+            }
+        });
+        idle.acquire();
+    }
+
+    private void checkLoaded() {
+        if (loadFailure != null) {
+            throw new IllegalStateException("Product store failed to open", loadFailure);
+        }
+        if (!loaded) {
+            throw new IllegalStateException("Product store is not loaded yet");
+        }
+    }
+
+    // Forwards importer progress to the main thread at most every TRANSFER_PROGRESS_INTERVAL_MS
+    private class ImportProgress implements ProductImporter.ProgressListener {
+        private final ImportCallback callback;
+        private long lastReport;
+
+        ImportProgress(ImportCallback callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        public void onProgress(final long bytesRead, final long totalBytes, final int imported, final int rejected) {
+            long now = System.currentTimeMillis();
+            if (now - lastReport < TRANSFER_PROGRESS_INTERVAL_MS && bytesRead < totalBytes) {
+                return;
+            }
+            lastReport = now;
+            mainExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    callback.onImportProgress(bytesRead, totalBytes, imported, rejected);
+                }
+            });
+        }
+    }
+
+    // Fills each export chunk on the main thread, which owns the table, while
+    // the export thread waits for it
+    private class MainThreadSource implements ProductExporter.Source {
+        private final ProductExporter.Source source;
+        private final Semaphore filled = new Semaphore(0);
+        private boolean more;
+        private RuntimeException failure;
+
+        MainThreadSource(ProductExporter.Source source) {
+            this.source = source;
+        }
+
+        @Override
+        public int getTotal() {
+            return source.getTotal();
+        }
+
+        @Override
+        public boolean fill(final ProductExporter.Chunk chunk) {
+            mainExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        more = source.fill(chunk);
+                    } catch (RuntimeException e) {
+                        failure = e;
+                    } finally {
+                        filled.release();
+                    }
+                }
+            });
+            filled.acquireUninterruptibly();
+            if (failure != null) {
+                throw failure;
+            }
+            return more;
+        }
+    }
+
+    // Built on the I/O thread, handed to the main thread once complete
+    private static class LoadedState {
+        ProductTable table = new ProductTable();
+        long nextId = 1;
+        int journalRecords;
+        boolean newStore;
+        IOException failure;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.productexpirationtrackerapp;
+
+// Everything a product row displays, worked out ahead of time so that
+// binding only copies fields into views
+public final class ProductRowModel {
+
+    private final long id;
+    private final int row;
+    private final int expiryDay;
+    private final String icon;
+    private final String name;
+    private final String expiryText;
+    private final String daysLeftText;
+    private final int status;
+    private final int daysLeftTextColor;
+    private final int daysLeftBackgroundColor;
+    private final int indicatorColor;
+    // Text laid out ahead of time by the factory's TextPreparer, or null
+    private final Object preparedText;
+
+    ProductRowModel(long id, int row, int expiryDay, String icon, String name, String expiryText,
+                    String daysLeftText, int status, int daysLeftTextColor,
+                    int daysLeftBackgroundColor, int indicatorColor, Object preparedText) {
+        this.id = id;
+        this.row = row;
+        this.expiryDay = expiryDay;
+        this.icon = icon;
+        this.name = name;
+        this.expiryText = expiryText;
+        this.daysLeftText = daysLeftText;
+        this.status = status;
+        this.daysLeftTextColor = daysLeftTextColor;
+        this.daysLeftBackgroundColor = daysLeftBackgroundColor;
+        this.indicatorColor = indicatorColor;
+        this.preparedText = preparedText;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public int getExpiryDay() {
+        return expiryDay;
+    }
+
+    public String getIcon() {
+        return icon;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getExpiryText() {
+        return expiryText;
+    }
+
+    public String getDaysLeftText() {
+        return daysLeftText;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public int getDaysLeftTextColor() {
+        return daysLeftTextColor;
+    }
+
+    public int getDaysLeftBackgroundColor() {
+        return daysLeftBackgroundColor;
+    }
+
+    public int getIndicatorColor() {
+        return indicatorColor;
+    }
+
+    public Object getPreparedText() {
+        return preparedText;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.productexpirationtrackerapp;
+
+import java.util.HashMap;
+
+// Builds row models from a table snapshot. Pure Java and free of views, so it
+// runs on a background thread; colours are resolved once by the caller.
+public class ProductRowModelFactory {
+
+    // Lays out a row's texts for the views that will show them, on the thread
+    // building the models, so binding does not have to measure them
+    public interface TextPreparer {
+        Object prepare(String icon, String name, String expiryText, String daysLeftText);
+    }
+
+    // Indexed by ExpiryStatus
+    private final int[] daysLeftTextColors;
+    private final int[] daysLeftBackgroundColors;
+    private final int[] indicatorColors;
+    private final TextPreparer textPreparer; // Null if texts are laid out when bound
+    private final ProductIconResolver icons = ProductIconResolver.getInstance();
+
+    public ProductRowModelFactory(int[] daysLeftTextColors, int[] daysLeftBackgroundColors,
+                                  int[] indicatorColors) {
+        this(daysLeftTextColors, daysLeftBackgroundColors, indicatorColors, null);
+    }
+
+    public ProductRowModelFactory(int[] daysLeftTextColors, int[] daysLeftBackgroundColors,
+                                  int[] indicatorColors, TextPreparer textPreparer) {
+        this.daysLeftTextColors = daysLeftTextColors;
+        this.daysLeftBackgroundColors = daysLeftBackgroundColors;
+        this.indicatorColors = indicatorColors;
+        this.textPreparer = textPreparer;
+    }
+
+    // Models for snapshot positions [start, end)
+    public ProductRowModel[] build(ProductSnapshot snapshot, int start, int end, int today) {
+        ProductRowModel[] models = new ProductRowModel[end - start];
+
+        // Strings shared by every row with the same expiry day or days left;
+        // icons are shared by name id for good in the resolver
+        HashMap<Integer, String> expiryTexts = new HashMap<>();
+        HashMap<Integer, String> daysLeftTexts = new HashMap<>();
+
+        for (int i = start; i < end; i++) {
+            String name = snapshot.getName(i);
+            String icon = icons.iconOf(snapshot.getNameId(i), name);
+
+            int expiryDay = snapshot.getExpiryDay(i);
+            String expiryText = expiryTexts.get(expiryDay);
+            if (expiryText == null) {
+                expiryText = expiryTextOf(expiryDay);
+                expiryTexts.put(expiryDay, expiryText);
+            }
+
+            int daysLeft = expiryDay - today;
+            int status = ExpiryStatus.classify(daysLeft);
+            String daysLeftText;
+            if (status == ExpiryStatus.EXPIRED) {
+                daysLeftText = daysLeftTextOf(daysLeft, status);
+            } else {
+                daysLeftText = daysLeftTexts.get(daysLeft);
+                if (daysLeftText == null) {
+                    daysLeftText = daysLeftTextOf(daysLeft, status);
+                    daysLeftTexts.put(daysLeft, daysLeftText);
+                }
+            }
+
+            Object preparedText = textPreparer != null
+                    ? textPreparer.prepare(icon, name, expiryText, daysLeftText) : null;
+            models[i - start] = new ProductRowModel(snapshot.getId(i), snapshot.getRow(i), expiryDay, icon,
+                    name, expiryText, daysLeftText, status, daysLeftTextColors[status],
+                    daysLeftBackgroundColors[status], indicatorColors[status], preparedText);
+        }
+        return models;
+    }
+
+    // Model of one live table row, for screens showing a single product.
+    // Built on the caller's thread, so its texts are not prepared.
+    public ProductRowModel build(ProductTable table, int row, int today) {
+        String name = table.getName(row);
+        int expiryDay = table.getExpiryDay(row);
+        int daysLeft = expiryDay - today;
+        int status = ExpiryStatus.classify(daysLeft);
+        return new ProductRowModel(table.getId(row), row, expiryDay, icons.iconOf(table.getNameId(row), name), name,
+                expiryTextOf(expiryDay), daysLeftTextOf(daysLeft, status), status,
+                daysLeftTextColors[status], daysLeftBackgroundColors[status], indicatorColors[status], null);
+    }
+
+    private static String expiryTextOf(int expiryDay) {
+        return "Expires: " + DateService.formatDisplay(expiryDay);
+    }
+
+    private static String daysLeftTextOf(int daysLeft, int status) {
+        return status == ExpiryStatus.EXPIRED ? "EXPIRED" : daysLeft + " days left";
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.productexpirationtrackerapp;
+
+import java.util.Arrays;
+
+// Filters a snapshot down to the products whose name matches a query, best
+// matches first and list order within equal scores. When the query only
+// extends the previous one over the same snapshot, the previous matches are
+// narrowed instead of searching the whole index and every row again.
+// The work is split in two: match() reads the table's index and runs on the
+// main thread, its cost following the names matched; select() walks the rows
+// of the snapshot and runs on one background thread. The halves share no state.
+public class ProductSearch {
+
+    private static final Metrics.Histogram QUERY_TIME = Metrics.histogram("index.name.query");
+    private static final Metrics.Histogram SELECT_TIME = Metrics.histogram("index.name.select");
+
+    // Names matching a query and their scores, handed from match() to select()
+    public static final class NameMatches {
+        final String[] tokens;
+        final int[] names;
+        final int[] scores;
+        final int count;
+        final int nameCount; // Size of the index when matched; name ids are below it
+
+        NameMatches(String[] tokens, int[] names, int[] scores, int count, int nameCount) {
+            this.tokens = tokens;
+            this.names = names;
+            this.scores = scores;
+            this.count = count;
+            this.nameCount = nameCount;
+        }
+    }
+
+    // match() state, main thread
+    private ProductSnapshot lastSource;
+    private String[] lastTokens = new String[0];
+    private int[] matchedNames = new int[16];
+    private int matchedNameCount;
+    // Score by name id; zero except for the current matches
+    private int[] scores = new int[16];
+    private int[] candidates = new int[16];
+
+    // select() state, background thread: positions in selectedSource of the
+    // last selection, in list order
+    private ProductSnapshot selectedSource;
+    private String[] selectedTokens = new String[0];
+    private int[] matchedPositions = new int[16];
+    private int matchedPositionCount;
+    private int[] rowScores = new int[16]; // Zero outside of select()
+    private int[] ordered = new int[16];
+    private int[] scoreCounts = new int[8];
+
+    // Products of source matching the query; source itself for a blank query.
+    // Both halves on the calling thread, for callers off the main thread.
+    public ProductSnapshot filter(NameSearchIndex index, ProductSnapshot source, String query) {
+        return select(source, match(index, source, query));
+    }
+
+    // Names in the index matching the query, or null for a blank query, which
+    // every product matches. source is the snapshot select() will be given.
+    public NameMatches match(NameSearchIndex index, ProductSnapshot source, String query) {
+        String[] tokens = NameSearchIndex.tokenize(query);
+        if (tokens.length == 0) {
+            reset();
+            return null;
+        }
+        long start = System.nanoTime();
+
+        int names = index.size();
+        if (scores.length < names) {
+            scores = Arrays.copyOf(scores, Math.max(names, scores.length * 2));
+        }
+        if (matchedNames.length < names) {
+            matchedNames = Arrays.copyOf(matchedNames, Math.max(names, matchedNames.length * 2));
+            candidates = new int[matchedNames.length];
+        }
+
+        boolean refine = source == lastSource && NameSearchIndex.narrows(lastTokens, tokens);
+        for (int i = 0; i < matchedNameCount; i++) {
+            scores[matchedNames[i]] = 0;
+        }
+        // A short single-word query is answered exactly by the trie, which beats
+        // re-checking a large previous result name by name
+        if (refine && !NameSearchIndex.isTrieQuery(tokens)) {
+            System.arraycopy(matchedNames, 0, candidates, 0, matchedNameCount);
+            matchedNameCount = index.matchAmong(tokens, candidates, matchedNameCount, scores, matchedNames);
+        } else {
+            matchedNameCount = index.match(tokens, scores, matchedNames);
+        }
+        lastSource = source;
+        lastTokens = tokens;
+
+        int[] matchScores = new int[matchedNameCount];
+        for (int i = 0; i < matchedNameCount; i++) {
+            matchScores[i] = scores[matchedNames[i]];
+        }
+        NameMatches matches = new NameMatches(tokens, Arrays.copyOf(matchedNames, matchedNameCount),
+                matchScores, matchedNameCount, names);
+        QUERY_TIME.recordSince(start);
+        return matches;
+    }
+
+    // Products of source with a matching name, best first; source itself when
+    // matches is null. Narrows the previous selection when it can.
+    public ProductSnapshot select(ProductSnapshot source, NameMatches matches) {
+        if (matches == null) {
+            return source;
+        }
+        long start = System.nanoTime();
+        if (rowScores.length < matches.nameCount) {
+            rowScores = Arrays.copyOf(rowScores, Math.max(matches.nameCount, rowScores.length * 2));
+        }
+        for (int i = 0; i < matches.count; i++) {
+            rowScores[matches.names[i]] = matches.scores[i];
+        }
+
+        // Keep matching rows in list order, counting them per score
+        boolean refine = source == selectedSource && NameSearchIndex.narrows(selectedTokens, matches.tokens);
+        int maxScore = NameSearchIndex.SCORE_PREFIX * matches.tokens.length;
+        if (scoreCounts.length <= maxScore) {
+            scoreCounts = new int[maxScore + 1];
+        }
+        Arrays.fill(scoreCounts, 0);
+        int from = refine ? matchedPositionCount : source.size();
+        if (matchedPositions.length < from) {
+            matchedPositions = Arrays.copyOf(matchedPositions, Math.max(from, matchedPositions.length * 2));
+        }
+        int kept = 0;
+        for (int i = 0; i < from; i++) {
+            int position = refine ? matchedPositions[i] : i;
+            int score = rowScores[source.getNameId(position)];
+            if (score > 0) {
+                matchedPositions[kept++] = position;
+                scoreCounts[score]++;
+            }
+        }
+        matchedPositionCount = kept;
+        selectedSource = source;
+        selectedTokens = matches.tokens;
+
+        // Stable counting sort by descending score
+        if (ordered.length < kept) {
+            ordered = new int[Math.max(kept, ordered.length * 2)];
+        }
+        int offset = 0;
+        for (int score = maxScore; score > 0; score--) {
+            int count = scoreCounts[score];
+            scoreCounts[score] = offset;
+            offset += count;
+        }
+        for (int i = 0; i < kept; i++) {
+            int position = matchedPositions[i];
+            ordered[scoreCounts[rowScores[source.getNameId(position)]]++] = position;
+        }
+        for (int i = 0; i < matches.count; i++) {
+            rowScores[matches.names[i]] = 0;
+        }
+        ProductSnapshot filtered = source.select(ordered, kept);
+        SELECT_TIME.recordSince(start);
+        return filtered;
+    }
+
+    private void reset() {
+        for (int i = 0; i < matchedNameCount; i++) {
+            scores[matchedNames[i]] = 0;
+        }
+        matchedNameCount = 0;
+        lastSource = null;
+        lastTokens = new String[0];
+    }
+}
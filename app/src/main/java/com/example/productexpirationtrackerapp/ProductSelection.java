@@ -0,0 +1,76 @@
+package com.example.productexpirationtrackerapp;
+
+import java.util.Arrays;
+
+// Set of selected product ids for multi-select. Membership is a hash lookup
+// and the ids are also kept densely packed, so toggling a row is O(1) and the
+// whole selection can be handed to the repository as one array.
+// Not thread-safe: used on the main thread.
+public class ProductSelection {
+
+    // Id -> index in ids
+    private LongIntHashMap indexes = new LongIntHashMap(16);
+    private long[] ids = new long[16];
+    private int size;
+
+    public boolean contains(long id) {
+        return indexes.get(id) != LongIntHashMap.NO_VALUE;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Returns false if the id was already selected
+    public boolean add(long id) {
+        if (contains(id)) {
+            return false;
+        }
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        indexes.put(id, size);
+        ids[size++] = id;
+        return true;
+    }
+
+    // Returns false if the id was not selected
+    public boolean remove(long id) {
+        int index = indexes.remove(id);
+        if (index == LongIntHashMap.NO_VALUE) {
+            return false;
+        }
+        // Fill the hole with the last id
+        long last = ids[--size];
+        if (index != size) {
+            ids[index] = last;
+            indexes.put(last, index);
+        }
+        return true;
+    }
+
+    // Returns true if the id is selected afterwards
+    public boolean toggle(long id) {
+        if (remove(id)) {
+            return false;
+        }
+        add(id);
+        return true;
+    }
+
+    public void clear() {
+        if (size > 0) {
+            indexes = new LongIntHashMap(16);
+            size = 0;
+        }
+    }
+
+    // Selected ids in no particular order; only the first size() are valid
+    public long[] getIds() {
+        return ids;
+    }
+}
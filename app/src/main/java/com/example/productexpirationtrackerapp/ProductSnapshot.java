@@ -0,0 +1,97 @@
+package com.example.productexpirationtrackerapp;
+
+import java.util.List;
+
+// Immutable copy of the table, or part of it, in list order, for work done off
+// the main thread
+public final class ProductSnapshot {
+
+    private final long[] ids;
+    private final int[] rows;
+    private final int[] nameIds;
+    private final int[] expiryDays;
+    private final String[] names; // By position, shared with the dictionary
+    private final int version;
+
+    ProductSnapshot(long[] ids, int[] rows, int[] nameIds, int[] expiryDays, String[] names, int version) {
+        this.ids = ids;
+        this.rows = rows;
+        this.nameIds = nameIds;
+        this.expiryDays = expiryDays;
+        this.names = names;
+        this.version = version;
+    }
+
+    // Copies taken one after the other at the same table version, as one.
+    // Runs on any thread.
+    public static ProductSnapshot concat(List<ProductSnapshot> parts) {
+        int size = 0;
+        for (ProductSnapshot part : parts) {
+            size += part.size();
+        }
+        long[] ids = new long[size];
+        int[] rows = new int[size];
+        int[] nameIds = new int[size];
+        int[] expiryDays = new int[size];
+        String[] names = new String[size];
+        int offset = 0;
+        for (ProductSnapshot part : parts) {
+            int length = part.size();
+            System.arraycopy(part.ids, 0, ids, offset, length);
+            System.arraycopy(part.rows, 0, rows, offset, length);
+            System.arraycopy(part.nameIds, 0, nameIds, offset, length);
+            System.arraycopy(part.expiryDays, 0, expiryDays, offset, length);
+            System.arraycopy(part.names, 0, names, offset, length);
+            offset += length;
+        }
+        int version = parts.isEmpty() ? 0 : parts.get(0).version;
+        return new ProductSnapshot(ids, rows, nameIds, expiryDays, names, version);
+    }
+
+    // Snapshot of just the given positions, in the given order
+    public ProductSnapshot select(int[] positions, int count) {
+        long[] selectedIds = new long[count];
+        int[] selectedRows = new int[count];
+        int[] selectedNameIds = new int[count];
+        int[] selectedDays = new int[count];
+        String[] selectedNames = new String[count];
+        for (int i = 0; i < count; i++) {
+            int position = positions[i];
+            selectedIds[i] = ids[position];
+            selectedRows[i] = rows[position];
+            selectedNameIds[i] = nameIds[position];
+            selectedDays[i] = expiryDays[position];
+            selectedNames[i] = names[position];
+        }
+        return new ProductSnapshot(selectedIds, selectedRows, selectedNameIds, selectedDays, selectedNames, version);
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public long getId(int position) {
+        return ids[position];
+    }
+
+    public int getRow(int position) {
+        return rows[position];
+    }
+
+    public int getNameId(int position) {
+        return nameIds[position];
+    }
+
+    public String getName(int position) {
+        return names[position];
+    }
+
+    public int getExpiryDay(int position) {
+        return expiryDays[position];
+    }
+
+    // Table version this snapshot was taken at
+    public int getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,564 @@
+package com.example.productexpirationtrackerapp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// Column store for products. Each product occupies a row whose index stays the
+// same for as long as the product exists; the columns are plain primitive
+// arrays so a scan touches a few contiguous arrays instead of one object per item.
+// A delete only tombstones the row: it drops out of the list and the indexes
+// but keeps its columns, so it can be restored in place until a reclaim pass
+// frees it for reuse. Names live once in a NameDictionary; every row, live or
+// tombstoned, holds a reference to its name until the row is reclaimed.
+// List positions come from a Fenwick tree of live flags over the insertion
+// order, so inserts, deletes, restores and position lookups are all O(log n).
+// Not thread-safe: owned by the main thread, see ProductRepository.
+public class ProductTable {
+
+    // Told synchronously, after the change is made, how list positions moved.
+    // A batch reports runs of adjacent rows, each valid once the earlier ones
+    // have been applied.
+    public interface ListObserver {
+        void onRowsInserted(int position, int count);
+        void onRowsRemoved(int position, int count);
+        void onRowChanged(int position);
+    }
+
+    public static final int NO_ROW = -1;
+
+    private static final byte FLAG_LIVE = 1;
+    private static final byte FLAG_DELETED = 2;
+    // Tombstone spared by the running reclaim pass
+    private static final byte FLAG_KEEP = 4;
+
+    private final NameDictionary names;
+    private final LongIntHashMap rowsById;
+    private final ExpiryIndex expiryIndex = new ExpiryIndex();
+    private final NameSearchIndex searchIndex = new NameSearchIndex();
+
+    // Columns, indexed by row
+    private long[] ids;
+    private int[] nameIds;
+    private int[] expiryDays;
+    private byte[] flags;
+    private int rowCount;
+
+    // Rows freed by reclaim passes, reused by later inserts
+    private int[] freeRows = new int[16];
+    private int freeCount;
+
+    // Live and tombstoned rows in insertion order. A restored row goes back to
+    // its old place; tombstones leave it only when they are reclaimed.
+    private int[] order;
+    private int orderLength;
+    // Slot of each row in order
+    private int[] orderSlots;
+    // Fenwick tree over order, 1 per live slot: node i sums the slots
+    // (i - lowbit(i), i]. Nodes past orderLength are stale and rebuilt on append.
+    private int[] liveTree;
+    private int size;
+    private int deletedCount;
+
+    // Running reclaim pass: slots before reclaimRead are done, and the kept
+    // ones were moved down to below reclaimWrite. -1 while no pass runs.
+    private int reclaimRead = -1;
+    private int reclaimWrite;
+    private int reclaimedInPass;
+
+    // Bumped on every change, lets background work skip rebuilds
+    private int version;
+
+    private final ArrayList<ListObserver> listObservers = new ArrayList<>();
+
+    public ProductTable() {
+        this(16);
+    }
+
+    public ProductTable(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        names = new NameDictionary();
+        rowsById = new LongIntHashMap(capacity);
+        ids = new long[capacity];
+        nameIds = new int[capacity];
+        expiryDays = new int[capacity];
+        flags = new byte[capacity];
+        order = new int[capacity];
+        orderSlots = new int[capacity];
+        liveTree = new int[capacity + 1];
+    }
+
+    // Re-adding the id of a tombstoned product supersedes the tombstone, which
+    // can then no longer be restored
+    public int insert(long id, String name, int expiryDay) {
+        int row = insertRow(id, name, expiryDay);
+        version++;
+        notifyInserted(size - 1, 1);
+        return row;
+    }
+
+    // Appends products with consecutive ids from firstId on as one change
+    public void insertAll(long firstId, String[] names, int[] expiryDays, int count) {
+        int firstPosition = size;
+        try {
+            for (int i = 0; i < count; i++) {
+                insertRow(firstId + i, names[i], expiryDays[i]);
+            }
+        } finally {
+            if (size > firstPosition) {
+                version++;
+                notifyInserted(firstPosition, size - firstPosition);
+            }
+        }
+    }
+
+    private int insertRow(long id, String name, int expiryDay) {
+        int existing = rowsById.get(id);
+        if (existing != LongIntHashMap.NO_VALUE && (flags[existing] & FLAG_LIVE) != 0) {
+            throw new IllegalArgumentException("Duplicate product id " + id);
+        }
+        int row;
+        if (freeCount > 0) {
+            row = freeRows[--freeCount];
+        } else {
+            if (rowCount == ids.length) {
+                growRows(rowCount * 2);
+            }
+            row = rowCount++;
+        }
+
+        ids[row] = id;
+        nameIds[row] = acquireName(name);
+        expiryDays[row] = expiryDay;
+        flags[row] = FLAG_LIVE;
+        rowsById.put(id, row);
+        expiryIndex.add(row, expiryDay);
+
+        appendSlot(row);
+        size++;
+        return row;
+    }
+
+    // Changes the product in place: it keeps its row, id and list position and
+    // only moves between expiry index buckets if its day changed
+    public void update(int row, String name, int expiryDay) {
+        checkLive(row);
+        int oldNameId = nameIds[row];
+        // Acquire first so renaming to the same name keeps it in the dictionary
+        nameIds[row] = acquireName(name);
+        releaseName(oldNameId);
+        expiryIndex.move(row, expiryDays[row], expiryDay);
+        expiryDays[row] = expiryDay;
+        version++;
+        for (int i = 0; i < listObservers.size(); i++) {
+            listObservers.get(i).onRowChanged(positionOf(row));
+        }
+    }
+
+    // Tombstones the row in O(log n)
+    public void delete(int row) {
+        checkLive(row);
+        int position = listObservers.isEmpty() ? -1 : positionOf(row);
+        tombstone(row);
+        expiryIndex.remove(row, expiryDays[row]);
+        size--;
+        deletedCount++;
+        version++;
+        for (int i = 0; i < listObservers.size(); i++) {
+            listObservers.get(i).onRowsRemoved(position, 1);
+        }
+    }
+
+    // Tombstones the given distinct rows as one change: the expiry index is
+    // updated in a single pass and the version moves once
+    public void deleteAll(int[] rows, int count) {
+        for (int i = 0; i < count; i++) {
+            checkLive(rows[i]);
+        }
+        if (count == 0) {
+            return;
+        }
+        int[] positions = listObservers.isEmpty() ? null : positionsOf(rows, count);
+        int[] deletedDays = new int[count];
+        for (int i = 0; i < count; i++) {
+            int row = rows[i];
+            tombstone(row);
+            deletedDays[i] = expiryDays[row];
+        }
+        expiryIndex.removeAll(rows, deletedDays, count);
+        size -= count;
+        deletedCount += count;
+        version++;
+        if (positions != null) {
+            // Last run first, so the earlier positions still hold
+            int end = count;
+            while (end > 0) {
+                int start = runStart(positions, end);
+                for (int i = 0; i < listObservers.size(); i++) {
+                    listObservers.get(i).onRowsRemoved(positions[start], end - start);
+                }
+                end = start;
+            }
+        }
+    }
+
+    // Brings a tombstoned row back at its old list position
+    public void restore(int row) {
+        if (!isRestorable(row)) {
+            throw new IllegalArgumentException("No deleted product at row " + row);
+        }
+        flags[row] = FLAG_LIVE;
+        treeAdd(orderSlots[row], 1);
+        expiryIndex.add(row, expiryDays[row]);
+        size++;
+        deletedCount--;
+        version++;
+        for (int i = 0; i < listObservers.size(); i++) {
+            listObservers.get(i).onRowsInserted(positionOf(row), 1);
+        }
+    }
+
+    // Restores the given distinct tombstoned rows as one change
+    public void restoreAll(int[] rows, int count) {
+        for (int i = 0; i < count; i++) {
+            if (!isRestorable(rows[i])) {
+                throw new IllegalArgumentException("No deleted product at row " + rows[i]);
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            int row = rows[i];
+            flags[row] = FLAG_LIVE;
+            treeAdd(orderSlots[row], 1);
+            expiryIndex.add(row, expiryDays[row]);
+        }
+        size += count;
+        deletedCount -= count;
+        version++;
+        if (!listObservers.isEmpty()) {
+            // First run first, each at its final position
+            int[] positions = positionsOf(rows, count);
+            int start = 0;
+            while (start < count) {
+                int end = start + 1;
+                while (end < count && positions[end] == positions[end - 1] + 1) {
+                    end++;
+                }
+                for (int i = 0; i < listObservers.size(); i++) {
+                    listObservers.get(i).onRowsInserted(positions[start], end - start);
+                }
+                start = end;
+            }
+        }
+    }
+
+    // Frees every tombstone except the given rows, which stay restorable, in
+    // one go. Returns how many rows were reclaimed.
+    public int reclaimDeleted(int[] keepRows, int keepCount) {
+        if (deletedCount == 0) {
+            return 0;
+        }
+        beginReclaim(keepRows, keepCount);
+        reclaimStep(Integer.MAX_VALUE);
+        return reclaimedInPass;
+    }
+
+    // Starts a pass freeing every tombstone except the given rows, which stay
+    // restorable. The pass advances through reclaimStep() and the table stays
+    // fully usable in between; rows deleted ahead of it are spared until the
+    // next pass. The list itself does not change.
+    public void beginReclaim(int[] keepRows, int keepCount) {
+        if (reclaimRead >= 0) {
+            throw new IllegalStateException("Reclaim pass already running");
+        }
+        for (int i = 0; i < keepCount; i++) {
+            if (isRestorable(keepRows[i])) {
+                flags[keepRows[i]] |= FLAG_KEEP;
+            }
+        }
+        if (freeCount + deletedCount > freeRows.length) {
+            freeRows = Arrays.copyOf(freeRows, Math.max(freeCount + deletedCount, freeRows.length * 2));
+        }
+        reclaimRead = 0;
+        reclaimWrite = 0;
+        reclaimedInPass = 0;
+    }
+
+    // Moves the running pass over at most maxSlots slots of the insertion
+    // order, each O(log n). Returns true once the pass is over.
+    public boolean reclaimStep(int maxSlots) {
+        if (reclaimRead < 0) {
+            return true;
+        }
+        int end = (int) Math.min((long) reclaimRead + maxSlots, orderLength);
+        for (; reclaimRead < end; reclaimRead++) {
+            int row = order[reclaimRead];
+            byte rowFlags = flags[row];
+            if ((rowFlags & FLAG_DELETED) != 0 && (rowFlags & FLAG_KEEP) == 0) {
+                if (rowsById.get(ids[row]) == row) {
+                    rowsById.remove(ids[row]);
+                }
+                releaseName(nameIds[row]);
+                flags[row] = 0;
+                freeRows[freeCount++] = row;
+                deletedCount--;
+                reclaimedInPass++;
+            } else {
+                flags[row] = (byte) (rowFlags & ~FLAG_KEEP);
+                if (reclaimWrite != reclaimRead) {
+                    order[reclaimWrite] = row;
+                    orderSlots[row] = reclaimWrite;
+                    if ((rowFlags & FLAG_LIVE) != 0) {
+                        treeAdd(reclaimRead, -1);
+                        treeAdd(reclaimWrite, 1);
+                    }
+                }
+                reclaimWrite++;
+            }
+        }
+        if (reclaimRead < orderLength) {
+            return false;
+        }
+        orderLength = reclaimWrite;
+        reclaimRead = -1;
+        return true;
+    }
+
+    public boolean isReclaiming() {
+        return reclaimRead >= 0;
+    }
+
+    // Row of the live product with this id, or NO_ROW
+    public int findRow(long id) {
+        int row = rowsById.get(id);
+        return row != LongIntHashMap.NO_VALUE && (flags[row] & FLAG_LIVE) != 0 ? row : NO_ROW;
+    }
+
+    // Tombstoned row of the deleted product with this id, or NO_ROW once it
+    // has been reclaimed or superseded
+    public int findDeletedRow(long id) {
+        int row = rowsById.get(id);
+        return row != LongIntHashMap.NO_VALUE && (flags[row] & FLAG_DELETED) != 0 ? row : NO_ROW;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Tombstones not yet reclaimed
+    public int getDeletedCount() {
+        return deletedCount;
+    }
+
+    // Row shown at the given list position, in O(log n)
+    public int rowAt(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("position " + position + ", size " + size);
+        }
+        return order[selectSlot(position)];
+    }
+
+    // List position of a live row, or -1, in O(log n)
+    public int positionOf(int row) {
+        return isLive(row) ? liveBefore(orderSlots[row]) : -1;
+    }
+
+    // Length of the insertion order, tombstones included. Slots hold still
+    // until the next reclaim pass begins.
+    public int getSlotCount() {
+        return orderLength;
+    }
+
+    // Live row in the given slot of the insertion order, or NO_ROW
+    public int rowAtSlot(int slot) {
+        int row = order[slot];
+        return (flags[row] & FLAG_LIVE) != 0 && orderSlots[row] == slot ? row : NO_ROW;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public void addListObserver(ListObserver observer) {
+        listObservers.add(observer);
+    }
+
+    public void removeListObserver(ListObserver observer) {
+        listObservers.remove(observer);
+    }
+
+    // Copies the live rows in list order for a background pass
+    public ProductSnapshot snapshot() {
+        return copyRows(0, size);
+    }
+
+    // Copies up to count live rows in list order, from the given position on.
+    // O(log n + count), plus any tombstones lying in between.
+    public ProductSnapshot copyRows(int fromPosition, int count) {
+        int length = Math.max(0, Math.min(size - fromPosition, count));
+        long[] copiedIds = new long[length];
+        int[] copiedRows = new int[length];
+        int[] copiedNameIds = new int[length];
+        int[] copiedDays = new int[length];
+        String[] copiedNames = new String[length];
+        int slot = length > 0 ? selectSlot(fromPosition) : orderLength;
+        for (int i = 0; i < length; slot++) {
+            int row = order[slot];
+            // A running reclaim pass leaves stale copies between its two cursors
+            if ((flags[row] & FLAG_LIVE) == 0 || orderSlots[row] != slot) {
+                continue;
+            }
+            copiedRows[i] = row;
+            copiedIds[i] = ids[row];
+            copiedNameIds[i] = nameIds[row];
+            copiedNames[i] = names.get(nameIds[row]);
+            copiedDays[i++] = expiryDays[row];
+        }
+        return new ProductSnapshot(copiedIds, copiedRows, copiedNameIds, copiedDays, copiedNames, version);
+    }
+
+    public boolean isLive(int row) {
+        return row >= 0 && row < rowCount && (flags[row] & FLAG_LIVE) != 0;
+    }
+
+    private boolean isRestorable(int row) {
+        return row >= 0 && row < rowCount && (flags[row] & FLAG_DELETED) != 0
+                && rowsById.get(ids[row]) == row;
+    }
+
+    public long getId(int row) {
+        return ids[row];
+    }
+
+    public int getNameId(int row) {
+        return nameIds[row];
+    }
+
+    public String getName(int row) {
+        return names.get(nameIds[row]);
+    }
+
+    public int getExpiryDay(int row) {
+        return expiryDays[row];
+    }
+
+    public NameDictionary getNames() {
+        return names;
+    }
+
+    // Words of every name in the dictionary, kept in step with it
+    public NameSearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+
+    // Live rows by expiry day, maintained on every change to the table
+    public ExpiryIndex getExpiryIndex() {
+        return expiryIndex;
+    }
+
+    private int acquireName(String name) {
+        int nameId = names.acquire(name);
+        if (names.getRefCount(nameId) == 1) {
+            searchIndex.add(nameId, name);
+        }
+        return nameId;
+    }
+
+    private void releaseName(int nameId) {
+        if (names.release(nameId)) {
+            searchIndex.remove(nameId);
+        }
+    }
+
+    private void notifyInserted(int position, int count) {
+        for (int i = 0; i < listObservers.size(); i++) {
+            listObservers.get(i).onRowsInserted(position, count);
+        }
+    }
+
+    // Current positions of live rows, sorted
+    private int[] positionsOf(int[] rows, int count) {
+        int[] positions = new int[count];
+        for (int i = 0; i < count; i++) {
+            positions[i] = positionOf(rows[i]);
+        }
+        Arrays.sort(positions);
+        return positions;
+    }
+
+    // Start of the run of consecutive positions ending just before end
+    private static int runStart(int[] positions, int end) {
+        int start = end - 1;
+        while (start > 0 && positions[start - 1] == positions[start] - 1) {
+            start--;
+        }
+        return start;
+    }
+
+    private void tombstone(int row) {
+        flags[row] = FLAG_DELETED;
+        int slot = orderSlots[row];
+        // The running pass has yet to reach it, so its undo window may still be open
+        if (reclaimRead >= 0 && slot >= reclaimRead) {
+            flags[row] |= FLAG_KEEP;
+        }
+        treeAdd(slot, -1);
+    }
+
+    // Appends a live row to the order. Its tree node is recomputed from the
+    // prefix sums, since it may be left over from before a reclaim pass.
+    private void appendSlot(int row) {
+        if (orderLength == order.length) {
+            order = Arrays.copyOf(order, orderLength * 2);
+            liveTree = Arrays.copyOf(liveTree, orderLength * 2 + 1);
+        }
+        int slot = orderLength++;
+        order[slot] = row;
+        orderSlots[row] = slot;
+        int node = slot + 1;
+        liveTree[node] = 1 + liveBefore(slot) - liveBefore(node - (node & -node));
+    }
+
+    private void treeAdd(int slot, int delta) {
+        for (int node = slot + 1; node <= orderLength; node += node & -node) {
+            liveTree[node] += delta;
+        }
+    }
+
+    // Live slots before the given one
+    private int liveBefore(int slot) {
+        int count = 0;
+        for (int node = slot; node > 0; node -= node & -node) {
+            count += liveTree[node];
+        }
+        return count;
+    }
+
+    // Slot holding the live row at the given list position
+    private int selectSlot(int position) {
+        int node = 0;
+        for (int step = Integer.highestOneBit(orderLength); step > 0; step >>= 1) {
+            int next = node + step;
+            if (next <= orderLength && liveTree[next] <= position) {
+                node = next;
+                position -= liveTree[next];
+            }
+        }
+        return node;
+    }
+
+    private void growRows(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        nameIds = Arrays.copyOf(nameIds, capacity);
+        expiryDays = Arrays.copyOf(expiryDays, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        orderSlots = Arrays.copyOf(orderSlots, capacity);
+    }
+
+    private void checkLive(int row) {
+        if (!isLive(row)) {
+            throw new IllegalArgumentException("No product at row " + row);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.productexpirationtrackerapp;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.TextView;
+
+import androidx.core.text.PrecomputedTextCompat;
+import androidx.core.widget.TextViewCompat;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Lays out product row texts (emoji icon, name, expiry and days-left labels)
+// with PrecomputedText on whichever background thread builds the row models,
+// so a bind only attaches finished layouts instead of measuring glyphs on the
+// UI thread. Text metrics are taken from the item_product views once per
+// configuration: a font-scale, locale or density change makes a new instance,
+// and layouts made by an older one are never attached. Labels repeat across
+// rows, so layouts are also shared through a small LRU keyed by text.
+public class RowTextPrecomputer implements ProductRowModelFactory.TextPreparer {
+
+    private static final int CACHE_SIZE = 512;
+
+    private static final Metrics.Histogram PRECOMPUTE_TIME = Metrics.histogram("list.text_precompute");
+
+    // One row's layouts, kept in ProductRowModel.getPreparedText()
+    public static final class RowText {
+        final RowTextPrecomputer owner;
+        final PrecomputedTextCompat icon;
+        final PrecomputedTextCompat name;
+        final PrecomputedTextCompat expiry;
+        final PrecomputedTextCompat daysLeft;
+
+        RowText(RowTextPrecomputer owner, PrecomputedTextCompat icon, PrecomputedTextCompat name,
+                PrecomputedTextCompat expiry, PrecomputedTextCompat daysLeft) {
+            this.owner = owner;
+            this.icon = icon;
+            this.name = name;
+            this.expiry = expiry;
+            this.daysLeft = daysLeft;
+        }
+    }
+
+    private static RowTextPrecomputer instance;
+
+    // Precomputer for the context's current configuration, replaced when it changes
+    public static synchronized RowTextPrecomputer getInstance(Context context) {
+        String key = configurationKey(context.getResources().getConfiguration());
+        if (instance == null || !instance.configurationKey.equals(key)) {
+            instance = new RowTextPrecomputer(context, key);
+        }
+        return instance;
+    }
+
+    private final String configurationKey;
+    private final PrecomputedTextCompat.Params iconParams;
+    private final PrecomputedTextCompat.Params nameParams;
+    private final PrecomputedTextCompat.Params expiryParams;
+    private final PrecomputedTextCompat.Params daysLeftParams;
+
+    // One cache per view, since the same text lays out differently in each
+    private final LinkedHashMap<String, PrecomputedTextCompat> iconCache = newCache();
+    private final LinkedHashMap<String, PrecomputedTextCompat> nameCache = newCache();
+    private final LinkedHashMap<String, PrecomputedTextCompat> expiryCache = newCache();
+    private final LinkedHashMap<String, PrecomputedTextCompat> daysLeftCache = newCache();
+
+    private RowTextPrecomputer(Context context, String configurationKey) {
+        this.configurationKey = configurationKey;
+        // Metrics have to match the row views exactly, so read them off a real row
+        View row = LayoutInflater.from(context).inflate(R.layout.item_product, null, false);
+        iconParams = paramsOf(row, R.id.productIcon);
+        nameParams = paramsOf(row, R.id.productName);
+        expiryParams = paramsOf(row, R.id.productExpiry);
+        daysLeftParams = paramsOf(row, R.id.productDaysLeft);
+    }
+
+    @Override
+    public Object prepare(String icon, String name, String expiryText, String daysLeftText) {
+        long start = System.nanoTime();
+        RowText text = new RowText(this,
+                layout(iconCache, icon, iconParams),
+                layout(nameCache, name, nameParams),
+                layout(expiryCache, expiryText, expiryParams),
+                layout(daysLeftCache, daysLeftText, daysLeftParams));
+        PRECOMPUTE_TIME.recordSince(start);
+        return text;
+    }
+
+    // True if the row's views measure text the way the layouts were made for;
+    // checked once per view holder, attaching mismatched layouts would throw
+    public boolean matches(TextView icon, TextView name, TextView expiry, TextView daysLeft) {
+        return iconParams.equals(TextViewCompat.getTextMetricsParams(icon))
+                && nameParams.equals(TextViewCompat.getTextMetricsParams(name))
+                && expiryParams.equals(TextViewCompat.getTextMetricsParams(expiry))
+                && daysLeftParams.equals(TextViewCompat.getTextMetricsParams(daysLeft));
+    }
+
+    // Layouts of a model if this precomputer made them, otherwise null
+    public RowText textOf(ProductRowModel model) {
+        Object prepared = model.getPreparedText();
+        if (prepared instanceof RowText && ((RowText) prepared).owner == this) {
+            return (RowText) prepared;
+        }
+        return null;
+    }
+
+    private static PrecomputedTextCompat layout(LinkedHashMap<String, PrecomputedTextCompat> layouts,
+                                                String text, PrecomputedTextCompat.Params params) {
+        synchronized (layouts) {
+            PrecomputedTextCompat layout = layouts.get(text);
+            if (layout != null) {
+                return layout;
+            }
+        }
+        PrecomputedTextCompat layout = PrecomputedTextCompat.create(text, params);
+        synchronized (layouts) {
+            layouts.put(text, layout);
+        }
+        return layout;
+    }
+
+    private static LinkedHashMap<String, PrecomputedTextCompat> newCache() {
+        return new LinkedHashMap<String, PrecomputedTextCompat>(CACHE_SIZE, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PrecomputedTextCompat> eldest) {
+                return size() > CACHE_SIZE;
+            }
+        };
+    }
+
+    private static PrecomputedTextCompat.Params paramsOf(View row, int viewId) {
+        return TextViewCompat.getTextMetricsParams((TextView) row.findViewById(viewId));
+    }
+
+    private static String configurationKey(Configuration configuration) {
+        return configuration.fontScale + "|" + configuration.getLocales().toLanguageTags()
+                + "|" + configuration.densityDpi + "|" + configuration.getLayoutDirection();
+    }
+}
@@ -2,7 +2,6 @@ package com.example.productexpirationtrackerapp;
 
 import androidx.appcompat.app.AppCompatActivity;
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.view.View;
 import android.widget.Button;
@@ -18,14 +17,14 @@ public class SetupActivity extends AppCompatActivity {
     private Switch notificationSwitch;
     private EditText userNameEditText;
     private Button finishButton;
-    private SharedPreferences preferences;
+    private AppSettings settings;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_setup);
 
-        preferences = getSharedPreferences("AppPrefs", MODE_PRIVATE);
+        settings = AppSettings.getInstance(this);
 
         // Initialize views
         themeGroup = findViewById(R.id.themeGroup);
@@ -33,8 +32,13 @@ public class SetupActivity extends AppCompatActivity {
         userNameEditText = findViewById(R.id.userNameEditText);
         finishButton = findViewById(R.id.finishButton);
 
-        // Load saved preferences
-        loadSavedPreferences();
+        // Load saved preferences, the form waits for them if they are still being read
+        settings.whenLoaded(new AppSettings.LoadCallback() {
+            @Override
+            public void onLoaded(AppSettings loadedSettings) {
+                loadSavedPreferences();
+            }
+        });
 
         // Finish button
         finishButton.setOnClickListener(new View.OnClickListener() {
@@ -48,16 +52,16 @@ public class SetupActivity extends AppCompatActivity {
 
     private void loadSavedPreferences() {
         // Load saved theme - WHITE is default
-        String savedTheme = preferences.getString("color_theme", "white");
+        String savedTheme = settings.getColorTheme();
         setThemeSelection(savedTheme);
 
         // Load notification preference
-        boolean notifications = preferences.getBoolean("notifications", true);
+        boolean notifications = settings.isNotificationsEnabled();
         notificationSwitch.setChecked(notifications);
 
         // Load user name
-        String userName = preferences.getString("user_name", "");
-        if (!userName.isEmpty() && !userName.equals("User")) {
+        String userName = settings.getUserName();
+        if (!userName.isEmpty() && !userName.equals(AppSettings.DEFAULT_USER_NAME)) {
             userNameEditText.setText(userName);
         }
     }
@@ -112,26 +116,27 @@ public class SetupActivity extends AppCompatActivity {
     }
 
     private void savePreferences() {
-        SharedPreferences.Editor editor = preferences.edit();
+        AppSettings.Editor editor = settings.edit();
 
         // Save user name
         String userName = userNameEditText.getText().toString().trim();
         if (!userName.isEmpty()) {
-            editor.putString("user_name", userName);
+            editor.putUserName(userName);
         } else {
-            editor.putString("user_name", "User");
+            editor.putUserName(AppSettings.DEFAULT_USER_NAME);
         }
 
         // Save color theme
         String selectedTheme = getSelectedTheme();
-        editor.putString("color_theme", selectedTheme);
+        editor.putColorTheme(selectedTheme);
 
         // Save notification preference
-        editor.putBoolean("notifications", notificationSwitch.isChecked());
+        editor.putNotificationsEnabled(notificationSwitch.isChecked());
 
         // Mark as setup completed
-        editor.putBoolean("setup_completed", true);
+        editor.putSetupCompleted(true);
 
+        // One write for all of them; the expiry alarm follows the notification setting on its own
         editor.apply();
 
         // Show theme selection toast
@@ -0,0 +1,284 @@
+package com.example.productexpirationtrackerapp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// Read-only catalog of common products and their typical shelf life, used to
+// suggest names and fill in the expiry date while a product is typed in.
+//
+// The catalog file is written by the desktop tool ShelfLifeCatalogWriter and
+// read in place from a memory-mapped buffer: opening it only checks the
+// header, and nothing but the items returned is ever copied onto the heap.
+// Layout, big-endian:
+//
+//   header       magic, version, item count, key count, then the offsets of
+//                the four sections below
+//   prefix index 257 ints: first key whose first byte is >= b, for each byte b
+//   keys         key count x (string offset, item index), sorted by key bytes
+//   items        item count x (name offset, emoji offset, shelf life in days
+//                per storage as shorts, default storage, padding)
+//   strings      one length byte followed by UTF-8, offsets relative to here
+//
+// Keys are the lower-cased names and aliases, so a lookup is a binary search
+// inside one first-byte bucket: O(log n) comparisons against the mapped bytes.
+// Safe to use from any thread; reads never move the buffer's position.
+public final class ShelfLifeCatalog {
+
+    public static final int PANTRY = 0;
+    public static final int FRIDGE = 1;
+    public static final int FREEZER = 2;
+    public static final int STORAGE_COUNT = 3;
+
+    // Shelf life of a storage an item is not kept in
+    public static final int NO_SHELF_LIFE = -1;
+
+    static final int MAGIC = 0x50455443; // "PETC"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int PREFIX_INDEX_SIZE = 257;
+    static final int KEY_SIZE = 8;
+    static final int ITEM_SIZE = 16;
+
+    // Keys looked at per query at most, bounds the work for very common prefixes
+    private static final int MAX_SCANNED_KEYS = 256;
+    private static final int CACHE_SIZE = 128;
+
+    private static final Item[] NO_ITEMS = new Item[0];
+
+    private static final Metrics.Histogram SUGGEST_TIME = Metrics.histogram("catalog.suggest");
+
+    public static final class Item {
+        private final String name;
+        private final String emoji;
+        private final int[] shelfLifeDays;
+        private final int defaultStorage;
+
+        Item(String name, String emoji, int[] shelfLifeDays, int defaultStorage) {
+            this.name = name;
+            this.emoji = emoji;
+            this.shelfLifeDays = shelfLifeDays;
+            this.defaultStorage = defaultStorage;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getEmoji() {
+            return emoji;
+        }
+
+        // Name the way products are listed, e.g. "🥛 Milk"
+        public String getDisplayName() {
+            return emoji.isEmpty() ? name : emoji + " " + name;
+        }
+
+        // Days the item typically keeps in the storage, or NO_SHELF_LIFE
+        public int getShelfLifeDays(int storage) {
+            return shelfLifeDays[storage];
+        }
+
+        // Where the item is usually kept; always has a shelf life
+        public int getDefaultStorage() {
+            return defaultStorage;
+        }
+    }
+
+    private final ByteBuffer data;
+    private final int itemCount;
+    private final int keyCount;
+    private final int prefixIndexOffset;
+    private final int keysOffset;
+    private final int itemsOffset;
+    private final int stringsOffset;
+
+    // Recent queries, least recently used dropped first
+    private final LinkedHashMap<String, Item[]> cache =
+            new LinkedHashMap<String, Item[]>(CACHE_SIZE, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Item[]> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            };
+
+    public ShelfLifeCatalog(ByteBuffer data) throws IOException {
+        this.data = data;
+        if (data.capacity() < HEADER_SIZE || data.getInt(0) != MAGIC || data.getInt(4) != VERSION) {
+            throw new IOException("Not a shelf-life catalog");
+        }
+        itemCount = data.getInt(8);
+        keyCount = data.getInt(12);
+        prefixIndexOffset = data.getInt(16);
+        keysOffset = data.getInt(20);
+        itemsOffset = data.getInt(24);
+        stringsOffset = data.getInt(28);
+        if (itemCount < 0 || keyCount < 0
+                || prefixIndexOffset + PREFIX_INDEX_SIZE * 4 > keysOffset
+                || keysOffset + (long) keyCount * KEY_SIZE > itemsOffset
+                || itemsOffset + (long) itemCount * ITEM_SIZE > stringsOffset
+                || stringsOffset > data.capacity()) {
+            throw new IOException("Corrupt shelf-life catalog");
+        }
+    }
+
+    // Maps length bytes of the channel from offset, e.g. an uncompressed asset
+    public static ShelfLifeCatalog map(FileChannel channel, long offset, long length) throws IOException {
+        return new ShelfLifeCatalog(channel.map(FileChannel.MapMode.READ_ONLY, offset, length));
+    }
+
+    public int size() {
+        return itemCount;
+    }
+
+    // Items with a name or alias starting with the text, in key order, each at
+    // most once. Case is ignored, as is anything before the first letter or
+    // digit, so "🥛 mi" finds Milk.
+    public Item[] suggest(String text, int limit) {
+        String key = normalize(text);
+        if (key.isEmpty() || limit <= 0) {
+            return NO_ITEMS;
+        }
+        String cacheKey = limit + ":" + key;
+        synchronized (cache) {
+            Item[] cached = cache.get(cacheKey);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        long start = System.nanoTime();
+        byte[] prefix = key.getBytes(StandardCharsets.UTF_8);
+        int[] itemIndexes = new int[limit];
+        int found = 0;
+        int end = bucketEnd(prefix[0]);
+        int scanLimit = MAX_SCANNED_KEYS;
+        for (int k = lowerBound(prefix); k < end && found < limit && scanLimit-- > 0; k++) {
+            if (!keyStartsWith(k, prefix)) {
+                break;
+            }
+            int itemIndex = data.getInt(keysOffset + k * KEY_SIZE + 4);
+            if (!contains(itemIndexes, found, itemIndex)) {
+                itemIndexes[found++] = itemIndex;
+            }
+        }
+        Item[] items = new Item[found];
+        for (int i = 0; i < found; i++) {
+            items[i] = readItem(itemIndexes[i]);
+        }
+        SUGGEST_TIME.recordSince(start);
+
+        synchronized (cache) {
+            cache.put(cacheKey, items);
+        }
+        return items;
+    }
+
+    // Item whose name or alias is exactly the text, ignoring case, or null
+    public Item find(String text) {
+        Item[] items = suggest(text, 1);
+        if (items.length == 0) {
+            return null;
+        }
+        // The shortest key with the prefix sorts first, so a match is exact only if it is the text
+        byte[] key = normalize(text).getBytes(StandardCharsets.UTF_8);
+        int k = lowerBound(key);
+        return k < keyCount && compareKey(k, key) == 0 ? items[0] : null;
+    }
+
+    // Lower-cased text from its first letter or digit on
+    static String normalize(String text) {
+        int start = 0;
+        while (start < text.length()) {
+            int codePoint = text.codePointAt(start);
+            if (Character.isLetterOrDigit(codePoint)) {
+                break;
+            }
+            start += Character.charCount(codePoint);
+        }
+        return text.substring(start).trim().toLowerCase(Locale.ROOT);
+    }
+
+    // First key >= prefix within the prefix's first-byte bucket
+    private int lowerBound(byte[] prefix) {
+        int low = bucketStart(prefix[0]);
+        int high = bucketEnd(prefix[0]);
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareKey(mid, prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int bucketStart(byte first) {
+        return data.getInt(prefixIndexOffset + (first & 0xFF) * 4);
+    }
+
+    private int bucketEnd(byte first) {
+        return data.getInt(prefixIndexOffset + ((first & 0xFF) + 1) * 4);
+    }
+
+    // Unsigned byte order, i.e. code point order for UTF-8
+    private int compareKey(int k, byte[] other) {
+        int at = stringsOffset + data.getInt(keysOffset + k * KEY_SIZE);
+        int length = data.get(at) & 0xFF;
+        int common = Math.min(length, other.length);
+        for (int i = 0; i < common; i++) {
+            int diff = (data.get(at + 1 + i) & 0xFF) - (other[i] & 0xFF);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return length - other.length;
+    }
+
+    private boolean keyStartsWith(int k, byte[] prefix) {
+        int at = stringsOffset + data.getInt(keysOffset + k * KEY_SIZE);
+        int length = data.get(at) & 0xFF;
+        if (length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (data.get(at + 1 + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Item readItem(int index) {
+        int at = itemsOffset + index * ITEM_SIZE;
+        int[] shelfLifeDays = new int[STORAGE_COUNT];
+        for (int storage = 0; storage < STORAGE_COUNT; storage++) {
+            shelfLifeDays[storage] = data.getShort(at + 8 + storage * 2);
+        }
+        return new Item(readString(data.getInt(at)), readString(data.getInt(at + 4)),
+                shelfLifeDays, data.get(at + 14));
+    }
+
+    private String readString(int offset) {
+        int at = stringsOffset + offset;
+        byte[] bytes = new byte[data.get(at) & 0xFF];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = data.get(at + 1 + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
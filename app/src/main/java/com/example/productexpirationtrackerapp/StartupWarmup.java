@@ -0,0 +1,178 @@
+package com.example.productexpirationtrackerapp;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+// Startup work done behind the splash screen. The product store is opened on
+// its I/O thread (which also builds the expiry and name indexes) while the
+// date formatters warm up here; once the products are in, the first screen of
+// row models is built so the product list can show real rows on its first
+// frame. Call from the main thread; listener callbacks arrive on it too.
+public class StartupWarmup {
+
+    public interface Listener {
+        void onStep(String message);
+        void onFinished();
+    }
+
+    // The first rows of the list, prepared for one table version and day
+    public static final class FirstScreen {
+        public final int today;
+        public final Map<Integer, ProductRowModel[]> pages;
+
+        FirstScreen(int today, Map<Integer, ProductRowModel[]> pages) {
+            this.today = today;
+            this.pages = pages;
+        }
+    }
+
+    // Rows prepared ahead of the first frame: the visible screen and one page more
+    private static final int FIRST_SCREEN_ROWS = 2 * ProductPager.PAGE_SIZE;
+
+    private static final Metrics.Histogram FORMATTER_TIME = Metrics.histogram("startup.formatters");
+    private static final Metrics.Histogram STORE_OPEN_TIME = Metrics.histogram("startup.store_open");
+    private static final Metrics.Histogram FIRST_SCREEN_TIME = Metrics.histogram("startup.first_screen");
+    private static final Metrics.Histogram TOTAL_TIME = Metrics.histogram("startup.total");
+
+    private static final ExecutorService WARMUP_EXECUTOR = Executors.newFixedThreadPool(2, new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "startup-warmup");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private static StartupWarmup instance;
+
+    public static synchronized StartupWarmup getInstance() {
+        if (instance == null) {
+            instance = new StartupWarmup();
+        }
+        return instance;
+    }
+
+    // Main-thread state
+    private Executor mainExecutor;
+    private Listener listener;
+    private boolean started;
+    private boolean finished;
+    private int pendingTasks;
+    private long startNanos;
+
+    private ProductTable preparedTable;
+    private int preparedVersion;
+    private FirstScreen firstScreen;
+
+    // Starts the warm-up once per process; later calls only swap the listener,
+    // which is told straight away if everything is already done
+    public void start(final ProductRepository repository, final ProductRowModelFactory factory,
+                      Executor mainExecutor, Listener listener) {
+        this.listener = listener;
+        if (finished) {
+            listener.onFinished();
+            return;
+        }
+        if (started) {
+            return;
+        }
+        started = true;
+        startNanos = System.nanoTime();
+        this.mainExecutor = mainExecutor;
+        listener.onStep("Loading product database...");
+
+        // Formatter and locale data load lazily and slowly, do it while the store opens
+        pendingTasks = 2;
+        WARMUP_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                long start = System.nanoTime();
+                int today = DateService.today();
+                DateService.formatDisplay(today);
+                DateService.formatStorage(today);
+                FORMATTER_TIME.recordSince(start);
+                finishTask();
+            }
+        });
+
+        repository.load(new ProductRepository.LoadCallback() {
+            @Override
+            public void onLoaded(ProductTable table) {
+                STORE_OPEN_TIME.recordSince(startNanos);
+                step("Checking expiry dates...");
+                final int today = DateService.today();
+                // Only the rows of the first screen are copied
+                final ProductSnapshot rows = ProductPager.copyPages(table, 0, FIRST_SCREEN_ROWS);
+                preparedTable = table;
+                preparedVersion = table.getVersion();
+
+                WARMUP_EXECUTOR.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        long start = System.nanoTime();
+                        final Map<Integer, ProductRowModel[]> pages =
+                                ProductPager.buildCopiedPages(factory, rows, 0, today);
+                        FIRST_SCREEN_TIME.recordSince(start);
+                        StartupWarmup.this.mainExecutor.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                firstScreen = new FirstScreen(today, pages);
+                                step("Almost ready...");
+                                finishTask();
+                            }
+                        });
+                    }
+                });
+            }
+
+            @Override
+            public void onLoadFailed(IOException e) {
+                // Nothing to prepare; the list screen reports the failure
+                STORE_OPEN_TIME.recordSince(startNanos);
+                finishTask();
+            }
+        });
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    // Hands over the prepared first screen if it still matches the table and
+    // day; it is given out once and dropped either way
+    public FirstScreen takeFirstScreen(ProductTable table, int today) {
+        FirstScreen screen = firstScreen;
+        firstScreen = null;
+        if (screen == null || table != preparedTable || table.getVersion() != preparedVersion
+                || today != screen.today) {
+            return null;
+        }
+        return screen;
+    }
+
+    private void step(String message) {
+        if (listener != null) {
+            listener.onStep(message);
+        }
+    }
+
+    // Called on the main thread, or from the warm-up thread for the formatter task
+    private void finishTask() {
+        mainExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (--pendingTasks == 0) {
+                    finished = true;
+                    TOTAL_TIME.recordSince(startNanos);
+                    if (listener != null) {
+                        listener.onFinished();
+                    }
+                }
+            }
+        });
+    }
+}
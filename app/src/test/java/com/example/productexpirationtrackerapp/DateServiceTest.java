@@ -0,0 +1,43 @@
+package com.example.productexpirationtrackerapp;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.junit.Assert.*;
+
+public class DateServiceTest {
+
+    @Test
+    public void byteLevelStorageFormat_matchesLocalDate() {
+        ByteBuffer out = ByteBuffer.allocate(16);
+        LocalDate date = LocalDate.of(1899, 12, 1);
+        for (int i = 0; i < 60000; i++, date = date.plusDays(1)) {
+            byte[] text = date.toString().getBytes(StandardCharsets.US_ASCII);
+            assertEquals(date.toEpochDay(), DateService.parseStorage(text, 0, text.length));
+
+            out.clear();
+            DateService.formatStorage((int) date.toEpochDay(), out);
+            assertEquals(date.toString(), new String(out.array(), 0, out.position(), StandardCharsets.US_ASCII));
+        }
+    }
+
+    @Test
+    public void byteLevelParse_handlesTheStartOfYearZero() {
+        for (String text : new String[] {"0000-01-01", "0000-02-29", "0000-03-01"}) {
+            byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+            assertEquals(LocalDate.parse(text).toEpochDay(), DateService.parseStorage(bytes, 0, bytes.length));
+        }
+    }
+
+    @Test
+    public void byteLevelParse_rejectsImpossibleDates() {
+        String[] invalid = {"2023-02-29", "2024-04-31", "2024-13-01", "2024-00-10", "2024-1-01", "24-01-01x", "abcd-ef-gh"};
+        for (String text : invalid) {
+            byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+            assertEquals(DateService.NO_DATE, DateService.parseStorage(bytes, 0, bytes.length));
+        }
+    }
+}
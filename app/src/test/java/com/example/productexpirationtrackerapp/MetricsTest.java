@@ -0,0 +1,86 @@
+package com.example.productexpirationtrackerapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MetricsTest {
+
+    @Test
+    public void histogram_bucketsArePowersOfTwoMicros() {
+        assertEquals(0, Metrics.Histogram.bucketOf(999));
+        assertEquals(1, Metrics.Histogram.bucketOf(1_000));
+        assertEquals(2, Metrics.Histogram.bucketOf(2_000));
+        assertEquals(2, Metrics.Histogram.bucketOf(3_999));
+        assertEquals(10, Metrics.Histogram.bucketOf(1_000_000)); // 1000 µs, bucket [512, 1024)
+        assertEquals(Metrics.Histogram.BUCKETS - 1, Metrics.Histogram.bucketOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void histogram_reportsPercentilesAsBucketBounds() {
+        Metrics.Histogram histogram = Metrics.histogram("test.percentiles");
+        for (int i = 0; i < 90; i++) {
+            histogram.record(50_000); // 50 µs, bucket [32, 64)
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(5_000_000); // 5 ms, bucket [4096, 8192)
+        }
+
+        Metrics.Snapshot snapshot = histogram.snapshot();
+        assertEquals(100, snapshot.count);
+        assertEquals(64, snapshot.percentileMicros(0.5));
+        assertEquals(64, snapshot.percentileMicros(0.9));
+        // The top bucket reaches 8192 µs but nothing took longer than 5 ms
+        assertEquals(5_000, snapshot.percentileMicros(0.99));
+        assertEquals(5_000, snapshot.maxNanos / 1000);
+        for (double fraction : new double[] {0.5, 0.9, 0.99, 1.0}) {
+            assertTrue(snapshot.percentileMicros(fraction) <= snapshot.maxNanos / 1000);
+        }
+        assertEquals((90 * 50 + 10 * 5_000) / 100, snapshot.meanMicros());
+    }
+
+    @Test
+    public void registry_returnsTheSameMetricForAName() {
+        assertSame(Metrics.counter("test.same"), Metrics.counter("test.same"));
+        assertSame(Metrics.histogram("test.same"), Metrics.histogram("test.same"));
+    }
+
+    @Test
+    public void counter_isExactUnderContention() throws InterruptedException {
+        final Metrics.Counter counter = Metrics.counter("test.contended");
+        final Metrics.Histogram histogram = Metrics.histogram("test.contended");
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 100_000; i++) {
+                        counter.increment();
+                        histogram.record(i);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(400_000, counter.get());
+        assertEquals(400_000, histogram.snapshot().count);
+        assertEquals(99_999, histogram.snapshot().maxNanos);
+    }
+
+    @Test
+    public void dump_listsEveryMetric() {
+        Metrics.counter("test.dump.counter").add(7);
+        Metrics.histogram("test.dump.latency").record(3_000);
+        Metrics.histogram("test.dump.empty");
+
+        String dump = Metrics.dump();
+
+        assertTrue(dump, dump.contains("  test.dump.counter: 7\n"));
+        assertTrue(dump, dump.contains("  test.dump.latency: count=1 mean=3 p50=3 p90=3 p99=3 max=3\n"));
+        assertTrue(dump, dump.contains("  test.dump.empty: no samples\n"));
+    }
+}
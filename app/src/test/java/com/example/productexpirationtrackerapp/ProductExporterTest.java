@@ -0,0 +1,227 @@
+package com.example.productexpirationtrackerapp;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+public class ProductExporterTest {
+
+    private static final int TODAY = 20000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void csv_roundTripsThroughImporter() throws IOException {
+        ProductTable table = new ProductTable();
+        table.insert(1, "🧀 Cheese", TODAY + 10);
+        table.insert(2, "Milk, \"whole\"", TODAY - 1);
+        table.insert(3, " Café ", TODAY + 2);
+
+        File file = export(table, new ProductExporter());
+        final List<String> names = new ArrayList<>();
+        final List<Integer> days = new ArrayList<>();
+        ProductImporter.Result result = new ProductImporter().importFile(file, new ProductImporter.Sink() {
+            @Override
+            public void commit(String[] batchNames, int[] batchDays, int count) {
+                for (int i = 0; i < count; i++) {
+                    names.add(batchNames[i]);
+                    days.add(batchDays[i]);
+                }
+            }
+        }, null);
+
+        assertEquals(3, result.imported);
+        assertEquals("🧀 Cheese", names.get(0));
+        assertEquals("Milk, \"whole\"", names.get(1));
+        assertEquals(TODAY - 1, (int) days.get(1));
+        assertTrue(read(file).startsWith("id,name,expiry,days_left,status\n1,🧀 Cheese,"));
+        assertTrue(read(file).contains(",-1,expired\n"));
+    }
+
+    @Test
+    public void json_escapesNamesAndFiltersByStatusInExpiryOrder() throws IOException {
+        ProductTable table = new ProductTable();
+        table.insert(1, "Fresh fish", TODAY + 30);
+        table.insert(2, "Tab\there \"quoted\"", TODAY + 5);
+        table.insert(3, "Old bread", TODAY - 3);
+        table.insert(4, "Yoghurt", TODAY + 1);
+
+        File file = export(table, new ProductExporter()
+                .setFormat(ProductExporter.Format.JSON)
+                .setOrder(ProductExporter.Order.EXPIRY)
+                .setStatuses((1 << ExpiryStatus.EXPIRING_SOON) | (1 << ExpiryStatus.WARNING)));
+
+        String json = read(file);
+        assertTrue(json.startsWith("[\n{\"id\":4,\"name\":\"Yoghurt\""));
+        assertTrue(json.contains("\"name\":\"Tab\\there \\\"quoted\\\"\""));
+        assertTrue(json.contains("\"days_left\":5,\"status\":\"warning\"}\n]"));
+        assertFalse(json.contains("Fresh fish"));
+        assertFalse(json.contains("Old bread"));
+    }
+
+    @Test
+    public void gzip_withDayRange() throws IOException {
+        ProductTable table = new ProductTable();
+        for (int i = 0; i < 1000; i++) {
+            table.insert(i + 1, "Product " + i, TODAY + i);
+        }
+
+        File file = export(table, new ProductExporter().setGzip(true).setDayRange(TODAY + 100, TODAY + 199));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = new GZIPInputStream(new FileInputStream(file))) {
+            byte[] chunk = new byte[4096];
+            for (int n; (n = in.read(chunk)) > 0; ) {
+                out.write(chunk, 0, n);
+            }
+        }
+        String[] lines = out.toString("UTF-8").split("\n");
+        assertEquals(101, lines.length);
+        assertTrue(lines[1].startsWith("101,Product 100,"));
+    }
+
+    @Test
+    public void failedGzipExport_leavesTheExporterReadyForTheNextRun() throws IOException {
+        ProductTable table = new ProductTable();
+        table.insert(1, "Milk", TODAY + 1);
+        ProductExporter exporter = new ProductExporter().setGzip(true);
+        ProductExporter.Source failing = new ProductExporter.Source() {
+            private boolean filled;
+
+            @Override
+            public int getTotal() {
+                return 2 * ProductExporter.CHUNK_SIZE;
+            }
+
+            @Override
+            public boolean fill(ProductExporter.Chunk chunk) {
+                if (filled) {
+                    throw new IllegalStateException("Table went away");
+                }
+                filled = true;
+                for (int i = 0; i < ProductExporter.CHUNK_SIZE; i++) {
+                    chunk.add(i + 1, "Product " + i, TODAY);
+                }
+                return true;
+            }
+        };
+        try (RandomAccessFile raf = new RandomAccessFile(folder.newFile(), "rw")) {
+            exporter.export(failing, TODAY, raf.getChannel(), null);
+            fail("Failing source not reported");
+        } catch (IllegalStateException expected) {
+            // Passed on once the gzip stream is released
+        }
+
+        // Written straight to the new channel, not through the old gzip stream
+        String csv = read(export(table, exporter.setGzip(false)));
+        assertTrue(csv, csv.startsWith("id,name,expiry,days_left,status\n1,Milk,"));
+    }
+
+    @Test
+    public void csv_exportsMillionRowsInSeconds() throws IOException {
+        ProductTable table = new ProductTable(1_000_000);
+        for (int i = 0; i < 1_000_000; i++) {
+            table.insert(i + 1, "Product " + (i % 5000), TODAY - 50 + i % 400);
+        }
+        File file = folder.newFile("large.csv");
+        ProductExporter exporter = new ProductExporter().setOrder(ProductExporter.Order.EXPIRY);
+
+        long start = System.nanoTime();
+        int written;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            written = exporter.export(exporter.openSource(table), TODAY, raf.getChannel(), null);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        assertEquals(1_000_000, written);
+        assertTrue("Exported 1M rows in " + seconds + " s", seconds < 5);
+    }
+
+    @Test
+    public void tableSource_copiesWholeDaysAndSkipsTombstones() {
+        ProductTable table = new ProductTable();
+        int[] rows = new int[3 * ProductExporter.CHUNK_SIZE];
+        for (int i = 0; i < rows.length; i++) {
+            // Two crowded days, inserted interleaved
+            rows[i] = table.insert(i + 1, "Product " + i, TODAY + 1 - i % 2);
+        }
+        table.insert(rows.length + 1, "Late", TODAY + 5);
+        for (int i = 0; i < rows.length; i += 4) {
+            table.delete(rows[i]);
+        }
+
+        ProductExporter.Source source = new ProductExporter()
+                .setOrder(ProductExporter.Order.EXPIRY).openSource(table);
+        assertEquals(table.size(), source.getTotal());
+        ProductExporter.Chunk chunk = new ProductExporter.Chunk();
+        assertTrue(source.fill(chunk));
+        // The first day does not fit one chunk but is not split
+        assertEquals(rows.length / 2, chunk.size());
+        chunk = new ProductExporter.Chunk();
+        assertFalse(source.fill(chunk));
+        assertEquals(rows.length / 4 + 1, chunk.size());
+
+        source = new ProductExporter().openSource(table);
+        int filled = 0;
+        boolean more = true;
+        while (more) {
+            chunk = new ProductExporter.Chunk();
+            more = source.fill(chunk);
+            assertTrue(chunk.size() <= ProductExporter.CHUNK_SIZE);
+            filled += chunk.size();
+        }
+        assertEquals(table.size(), filled);
+    }
+
+    @Test
+    public void expiryOrder_keepsListOrderWithinADay() throws IOException {
+        ProductTable table = new ProductTable();
+        table.insert(1, "A", TODAY + 2);
+        int moved = table.insert(2, "B", TODAY + 1);
+        table.insert(3, "C", TODAY + 1);
+        table.insert(4, "D", TODAY + 1);
+        // Moving a row around reorders its expiry bucket, not the list
+        table.update(moved, "B", TODAY + 2);
+        table.update(moved, "B", TODAY + 1);
+
+        String csv = read(export(table, new ProductExporter().setOrder(ProductExporter.Order.EXPIRY)));
+        String[] lines = csv.split("\n");
+        assertTrue(lines[1].startsWith("2,B,"));
+        assertTrue(lines[2].startsWith("3,C,"));
+        assertTrue(lines[3].startsWith("4,D,"));
+        assertTrue(lines[4].startsWith("1,A,"));
+    }
+
+    private File export(ProductTable table, ProductExporter exporter) throws IOException {
+        File file = folder.newFile();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            exporter.export(exporter.openSource(table), TODAY, raf.getChannel(), null);
+        }
+        return file;
+    }
+
+    private static String read(File file) throws IOException {
+        try (FileInputStream in = new FileInputStream(file)) {
+            byte[] bytes = new byte[(int) file.length()];
+            int read = 0;
+            while (read < bytes.length) {
+                read += in.read(bytes, read, bytes.length - read);
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.productexpirationtrackerapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ProductIconResolverTest {
+
+    @Test
+    public void resolve_keepsWholeEmojiGraphemes() {
+        assertEquals("🥛", ProductIconResolver.resolve("🥛 Milk"));
+        assertEquals("☕", ProductIconResolver.resolve("☕ Coffee"));
+        assertEquals("☕️", ProductIconResolver.resolve("☕️Coffee"));
+        assertEquals("👨‍👩‍👧", ProductIconResolver.resolve("👨‍👩‍👧 Family pack"));
+        assertEquals("👍🏽", ProductIconResolver.resolve("👍🏽 Thumbs"));
+        assertEquals("🇫🇷", ProductIconResolver.resolve("🇫🇷🇮🇹 Brie"));
+        assertEquals("1️⃣", ProductIconResolver.resolve("1️⃣ One"));
+        assertEquals("🏴󠁧󠁢󠁳󠁣󠁴󠁿", ProductIconResolver.resolve("🏴󠁧󠁢󠁳󠁣󠁴󠁿 Shortbread"));
+        assertEquals("🧑‍🍳", ProductIconResolver.resolve("  🧑‍🍳 Ready meal"));
+    }
+
+    @Test
+    public void resolve_fallsBackToCategoryIcon() {
+        assertEquals("🥛", ProductIconResolver.resolve("Semi skimmed milk"));
+        assertEquals("🍦", ProductIconResolver.resolve("Vanilla Ice Cream"));
+        assertEquals("🥩", ProductIconResolver.resolve("Steak"));
+        assertEquals("🥩", ProductIconResolver.resolve("Ribeye steak"));
+        assertEquals(ProductIconResolver.DEFAULT_ICON, ProductIconResolver.resolve("X"));
+        assertEquals(ProductIconResolver.DEFAULT_ICON, ProductIconResolver.resolve(""));
+        assertEquals(ProductIconResolver.DEFAULT_ICON, ProductIconResolver.resolve("12 Items"));
+    }
+
+    @Test
+    public void iconOf_sharesOneIconPerName() {
+        ProductIconResolver icons = new ProductIconResolver();
+        ProductTable table = new ProductTable();
+        for (int i = 0; i < 1000; i++) {
+            table.insert(i + 1, i % 2 == 0 ? "🥛 Milk" : "🥛 Oat Milk", 20000 + i);
+        }
+        ProductSnapshot snapshot = table.snapshot();
+
+        String first = icons.iconOf(snapshot.getNameId(0), snapshot.getName(0));
+        for (int i = 0; i < snapshot.size(); i++) {
+            // Interned across names too, so every row holds the same instance
+            assertSame(first, icons.iconOf(snapshot.getNameId(i), snapshot.getName(i)));
+        }
+        // An id now naming something else is not served the old icon
+        assertEquals("🍞", icons.iconOf(snapshot.getNameId(0), "🍞 Bread"));
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.productexpirationtrackerapp;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ProductImporterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<String> names = new ArrayList<>();
+    private final List<Integer> days = new ArrayList<>();
+    private int batches;
+
+    private final ProductImporter.Sink sink = new ProductImporter.Sink() {
+        @Override
+        public void commit(String[] batchNames, int[] batchDays, int count) {
+            batches++;
+            for (int i = 0; i < count; i++) {
+                names.add(batchNames[i]);
+                days.add(batchDays[i]);
+            }
+        }
+    };
+
+    @Test
+    public void csv_readsQuotedFieldsAndHeaderOrder() throws IOException {
+        File file = write("products.csv",
+                "\uFEFFexpiry,name\r\n"
+                        + "2025-01-15,🧀 Cheese\r\n"
+                        + "2024-02-29,\"Milk, \"\"whole\"\"\"\r\n"
+                        + "\n"
+                        + "2025-03-01,  Coffee  ");
+
+        ProductImporter.Result result = new ProductImporter().importFile(file, sink, null);
+
+        assertEquals(3, result.imported);
+        assertEquals(0, result.rejected);
+        assertEquals("🧀 Cheese", names.get(0));
+        assertEquals("Milk, \"whole\"", names.get(1));
+        assertEquals("Coffee", names.get(2));
+        assertEquals((int) LocalDate.of(2024, 2, 29).toEpochDay(), (int) days.get(1));
+    }
+
+    @Test
+    public void csv_reportsBadRowsAndKeepsGoodOnes() throws IOException {
+        File file = write("products.csv",
+                "Bread,2025-01-10\n"
+                        + ",2025-01-10\n"
+                        + "Eggs,2025-02-30\n"
+                        + "Apples,10/01/2025\n"
+                        + "Steak\n"
+                        + "\"Fish,2025-01-10\n"
+                        + "Grapes,2025-01-20\n");
+
+        ProductImporter.Result result = new ProductImporter().importFile(file, sink, null);
+
+        assertEquals(2, result.imported);
+        assertEquals(5, result.rejected);
+        assertEquals(5, result.errors.size());
+        assertEquals(2, result.errors.get(0).row);
+        assertEquals(6, result.errors.get(4).row);
+        assertEquals("Grapes", names.get(1));
+    }
+
+    @Test
+    public void json_readsRecordsAndSkipsOtherMembers() throws IOException {
+        File file = write("products.json",
+                "[{\"sku\": 12, \"name\": \"Caf\\u00e9 \\\"beans\\\"\", \"tags\": [\"a\", {\"name\": \"x\"}],"
+                        + " \"expiry\": \"2025-03-01\"},\n"
+                        + " {\"name\": \"Milk\", \"expiry_date\": \"2024-12-25\"},\n"
+                        + " {\"name\": \"Eggs\", \"expiry\": 20241220},\n"
+                        + " {\"expiry\": \"2024-12-20\"}]");
+
+        ProductImporter.Result result = new ProductImporter().importFile(file, sink, null);
+
+        assertEquals(2, result.imported);
+        assertEquals(2, result.rejected);
+        assertEquals("Café \"beans\"", names.get(0));
+        assertEquals((int) LocalDate.of(2024, 12, 25).toEpochDay(), (int) days.get(1));
+        assertEquals(3, result.errors.get(0).row);
+    }
+
+    @Test
+    public void cancel_stopsBeforeRemainingBatches() throws IOException {
+        File file = writeRows("products.csv", ProductImporter.BATCH_SIZE * 4);
+        final ProductImporter importer = new ProductImporter();
+
+        ProductImporter.Result result = importer.importFile(file, new ProductImporter.Sink() {
+            @Override
+            public void commit(String[] batchNames, int[] batchDays, int count) throws IOException {
+                sink.commit(batchNames, batchDays, count);
+                importer.cancel();
+            }
+        }, null);
+
+        assertTrue(result.cancelled);
+        assertEquals(ProductImporter.BATCH_SIZE, result.imported);
+        assertEquals(1, batches);
+    }
+
+    @Test
+    public void csv_importsAtLeast100kRowsPerSecond() throws IOException {
+        int rows = 500_000;
+        File file = writeRows("large.csv", rows);
+        final int[] count = new int[1];
+        ProductImporter.Sink counting = new ProductImporter.Sink() {
+            @Override
+            public void commit(String[] batchNames, int[] batchDays, int batchCount) {
+                count[0] += batchCount;
+            }
+        };
+
+        // Warm up the parser before timing it
+        new ProductImporter().importFile(file, counting, null);
+        count[0] = 0;
+
+        long start = System.nanoTime();
+        ProductImporter.Result result = new ProductImporter().importFile(file, counting, null);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        assertEquals(rows, result.imported);
+        assertEquals(rows, count[0]);
+        assertTrue("Imported " + (int) (rows / seconds) + " rows/sec", rows / seconds >= 100_000);
+    }
+
+    private File writeRows(String fileName, int rows) throws IOException {
+        File file = folder.newFile(fileName);
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file),
+                StandardCharsets.UTF_8))) {
+            writer.write("name,expiry\n");
+            LocalDate day = LocalDate.of(2024, 1, 1);
+            for (int i = 0; i < rows; i++) {
+                writer.write("Product " + i + "," + day.plusDays(i % 1000) + "\n");
+            }
+        }
+        return file;
+    }
+
+    private File write(String fileName, String content) throws IOException {
+        File file = folder.newFile(fileName);
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return file;
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.productexpirationtrackerapp;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ProductJournalTest {
+
+    private static final int TODAY = 20000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void records_roundTripInWriteOrder() throws IOException {
+        File dir = folder.newFolder();
+        ProductJournal journal = open(dir, new Recorder());
+        journal.appendAdd(1, "🥛 Milk", TODAY);
+        journal.appendUpdate(1, "Oat milk", TODAY + 3);
+        journal.appendAddBatch(2, new String[] {"Bread", "Eggs"}, new int[] {TODAY + 1, TODAY + 2}, 2);
+        journal.appendDeleteBatch(new long[] {2, 3}, 2);
+        journal.appendDelete(1);
+        journal.close();
+
+        Recorder replayed = new Recorder();
+        journal = open(dir, replayed);
+        assertEquals(11, journal.getRecordCount());
+        journal.close();
+        assertEquals(events(
+                "add 1 🥛 Milk " + TODAY,
+                "update 1 Oat milk " + (TODAY + 3),
+                "add 2 Bread " + (TODAY + 1),
+                "add 3 Eggs " + (TODAY + 2),
+                "delete 2",
+                "delete 3",
+                "delete 1"), replayed.events);
+    }
+
+    @Test
+    public void tornBatch_isCutOffWithTheRestOfTheTail() throws IOException {
+        File dir = folder.newFolder();
+        File file = new File(dir, "products.journal");
+        ProductJournal journal = open(dir, new Recorder());
+        journal.appendAdd(1, "Milk", TODAY);
+        journal.flush();
+        long beforeBatch = file.length();
+        journal.appendAddBatch(2, new String[] {"Bread", "Eggs"}, new int[] {TODAY, TODAY}, 2);
+        journal.close();
+        // The commit record never fully reached the disk
+        truncate(file, file.length() - 3);
+
+        Recorder replayed = new Recorder();
+        journal = open(dir, replayed);
+        assertEquals(events("add 1 Milk " + TODAY), replayed.events);
+        assertEquals(beforeBatch, file.length());
+
+        // Appends carry on from the cut
+        journal.appendDelete(1);
+        journal.close();
+        replayed = new Recorder();
+        open(dir, replayed).close();
+        assertEquals(events("add 1 Milk " + TODAY, "delete 1"), replayed.events);
+    }
+
+    @Test
+    public void badChecksumAtTheTail_dropsThatRecord() throws IOException {
+        File dir = folder.newFolder();
+        File file = new File(dir, "products.journal");
+        ProductJournal journal = open(dir, new Recorder());
+        journal.appendAdd(1, "Milk", TODAY);
+        journal.appendAdd(2, "Bread", TODAY);
+        journal.close();
+        long length = file.length();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(length - 1);
+            int last = raf.read();
+            raf.seek(length - 1);
+            raf.write(last ^ 0xFF);
+        }
+
+        Recorder replayed = new Recorder();
+        journal = open(dir, replayed);
+        assertEquals(1, journal.getRecordCount());
+        journal.close();
+        assertEquals(events("add 1 Milk " + TODAY), replayed.events);
+        assertTrue(file.length() < length);
+    }
+
+    @Test
+    public void batchWithOversizedName_writesNothing() throws IOException {
+        File dir = folder.newFolder();
+        ProductJournal journal = open(dir, new Recorder());
+        journal.appendAdd(1, "Milk", TODAY);
+        StringBuilder name = new StringBuilder();
+        while (name.length() <= ProductJournal.MAX_NAME_BYTES) {
+            name.append('x');
+        }
+        assertFalse(ProductJournal.fitsName(name.toString()));
+        try {
+            journal.appendAddBatch(2, new String[] {"Bread", name.toString()}, new int[] {TODAY, TODAY}, 2);
+            fail("Oversized name accepted");
+        } catch (IllegalArgumentException expected) {
+            // No begin record was written, so later records still replay
+        }
+        journal.appendAdd(4, "Eggs", TODAY);
+        journal.close();
+
+        Recorder replayed = new Recorder();
+        open(dir, replayed).close();
+        assertEquals(events("add 1 Milk " + TODAY, "add 4 Eggs " + TODAY), replayed.events);
+    }
+
+    @Test
+    public void compact_thenReopen_sharesNamesAndReplaysLaterRecords() throws IOException {
+        File dir = folder.newFolder();
+        ProductJournal journal = open(dir, new Recorder());
+        journal.appendAdd(9, "Gone", TODAY);
+        journal.compact(10, new long[] {1, 2, 3}, new int[] {0, 1, 0}, new String[] {"Milk", "Bread"}, 2,
+                new int[] {TODAY, TODAY + 1, TODAY + 2}, 3);
+        assertEquals(0, journal.getRecordCount());
+        journal.appendUpdate(2, "Butter", TODAY + 5);
+        journal.close();
+
+        Recorder replayed = new Recorder();
+        open(dir, replayed).close();
+        assertEquals(events(
+                "snapshot 10 3",
+                "add 1 Milk " + TODAY,
+                "add 2 Bread " + (TODAY + 1),
+                "add 3 Milk " + (TODAY + 2),
+                "update 2 Butter " + (TODAY + 5)), replayed.events);
+        assertSame(replayed.names.get(0), replayed.names.get(2));
+    }
+
+    @Test
+    public void journalOfThePreviousGeneration_isSkipped() throws IOException {
+        File dir = folder.newFolder();
+        File file = new File(dir, "products.journal");
+        ProductJournal journal = open(dir, new Recorder());
+        journal.appendAdd(1, "Milk", TODAY);
+        journal.flush();
+        byte[] previous = Files.readAllBytes(file.toPath());
+        journal.compact(2, new long[] {1}, new int[] {0}, new String[] {"Milk"}, 1, new int[] {TODAY}, 1);
+        journal.close();
+        // Crash after the snapshot rename, before the journal was emptied
+        Files.write(file.toPath(), previous);
+
+        Recorder replayed = new Recorder();
+        journal = open(dir, replayed);
+        assertEquals(events("snapshot 2 1", "add 1 Milk " + TODAY), replayed.events);
+        journal.appendDelete(1);
+        journal.close();
+
+        replayed = new Recorder();
+        open(dir, replayed).close();
+        assertEquals(events("snapshot 2 1", "add 1 Milk " + TODAY, "delete 1"), replayed.events);
+    }
+
+    @Test
+    public void journalOfAnUnrelatedGeneration_failsToOpen() throws IOException {
+        File dir = folder.newFolder();
+        File file = new File(dir, "products.journal");
+        ProductJournal journal = open(dir, new Recorder());
+        journal.compact(1, new long[0], new int[0], new String[0], 0, new int[0], 0);
+        journal.close();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(8);
+            raf.writeLong(7);
+        }
+
+        try {
+            open(dir, new Recorder());
+            fail("Journal of generation 7 replayed over snapshot generation 1");
+        } catch (IOException expected) {
+            // Reported rather than replayed
+        }
+    }
+
+    private static ProductJournal open(File dir, Recorder recorder) throws IOException {
+        ProductJournal journal = new ProductJournal(dir);
+        journal.open(recorder);
+        return journal;
+    }
+
+    private static void truncate(File file, long length) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(length);
+        }
+    }
+
+    private static List<String> events(String... events) {
+        List<String> list = new ArrayList<>();
+        for (String event : events) {
+            list.add(event);
+        }
+        return list;
+    }
+
+    private static class Recorder implements ProductJournal.Visitor {
+        final List<String> events = new ArrayList<>();
+        final List<String> names = new ArrayList<>();
+
+        @Override
+        public void onSnapshot(long nextId, int rowCount) {
+            events.add("snapshot " + nextId + " " + rowCount);
+        }
+
+        @Override
+        public void onAdd(long id, String name, int expiryDay) {
+            events.add("add " + id + " " + name + " " + expiryDay);
+            names.add(name);
+        }
+
+        @Override
+        public void onDelete(long id) {
+            events.add("delete " + id);
+        }
+
+        @Override
+        public void onUpdate(long id, String name, int expiryDay) {
+            events.add("update " + id + " " + name + " " + expiryDay);
+        }
+    }
+}
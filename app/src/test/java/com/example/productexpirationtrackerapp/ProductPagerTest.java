@@ -0,0 +1,97 @@
+package com.example.productexpirationtrackerapp;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ProductPagerTest {
+
+    private static final int TODAY = 20000;
+
+    private final ProductRowModelFactory factory = new ProductRowModelFactory(
+            new int[] {1, 2, 3, 4}, new int[] {5, 6, 7, 8}, new int[] {9, 10, 11, 12});
+
+    // Stands in for the main thread: tasks run when the test drains the queue
+    private final LinkedBlockingQueue<Runnable> mainQueue = new LinkedBlockingQueue<>();
+    private final Executor mainExecutor = new Executor() {
+        @Override
+        public void execute(Runnable task) {
+            mainQueue.add(task);
+        }
+    };
+    private final List<Integer> loaded = new ArrayList<>();
+    private final ProductPager pager = new ProductPager(factory, mainExecutor, new ProductPager.Listener() {
+        @Override
+        public void onPageLoaded(int startPosition, int count) {
+            loaded.add(startPosition);
+        }
+    });
+
+    @Test
+    public void pageBuiltWhileTheTableChanged_keepsTheModelsStillShowingTheirRows() throws Exception {
+        ProductTable table = new ProductTable();
+        int[] rows = new int[3 * ProductPager.PAGE_SIZE];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = table.insert(i + 1, "Product " + i, TODAY + i);
+        }
+        pager.setTable(table, TODAY, null);
+        assertNull(pager.get(0));
+
+        // Changes while the first page is being built
+        table.delete(rows[0]);
+        pager.onRowsMoved();
+        table.update(rows[10], "Edited", TODAY);
+        awaitPage(0);
+
+        int last = ProductPager.PAGE_SIZE - 1;
+        for (int position = 0; position < last; position++) {
+            ProductRowModel model = pager.get(position);
+            if (position == 9) {
+                // Built before the edit
+                assertNull(model);
+            } else {
+                assertEquals(table.getId(table.rowAt(position)), model.getId());
+            }
+        }
+        // Came in from the next page after the copy was taken
+        assertNull(pager.get(last));
+
+        // Only the gaps were left, and the next build fills them
+        awaitPage(0);
+        for (int position = 0; position <= last; position++) {
+            ProductRowModel model = pager.get(position);
+            assertEquals(table.getId(table.rowAt(position)), model.getId());
+        }
+        assertEquals("Edited", pager.get(9).getName());
+    }
+
+    @Test
+    public void pageBuiltFromAnUnchangedTable_isShownAsBuilt() throws Exception {
+        ProductTable table = new ProductTable();
+        for (int i = 0; i < 10; i++) {
+            table.insert(i + 1, "Product " + i, TODAY + i);
+        }
+        pager.setTable(table, TODAY, null);
+        assertNull(pager.get(3));
+        awaitPage(0);
+        for (int position = 0; position < 10; position++) {
+            assertEquals(position + 1, pager.get(position).getId());
+        }
+    }
+
+    // Runs main-thread tasks until the page at startPosition has been loaded
+    private void awaitPage(int startPosition) throws InterruptedException {
+        loaded.clear();
+        while (!loaded.contains(startPosition)) {
+            Runnable task = mainQueue.poll(10, TimeUnit.SECONDS);
+            assertNotNull(task);
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.productexpirationtrackerapp;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ProductRepositoryTest {
+
+    private static final int TODAY = 20000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // Stands in for the main thread: tasks run when the test drains the queue
+    private final LinkedBlockingQueue<Runnable> mainQueue = new LinkedBlockingQueue<>();
+    private final Executor mainExecutor = new Executor() {
+        @Override
+        public void execute(Runnable task) {
+            mainQueue.add(task);
+        }
+    };
+
+    @Test
+    public void edits_surviveAReload() throws Exception {
+        File dir = folder.newFolder();
+        ProductRepository repository = load(dir);
+        long milk = repository.getTable().getId(repository.add("Milk", TODAY));
+        repository.addBatch(new String[] {"Bread", "Eggs", "Tea"}, new int[] {TODAY + 1, TODAY + 2, TODAY + 3}, 3);
+        assertTrue(repository.update(milk, "Oat milk", TODAY + 4));
+        ProductTable table = repository.getTable();
+        long bread = table.getId(table.rowAt(1));
+        long eggs = table.getId(table.rowAt(2));
+        assertEquals(2, repository.deleteAll(new long[] {bread, eggs, bread}, 3));
+        assertEquals(2, repository.undoDelete());
+        assertTrue(repository.delete(eggs));
+        repository.awaitIdle();
+
+        ProductTable reloaded = load(dir).getTable();
+        assertEquals(3, reloaded.size());
+        int row = reloaded.findRow(milk);
+        assertEquals("Oat milk", reloaded.getName(row));
+        assertEquals(TODAY + 4, reloaded.getExpiryDay(row));
+        assertFalse(reloaded.findRow(bread) == ProductTable.NO_ROW);
+        assertEquals(ProductTable.NO_ROW, reloaded.findRow(eggs));
+    }
+
+    @Test
+    public void oversizedName_isRefusedBeforeTheTableChanges() throws Exception {
+        ProductRepository repository = load(folder.newFolder());
+        char[] chars = new char[ProductJournal.MAX_NAME_BYTES / 2 + 1];
+        Arrays.fill(chars, 'é'); // Two bytes each in UTF-8
+        String name = new String(chars);
+        assertFalse(ProductRepository.isStorableName(name));
+        long id = repository.getTable().getId(repository.add("Milk", TODAY));
+
+        try {
+            repository.add(name, TODAY);
+            fail("Oversized name added");
+        } catch (IllegalArgumentException expected) {
+            // Nothing reached the table
+        }
+        try {
+            repository.addBatch(new String[] {"Bread", name}, new int[] {TODAY, TODAY}, 2);
+            fail("Oversized name added in a batch");
+        } catch (IllegalArgumentException expected) {
+            // Nothing reached the table
+        }
+        try {
+            repository.update(id, name, TODAY);
+            fail("Product renamed to an oversized name");
+        } catch (IllegalArgumentException expected) {
+            // Nothing reached the table
+        }
+        assertEquals(1, repository.size());
+        assertEquals("Milk", repository.getTable().getName(repository.getTable().findRow(id)));
+    }
+
+    @Test
+    public void failedCompaction_refusesWritesUntilReloaded() throws Exception {
+        File dir = folder.newFolder();
+        // A directory where compaction writes its new snapshot makes it fail
+        File blocker = new File(dir, "products.snapshot.tmp");
+        assertTrue(new File(blocker, "keep").mkdirs());
+        ProductRepository repository = load(dir);
+        final IOException[] reported = new IOException[1];
+        repository.addFailureListener(new ProductRepository.FailureListener() {
+            @Override
+            public void onStoreFailed(IOException e) {
+                reported[0] = e;
+            }
+        });
+
+        // Enough journal records to start a compaction
+        int count = 1100;
+        String[] names = new String[count];
+        int[] days = new int[count];
+        Arrays.fill(names, "Bread");
+        repository.addBatch(names, days, count);
+        repository.awaitIdle();
+        runMainTasks();
+
+        assertNotNull(reported[0]);
+        assertFalse(repository.isLoaded());
+        assertSame(reported[0], repository.getLoadFailure());
+        try {
+            repository.add("Milk", TODAY);
+            fail("Write accepted after a failed compaction");
+        } catch (IllegalStateException expected) {
+            // Refused like after a failed load
+        }
+
+        // The batch was journaled before the compaction failed
+        new File(blocker, "keep").delete();
+        blocker.delete();
+        load(repository);
+        assertEquals(count, repository.size());
+
+        // Writes are flushed again once the store is open
+        repository.add("Milk", TODAY);
+        repository.awaitIdle();
+        assertEquals(count + 1, load(dir).size());
+    }
+
+    private ProductRepository load(File dir) throws InterruptedException {
+        ProductRepository repository = new ProductRepository(dir, mainExecutor);
+        load(repository);
+        return repository;
+    }
+
+    // Runs main-thread tasks until the load has been answered
+    private void load(ProductRepository repository) throws InterruptedException {
+        final boolean[] done = new boolean[1];
+        repository.load(new ProductRepository.LoadCallback() {
+            @Override
+            public void onLoaded(ProductTable table) {
+                done[0] = true;
+            }
+
+            @Override
+            public void onLoadFailed(IOException e) {
+                throw new AssertionError("Load failed", e);
+            }
+        });
+        while (!done[0]) {
+            Runnable task = mainQueue.poll(10, TimeUnit.SECONDS);
+            assertNotNull(task);
+            task.run();
+        }
+    }
+
+    private void runMainTasks() {
+        for (Runnable task; (task = mainQueue.poll()) != null; ) {
+            task.run();
+        }
+    }
+}
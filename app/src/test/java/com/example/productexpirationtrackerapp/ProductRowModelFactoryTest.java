@@ -0,0 +1,64 @@
+package com.example.productexpirationtrackerapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ProductRowModelFactoryTest {
+
+    private static final int TODAY = 20000;
+
+    private final ProductRowModelFactory factory = new ProductRowModelFactory(
+            new int[] {1, 2, 3, 4}, new int[] {5, 6, 7, 8}, new int[] {9, 10, 11, 12});
+
+    @Test
+    public void build_singleRowMatchesSnapshotModel() {
+        ProductTable table = new ProductTable();
+        table.insert(1, "🥛 Milk", TODAY - 3);
+        int row = table.insert(2, "🍞 Bread", TODAY + 5);
+
+        ProductRowModel paged = factory.build(table.snapshot(), 0, 2, TODAY)[1];
+        ProductRowModel single = factory.build(table, row, TODAY);
+
+        assertEquals(paged.getId(), single.getId());
+        assertEquals(paged.getRow(), single.getRow());
+        assertEquals(paged.getName(), single.getName());
+        assertEquals(paged.getIcon(), single.getIcon());
+        assertEquals(paged.getExpiryText(), single.getExpiryText());
+        assertEquals("5 days left", single.getDaysLeftText());
+        assertEquals(paged.getStatus(), single.getStatus());
+        assertEquals(paged.getIndicatorColor(), single.getIndicatorColor());
+    }
+
+    @Test
+    public void build_marksExpiredRows() {
+        ProductTable table = new ProductTable();
+        int row = table.insert(1, "🥛 Milk", TODAY - 1);
+
+        ProductRowModel model = factory.build(table, row, TODAY);
+
+        assertEquals(ExpiryStatus.EXPIRED, model.getStatus());
+        assertEquals("EXPIRED", model.getDaysLeftText());
+        assertEquals(1, model.getDaysLeftTextColor());
+    }
+
+    @Test
+    public void build_preparesTextOfPagedRowsOnly() {
+        ProductTable table = new ProductTable();
+        int row = table.insert(1, "🥛 Milk", TODAY + 2);
+        ProductRowModelFactory preparing = new ProductRowModelFactory(
+                new int[] {1, 2, 3, 4}, new int[] {5, 6, 7, 8}, new int[] {9, 10, 11, 12},
+                new ProductRowModelFactory.TextPreparer() {
+                    @Override
+                    public Object prepare(String icon, String name, String expiryText, String daysLeftText) {
+                        return icon + "|" + name + "|" + daysLeftText;
+                    }
+                });
+
+        ProductRowModel paged = preparing.build(table.snapshot(), 0, 1, TODAY)[0];
+
+        assertEquals(paged.getIcon() + "|🥛 Milk|2 days left", paged.getPreparedText());
+        assertNull(preparing.build(table, row, TODAY).getPreparedText());
+        assertNull(factory.build(table.snapshot(), 0, 1, TODAY)[0].getPreparedText());
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.productexpirationtrackerapp;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ProductSearchTest {
+
+    private static final String[] WORDS = {
+            "milk", "cheese", "bread", "yoghurt", "butter", "apples", "coffee", "cookies",
+            "chicken", "salmon", "spinach", "tomatoes", "rice", "pasta", "eggs", "cream"
+    };
+
+    @Test
+    public void prefixMatchesRankAboveSubstringAndTypoMatches() {
+        ProductTable table = new ProductTable();
+        table.insert(1, "🧀 Goat cheese", 100);
+        table.insert(2, "🥛 Milk", 100);
+        table.insert(3, "Buttermilk", 100);
+        table.insert(4, "Crème fraîche", 100);
+        table.insert(5, "🥛 Milk", 101);
+
+        assertEquals(List.of("🥛 Milk", "🥛 Milk", "Buttermilk"), names(filter(table, "milk")));
+        assertEquals(List.of("🥛 Milk", "🥛 Milk"), names(filter(table, "mi")));
+        assertEquals(List.of("Crème fraîche"), names(filter(table, "creme FRAICHE")));
+        assertEquals(List.of("🧀 Goat cheese"), names(filter(table, "chese")));
+        assertEquals(0, filter(table, "cheddar").size());
+    }
+
+    @Test
+    public void reclaimedNamesDropOutAndReusedIdsAreFound() {
+        ProductTable table = new ProductTable();
+        int milk = table.insert(1, "Milk", 100);
+        table.insert(2, "Milk chocolate", 100);
+        table.delete(milk);
+        table.reclaimDeleted(new int[0], 0);
+        assertEquals(List.of("Milk chocolate"), names(filter(table, "milk")));
+
+        // Takes the id Milk had
+        table.insert(3, "Oat milk", 100);
+        assertEquals(List.of("Milk chocolate", "Oat milk"), names(filter(table, "milk")));
+        assertEquals(List.of("Oat milk"), names(filter(table, "oat")));
+    }
+
+    @Test
+    public void extendingTheQueryNarrowsThePreviousResults() {
+        ProductTable table = new ProductTable();
+        table.insert(1, "Milk", 100);
+        table.insert(2, "Mint tea", 100);
+        table.insert(3, "Lime", 100);
+        ProductSnapshot snapshot = table.snapshot();
+        ProductSearch search = new ProductSearch();
+
+        assertEquals(List.of("Milk", "Mint tea"), names(search.filter(table.getSearchIndex(), snapshot, "m")));
+        assertEquals(List.of("Milk", "Mint tea"), names(search.filter(table.getSearchIndex(), snapshot, "mi")));
+        // Substring matching starts at three characters, so this is a fresh search
+        assertEquals(List.of("Milk"), names(search.filter(table.getSearchIndex(), snapshot, "mil")));
+        assertEquals(List.of("Milk"), names(search.filter(table.getSearchIndex(), snapshot, "milk")));
+        assertEquals(3, search.filter(table.getSearchIndex(), snapshot, "").size());
+        assertEquals(List.of("Lime"), names(search.filter(table.getSearchIndex(), snapshot, "ime")));
+    }
+
+    @Test
+    public void selectionsSkippedForNewerKeystrokes_stillNarrowCorrectly() {
+        ProductTable table = new ProductTable();
+        table.insert(1, "Milk", 100);
+        table.insert(2, "Mint tea", 100);
+        table.insert(3, "Milkshake", 100);
+        table.insert(4, "Lime", 100);
+        ProductSnapshot snapshot = table.snapshot();
+        ProductSearch search = new ProductSearch();
+        NameSearchIndex index = table.getSearchIndex();
+
+        assertEquals(List.of("Milk", "Mint tea", "Milkshake"),
+                names(search.select(snapshot, search.match(index, snapshot, "m"))));
+        // Superseded before the background thread got to them
+        search.match(index, snapshot, "mi");
+        search.match(index, snapshot, "");
+        ProductSearch.NameMatches milk = search.match(index, snapshot, "milk");
+        assertEquals(List.of("Milk", "Milkshake"), names(search.select(snapshot, milk)));
+        search.match(index, snapshot, "lime");
+        // Same as a fresh search, the fuzzy match of Milk included
+        assertEquals(names(filter(table, "milks")),
+                names(search.select(snapshot, search.match(index, snapshot, "milks"))));
+        assertSame(snapshot, search.select(snapshot, search.match(index, snapshot, " ")));
+    }
+
+    @Test
+    public void keystrokeOver200kProductsFitsInAFrame() {
+        ProductTable table = new ProductTable(200_000);
+        for (int i = 0; i < 200_000; i++) {
+            String name = WORDS[i % WORDS.length] + " " + WORDS[(i / 7) % WORDS.length] + " lot " + (i % 20_000);
+            table.insert(i + 1, name, 20000 + i % 300);
+        }
+        ProductSnapshot snapshot = table.snapshot();
+        String[] keystrokes = {"c", "ch", "che", "chee", "chees", "cheese", "cheese l", "cheese lo", "cheese lot",
+                "cheese lot 1", "cheese lot 12"};
+
+        // Warm up, then time a whole typing sequence
+        for (int round = 0; round < 20; round++) {
+            ProductSearch search = new ProductSearch();
+            for (String query : keystrokes) {
+                search.filter(table.getSearchIndex(), snapshot, query);
+            }
+        }
+        ProductSearch search = new ProductSearch();
+        long slowest = 0;
+        for (String query : keystrokes) {
+            long start = System.nanoTime();
+            search.filter(table.getSearchIndex(), snapshot, query);
+            slowest = Math.max(slowest, System.nanoTime() - start);
+        }
+        assertTrue("Slowest keystroke took " + slowest / 1_000_000.0 + " ms", slowest < 16_000_000L);
+    }
+
+    private static ProductSnapshot filter(ProductTable table, String query) {
+        return new ProductSearch().filter(table.getSearchIndex(), table.snapshot(), query);
+    }
+
+    private static List<String> names(ProductSnapshot snapshot) {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < snapshot.size(); i++) {
+            names.add(snapshot.getName(i));
+        }
+        return names;
+    }
+}
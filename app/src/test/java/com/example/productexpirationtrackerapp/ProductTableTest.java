@@ -0,0 +1,448 @@
+package com.example.productexpirationtrackerapp;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ProductTableTest {
+
+    private static final int TODAY = 20000;
+
+    @Test
+    public void deleteAll_removesRowsFromEveryIndex() {
+        ProductTable table = new ProductTable();
+        int[] rows = new int[10];
+        for (int i = 0; i < 10; i++) {
+            // Five expired products on two days, five still fresh
+            rows[i] = table.insert(i + 1, "Product " + i, i < 5 ? TODAY - 1 - i % 2 : TODAY + i);
+        }
+        ExpiryIndex index = table.getExpiryIndex();
+        assertEquals(5, index.countExpired(TODAY));
+
+        final int[] expired = new int[5];
+        final int[] count = new int[1];
+        index.forEachExpired(TODAY, new ExpiryIndex.RowVisitor() {
+            @Override
+            public void visit(int row, int expiryDay) {
+                expired[count[0]++] = row;
+            }
+        });
+        int version = table.getVersion();
+        table.deleteAll(expired, count[0]);
+
+        assertEquals(5, table.size());
+        assertEquals(version + 1, table.getVersion());
+        assertEquals(0, index.countExpired(TODAY));
+        assertEquals(5, index.size());
+        assertEquals(TODAY + 5, index.firstDayAtOrAfter(Integer.MIN_VALUE));
+        for (int i = 0; i < 5; i++) {
+            assertEquals(ProductTable.NO_ROW, table.findRow(i + 1));
+            assertFalse(table.isLive(rows[i]));
+        }
+        assertEquals(rows[7], table.findRow(8));
+    }
+
+    @Test
+    public void deleteAll_reusesFreedRows() {
+        ProductTable table = new ProductTable();
+        int first = table.insert(1, "Milk", TODAY);
+        int second = table.insert(2, "Bread", TODAY + 1);
+        int kept = table.insert(3, "Butter", TODAY + 3);
+        table.deleteAll(new int[]{first, second}, 2);
+        // Tombstoned rows are reused once they have been reclaimed
+        assertEquals(2, table.reclaimDeleted(new int[0], 0));
+        assertEquals(kept, table.rowAt(0));
+
+        int reused = table.insert(4, "Eggs", TODAY + 2);
+        assertTrue(reused == first || reused == second);
+        assertEquals(2, table.size());
+    }
+
+    @Test
+    public void restore_putsRowBackAtItsPosition() {
+        ProductTable table = new ProductTable();
+        table.insert(1, "Milk", TODAY - 1);
+        int bread = table.insert(2, "Bread", TODAY - 2);
+        table.insert(3, "Eggs", TODAY + 4);
+        table.delete(bread);
+
+        assertEquals(2, table.size());
+        assertEquals(1, table.getDeletedCount());
+        assertEquals(ProductTable.NO_ROW, table.findRow(2));
+        assertEquals(bread, table.findDeletedRow(2));
+        assertEquals(1, table.getExpiryIndex().countExpired(TODAY));
+        assertEquals(3, table.getId(table.rowAt(1)));
+
+        table.restore(bread);
+
+        assertEquals(3, table.size());
+        assertEquals(0, table.getDeletedCount());
+        assertEquals(bread, table.findRow(2));
+        assertEquals(bread, table.rowAt(1));
+        assertEquals(2, table.getExpiryIndex().countExpired(TODAY));
+    }
+
+    @Test
+    public void reclaimDeleted_sparesKeptTombstones() {
+        ProductTable table = new ProductTable();
+        int[] rows = new int[6];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = table.insert(i + 1, "Product " + i, TODAY + i);
+        }
+        table.deleteAll(new int[]{rows[1], rows[3], rows[4]}, 3);
+
+        assertEquals(2, table.reclaimDeleted(new int[]{rows[3]}, 1));
+        assertEquals(1, table.getDeletedCount());
+        assertEquals(ProductTable.NO_ROW, table.findDeletedRow(2));
+        assertEquals(rows[3], table.findDeletedRow(4));
+        assertEquals(3, table.size());
+        assertEquals(rows[5], table.rowAt(2));
+
+        table.restore(rows[3]);
+        assertEquals(rows[3], table.rowAt(2));
+        assertEquals(rows[5], table.rowAt(3));
+    }
+
+    @Test
+    public void positions_followChangesDuringSlicedReclaim() {
+        ProductTable table = new ProductTable();
+        ArrayList<Long> expected = new ArrayList<>();
+        ArrayList<Integer> deleted = new ArrayList<>();
+        Random random = new Random(17);
+        long nextId = 1;
+        for (int step = 0; step < 5000; step++) {
+            int action = random.nextInt(10);
+            if (action < 4 || expected.isEmpty()) {
+                table.insert(nextId, "Product " + nextId % 50, TODAY + random.nextInt(20));
+                expected.add(nextId++);
+            } else if (action < 7) {
+                int position = random.nextInt(expected.size());
+                int row = table.rowAt(position);
+                assertEquals((long) expected.remove(position), table.getId(row));
+                table.delete(row);
+                deleted.add(row);
+            } else if (action < 8 && !deleted.isEmpty()) {
+                int row = deleted.remove(deleted.size() - 1);
+                if (table.findDeletedRow(table.getId(row)) == row) {
+                    table.restore(row);
+                    // Back where it was: after every earlier id still listed
+                    int position = 0;
+                    while (position < expected.size() && expected.get(position) < table.getId(row)) {
+                        position++;
+                    }
+                    expected.add(position, table.getId(row));
+                }
+            } else if (!table.isReclaiming()) {
+                table.beginReclaim(new int[0], 0);
+            } else {
+                table.reclaimStep(1 + random.nextInt(40));
+            }
+
+            if (step % 50 == 0) {
+                assertEquals(expected.size(), table.size());
+                ProductSnapshot snapshot = table.snapshot();
+                ArrayList<ProductSnapshot> slices = new ArrayList<>();
+                for (int position = 0; position < table.size(); position += 7) {
+                    slices.add(table.copyRows(position, 7));
+                }
+                ProductSnapshot joined = ProductSnapshot.concat(slices);
+                assertEquals(expected.size(), snapshot.size());
+                assertEquals(expected.size(), joined.size());
+                for (int position = 0; position < expected.size(); position++) {
+                    int row = table.rowAt(position);
+                    assertEquals((long) expected.get(position), table.getId(row));
+                    assertEquals(position, table.positionOf(row));
+                    assertEquals(row, snapshot.getRow(position));
+                    assertEquals(row, joined.getRow(position));
+                    assertEquals(table.getName(row), joined.getName(position));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void listObserver_replaysChangesOntoACopy() {
+        final ProductTable table = new ProductTable();
+        final ArrayList<Long> shown = new ArrayList<>();
+        final int[] changed = new int[1];
+        table.addListObserver(new ProductTable.ListObserver() {
+            @Override
+            public void onRowsInserted(int position, int count) {
+                for (int i = 0; i < count; i++) {
+                    shown.add(position + i, table.getId(table.rowAt(position + i)));
+                }
+            }
+
+            @Override
+            public void onRowsRemoved(int position, int count) {
+                shown.subList(position, position + count).clear();
+            }
+
+            @Override
+            public void onRowChanged(int position) {
+                assertEquals((long) shown.get(position), table.getId(table.rowAt(position)));
+                changed[0]++;
+            }
+        });
+
+        Random random = new Random(11);
+        ArrayList<Integer> deleted = new ArrayList<>();
+        long nextId = 1;
+        for (int step = 0; step < 2000; step++) {
+            int op = random.nextInt(6);
+            if (op == 0 || table.size() < 5) {
+                table.insert(nextId++, "Product", TODAY);
+            } else if (op == 1) {
+                int count = 1 + random.nextInt(8);
+                String[] names = new String[count];
+                int[] days = new int[count];
+                Arrays.fill(names, "Batch");
+                table.insertAll(nextId, names, days, count);
+                nextId += count;
+            } else if (op == 2) {
+                int row = table.rowAt(random.nextInt(table.size()));
+                table.delete(row);
+                deleted.add(row);
+            } else if (op == 3) {
+                HashSet<Integer> rows = new HashSet<>();
+                int count = 1 + random.nextInt(Math.min(10, table.size()));
+                while (rows.size() < count) {
+                    rows.add(table.rowAt(random.nextInt(table.size())));
+                }
+                int[] picked = new int[count];
+                int i = 0;
+                for (int row : rows) {
+                    picked[i++] = row;
+                }
+                table.deleteAll(picked, count);
+                deleted.addAll(rows);
+            } else if (op == 4 && !deleted.isEmpty()) {
+                // Rows deleted last come back, one or several at a time
+                int count = 1 + random.nextInt(Math.min(4, deleted.size()));
+                int[] rows = new int[count];
+                for (int i = 0; i < count; i++) {
+                    rows[i] = deleted.remove(deleted.size() - 1);
+                }
+                if (count == 1) {
+                    table.restore(rows[0]);
+                } else {
+                    table.restoreAll(rows, count);
+                }
+            } else {
+                table.update(table.rowAt(random.nextInt(table.size())), "Changed", TODAY + 1);
+            }
+            if (random.nextInt(50) == 0) {
+                // Older tombstones go, so only the newest stay restorable
+                deleted.clear();
+                table.reclaimDeleted(new int[0], 0);
+            }
+            assertEquals(table.size(), shown.size());
+        }
+        for (int i = 0; i < table.size(); i++) {
+            assertEquals(table.getId(table.rowAt(i)), (long) shown.get(i));
+        }
+        assertTrue(changed[0] > 0);
+    }
+
+    @Test
+    public void insert_supersedesTombstoneOfSameId() {
+        ProductTable table = new ProductTable();
+        int old = table.insert(1, "Milk", TODAY);
+        table.delete(old);
+
+        int row = table.insert(1, "Milk", TODAY + 1);
+
+        assertNotEquals(old, row);
+        assertEquals(row, table.findRow(1));
+        assertEquals(ProductTable.NO_ROW, table.findDeletedRow(1));
+        assertEquals(1, table.reclaimDeleted(new int[0], 0));
+        assertEquals(row, table.findRow(1));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    public void update_changesRowInPlace() {
+        ProductTable table = new ProductTable();
+        table.insert(1, "Milk", TODAY + 1);
+        int row = table.insert(2, "Bread", TODAY + 2);
+        table.insert(3, "Eggs", TODAY + 3);
+        int version = table.getVersion();
+
+        table.update(row, "Rye Bread", TODAY - 4);
+
+        assertEquals(version + 1, table.getVersion());
+        assertEquals(row, table.findRow(2));
+        assertEquals(row, table.rowAt(1));
+        assertEquals("Rye Bread", table.getName(row));
+        assertEquals(TODAY - 4, table.getExpiryDay(row));
+        ExpiryIndex index = table.getExpiryIndex();
+        assertEquals(1, index.countExpired(TODAY));
+        assertEquals(0, index.countBetween(TODAY + 2, TODAY + 2));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    public void countBetween_matchesAScanAcrossChanges() {
+        ProductTable table = new ProductTable();
+        ExpiryIndex index = table.getExpiryIndex();
+        Random random = new Random(7);
+        long nextId = 1;
+        for (int step = 0; step < 2000; step++) {
+            int op = random.nextInt(10);
+            int row = table.size() > 0 ? table.rowAt(random.nextInt(table.size())) : ProductTable.NO_ROW;
+            if (op < 5 || row == ProductTable.NO_ROW) {
+                table.insert(nextId++, "Product", TODAY - 400 + random.nextInt(800));
+            } else if (op < 7) {
+                table.update(row, "Product", TODAY - 400 + random.nextInt(800));
+            } else if (op < 9) {
+                table.delete(row);
+            } else {
+                table.deleteAll(new int[] {row}, 1);
+            }
+
+            int from = TODAY - 450 + random.nextInt(900);
+            int to = from + random.nextInt(200);
+            int expected = 0;
+            int expired = 0;
+            for (int position = 0; position < table.size(); position++) {
+                int day = table.getExpiryDay(table.rowAt(position));
+                expected += day >= from && day <= to ? 1 : 0;
+                expired += day < TODAY ? 1 : 0;
+            }
+            assertEquals(expected, index.countBetween(from, to));
+            assertEquals(expired, index.countExpired(TODAY));
+        }
+        assertEquals(table.size(), index.countBetween(Integer.MIN_VALUE, Integer.MAX_VALUE));
+        assertEquals(0, index.countBetween(TODAY, TODAY - 1));
+    }
+
+    @Test
+    public void statusCounts_followChangesAndDays() {
+        ProductTable table = new ProductTable();
+        Random random = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            table.insert(i + 1, "Product " + i, TODAY - 20 + random.nextInt(60));
+        }
+        for (int i = 0; i < 100; i++) {
+            int row = table.findRow(1 + random.nextInt(500));
+            if (row == ProductTable.NO_ROW) {
+                continue;
+            }
+            if (i % 3 == 0) {
+                table.delete(row);
+            } else {
+                table.update(row, table.getName(row), TODAY - 20 + random.nextInt(60));
+            }
+        }
+
+        int[] days = {TODAY, TODAY + 1, TODAY + 2, TODAY + 9, TODAY + 40, TODAY - 3, TODAY - 100, TODAY};
+        for (int day : days) {
+            int[] expected = new int[ExpiryStatus.COUNT];
+            for (int position = 0; position < table.size(); position++) {
+                expected[ExpiryStatus.classify(table.getExpiryDay(table.rowAt(position)) - day)]++;
+            }
+            int[] counts = new int[ExpiryStatus.COUNT];
+            table.getExpiryIndex().countStatuses(day, counts);
+            assertArrayEquals(expected, counts);
+        }
+    }
+
+    @Test
+    public void dayRollover_visitsOnlyRowsChangingStatus() {
+        final ProductTable table = new ProductTable();
+        Random random = new Random(7);
+        for (int i = 0; i < 300; i++) {
+            table.insert(i + 1, "Product " + i, TODAY - 10 + random.nextInt(30));
+        }
+        table.delete(table.findRow(5));
+
+        for (int days = 1; days <= 9; days += 4) {
+            final int newDay = TODAY + days;
+            final HashSet<Integer> crossed = new HashSet<>();
+            ExpiryCrossings.forEachCrossing(table.getExpiryIndex(), TODAY + 1, newDay, new ExpiryIndex.RowVisitor() {
+                @Override
+                public void visit(int row, int expiryDay) {
+                    assertEquals(row, table.rowAt(table.positionOf(row)));
+                    crossed.add(row);
+                }
+            });
+
+            HashSet<Integer> expected = new HashSet<>();
+            for (int position = 0; position < table.size(); position++) {
+                int row = table.rowAt(position);
+                int expiryDay = table.getExpiryDay(row);
+                if (ExpiryStatus.classify(expiryDay - TODAY) != ExpiryStatus.classify(expiryDay - newDay)) {
+                    expected.add(row);
+                }
+            }
+            assertEquals(expected, crossed);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void deleteAll_rejectsDeadRows() {
+        ProductTable table = new ProductTable();
+        int row = table.insert(1, "Milk", TODAY);
+        table.delete(row);
+        table.deleteAll(new int[]{row}, 1);
+    }
+
+    @Test
+    public void names_areSharedUntilTheirLastRowIsReclaimed() {
+        ProductTable table = new ProductTable();
+        int[] rows = new int[100];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = table.insert(i + 1, i % 2 == 0 ? "Milk" : "Bread", TODAY);
+        }
+        NameDictionary names = table.getNames();
+        int milk = table.getNameId(rows[0]);
+        assertEquals(2, names.size());
+        assertEquals(50, names.getRefCount(milk));
+        assertSame(table.getName(rows[0]), table.getName(rows[2]));
+
+        // Tombstones keep their name so they can be restored
+        for (int i = 0; i < rows.length; i += 2) {
+            table.delete(rows[i]);
+        }
+        assertEquals(milk, names.find("Milk"));
+        table.reclaimDeleted(new int[0], 0);
+        assertEquals(-1, names.find("Milk"));
+        assertEquals(1, names.size());
+
+        // Renaming moves the reference and the freed id is handed out again
+        table.update(rows[1], "Butter", TODAY);
+        assertEquals(milk, table.getNameId(rows[1]));
+        assertEquals(49, names.getRefCount(names.find("Bread")));
+        table.update(rows[3], "Bread", TODAY);
+        assertEquals(49, names.getRefCount(names.find("Bread")));
+    }
+
+    @Test
+    public void selection_keepsIdsPackedAcrossRemoves() {
+        ProductSelection selection = new ProductSelection();
+        for (long id = 1; id <= 40; id++) {
+            assertTrue(selection.add(id));
+        }
+        assertFalse(selection.add(7));
+        assertTrue(selection.remove(1));
+        assertFalse(selection.toggle(2));
+        assertTrue(selection.toggle(2));
+
+        assertEquals(39, selection.size());
+        long sum = 0;
+        for (int i = 0; i < selection.size(); i++) {
+            sum += selection.getIds()[i];
+        }
+        assertEquals(40 * 41 / 2 - 1, sum);
+        assertFalse(selection.contains(1));
+
+        selection.clear();
+        assertTrue(selection.isEmpty());
+        assertFalse(selection.contains(2));
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.productexpirationtrackerapp;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ShelfLifeCatalogTest {
+
+    private static final String CSV = "# name,emoji,aliases,pantry,fridge,freezer,default\n"
+            + "Milk,🥛,whole milk|skim milk,,7,90,fridge\n"
+            + "Mince,🥩,ground beef|minced beef,,2,120,fridge\n"
+            + "Mint,🌿,,,7,,fridge\n"
+            + "Bread,🍞,loaf,5,10,90,pantry\n"
+            + "\n"
+            + "Crème Fraîche,🥛,,,10,,fridge\n";
+
+    @Test
+    public void suggest_matchesNamesAndAliasesByPrefix() throws IOException {
+        ShelfLifeCatalog catalog = catalogOf(CSV);
+
+        assertEquals(5, catalog.size());
+        assertEquals(List.of("Milk", "Mince", "Mint"), names(catalog.suggest("mi", 10)));
+        assertEquals(List.of("Milk", "Mince"), names(catalog.suggest("mi", 2)));
+        assertEquals(List.of("Mince"), names(catalog.suggest("GROUND", 10)));
+        assertEquals(List.of("Milk"), names(catalog.suggest("🥛 whole", 10)));
+        assertEquals(List.of("Crème Fraîche"), names(catalog.suggest("crème", 10)));
+        assertEquals(0, catalog.suggest("cheese", 10).length);
+        assertEquals(0, catalog.suggest("  ", 10).length);
+    }
+
+    @Test
+    public void find_needsTheWholeNameOrAlias() throws IOException {
+        ShelfLifeCatalog catalog = catalogOf(CSV);
+
+        ShelfLifeCatalog.Item milk = catalog.find("Skim Milk");
+        assertEquals("🥛 Milk", milk.getDisplayName());
+        assertEquals(ShelfLifeCatalog.FRIDGE, milk.getDefaultStorage());
+        assertEquals(7, milk.getShelfLifeDays(ShelfLifeCatalog.FRIDGE));
+        assertEquals(90, milk.getShelfLifeDays(ShelfLifeCatalog.FREEZER));
+        assertEquals(ShelfLifeCatalog.NO_SHELF_LIFE, milk.getShelfLifeDays(ShelfLifeCatalog.PANTRY));
+
+        assertEquals("Bread", catalog.find("🍞 bread").getName());
+        assertNull(catalog.find("mil"));
+        assertNull(catalog.find("milkshake"));
+    }
+
+    @Test(expected = IOException.class)
+    public void readCsv_rejectsMissingDefaultShelfLife() throws IOException {
+        new ShelfLifeCatalogWriter().readCsv(new StringReader("Milk,🥛,,7,,,fridge\n"));
+    }
+
+    @Test
+    public void suggestOver500kItemsTakesUnderAMillisecond() throws IOException {
+        ShelfLifeCatalogWriter writer = new ShelfLifeCatalogWriter();
+        int[] shelfLifeDays = {ShelfLifeCatalog.NO_SHELF_LIFE, 7, 90};
+        for (int i = 0; i < 500_000; i++) {
+            writer.add("Product " + Integer.toString(i, 36), "", new String[]{"item " + i}, shelfLifeDays,
+                    ShelfLifeCatalog.FRIDGE);
+        }
+        File file = File.createTempFile("shelf_life", ".catalog");
+        file.deleteOnExit();
+        writer.write(file);
+
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            FileChannel channel = in.getChannel();
+            ShelfLifeCatalog catalog = ShelfLifeCatalog.map(channel, 0, channel.size());
+            assertEquals(500_000, catalog.size());
+            assertEquals("Product 1a", catalog.find("item 46").getName());
+
+            // Distinct queries, so none is answered from the recent-hits cache
+            for (int i = 0; i < 2_000; i++) {
+                catalog.suggest("product " + Integer.toString(i, 36), 8);
+            }
+            int lookups = 10_000;
+            long start = System.nanoTime();
+            for (int i = 0; i < lookups; i++) {
+                assertTrue(catalog.suggest("item " + (i * 37 + 10_000), 8).length > 0);
+            }
+            long average = (System.nanoTime() - start) / lookups;
+            assertTrue("Average lookup took " + average / 1_000.0 + " µs", average < 1_000_000L);
+        }
+    }
+
+    private static ShelfLifeCatalog catalogOf(String csv) throws IOException {
+        ShelfLifeCatalogWriter writer = new ShelfLifeCatalogWriter();
+        writer.readCsv(new StringReader(csv));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.write(out);
+        return new ShelfLifeCatalog(ByteBuffer.wrap(out.toByteArray()));
+    }
+
+    private static List<String> names(ShelfLifeCatalog.Item[] items) {
+        List<String> names = new ArrayList<>();
+        for (ShelfLifeCatalog.Item item : items) {
+            names.add(item.getName());
+        }
+        return names;
+    }
+}
@@ -0,0 +1,69 @@
+// JVM-only JMH benchmarks for the product store, indexes, importer and date
+// code. Those classes are plain Java, so they are compiled straight from the
+// app sources and measured on a desktop JVM; the Android-bound classes are
+// left out below. The desktop tools in tools/java are built and run from here
+// too.
+//
+//   ./gradlew :benchmark:jmh                         all benchmarks, 1k/100k/1M products
+//   ./gradlew :benchmark:jmh -PjmhInclude=Import     only those matching a regex
+//   ./gradlew :benchmark:writeShelfLifeCatalog       regenerates the catalog asset
+//
+// Scores and the GC profiler's allocation rate (gc.alloc.rate.norm is bytes
+// per operation) are written to build/reports/jmh/results.json.
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+sourceSets {
+    main {
+        java {
+            setSrcDirs(listOf("../app/src/main/java", "../tools/java"))
+            // Everything that needs the Android framework or generated resources
+            exclude(
+                "**/*Activity.java",
+                "**/*Adapter.java",
+                "**/DepthPageTransformer.java",
+                "**/OnboardingPage.java",
+                "**/ExpiryAlarm*.java",
+                "**/FrameDropTracker.java",
+                "**/RowTextPrecomputer.java",
+                "**/AppSettings.java"
+            )
+        }
+    }
+}
+
+// Rebuilds the asset the app ships from the checked-in CSV
+tasks.register<JavaExec>("writeShelfLifeCatalog") {
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("com.example.productexpirationtrackerapp.ShelfLifeCatalogWriter")
+    args(
+        rootProject.file("app/catalog/shelf_life.csv").path,
+        rootProject.file("app/src/main/assets/shelf_life.catalog").path
+    )
+}
+
+dependencies {
+    jmh(libs.jmh.core)
+    jmhAnnotationProcessor(libs.jmh.generator.annprocess)
+}
+
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    profilers.add("gc")
+    jvmArgs.add("-Xmx4g")
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("reports/jmh/results.json"))
+    if (project.hasProperty("jmhInclude")) {
+        includes.add(project.property("jmhInclude").toString())
+    }
+}
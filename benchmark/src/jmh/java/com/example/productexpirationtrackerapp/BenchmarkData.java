@@ -0,0 +1,92 @@
+package com.example.productexpirationtrackerapp;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+// Deterministic inventories shared by the benchmarks, so runs from different
+// releases measure the same data. Names repeat the way a real pantry does:
+// a few thousand distinct names, expiry days spread from a month ago to three
+// months ahead.
+final class BenchmarkData {
+
+    // Fixed reference day (2025-06-01) so status mixes do not drift with the calendar
+    static final int TODAY = 20240;
+
+    private static final long SEED = 20240601L;
+    private static final int DISTINCT_NAMES = 2000;
+    private static final String[] BASE_NAMES = {
+            "🥛 Milk", "🍞 Bread", "🧀 Cheese", "🥚 Eggs", "🍎 Apples", "🍌 Bananas",
+            "🥩 Steak", "🐟 Salmon", "🥬 Lettuce", "🍅 Tomatoes", "🧈 Butter", "🍗 Chicken",
+            "🥕 Carrots", "🍇 Grapes", "🍓 Strawberries", "🥔 Potatoes", "🧃 Orange Juice",
+            "🍦 Ice Cream", "🥫 Tomato Soup", "☕ Coffee"
+    };
+
+    private BenchmarkData() {
+    }
+
+    static String[] names(int size) {
+        String[] names = new String[size];
+        Random random = new Random(SEED);
+        for (int i = 0; i < size; i++) {
+            int variant = random.nextInt(DISTINCT_NAMES);
+            names[i] = BASE_NAMES[variant % BASE_NAMES.length] + " " + (variant / BASE_NAMES.length);
+        }
+        return names;
+    }
+
+    static int[] expiryDays(int size) {
+        int[] days = new int[size];
+        Random random = new Random(SEED + 1);
+        for (int i = 0; i < size; i++) {
+            days[i] = TODAY - 30 + random.nextInt(120);
+        }
+        return days;
+    }
+
+    static ProductTable table(int size) {
+        String[] names = names(size);
+        int[] days = expiryDays(size);
+        ProductTable table = new ProductTable(size);
+        for (int i = 0; i < size; i++) {
+            table.insert(i + 1, names[i], days[i]);
+        }
+        return table;
+    }
+
+    static String[] storageDates(int size) {
+        int[] days = expiryDays(size);
+        String[] dates = new String[size];
+        for (int i = 0; i < size; i++) {
+            dates[i] = DateService.formatStorage(days[i]);
+        }
+        return dates;
+    }
+
+    // name,expiry lines with a header, as the importer reads them
+    static byte[] csv(int size) {
+        String[] names = names(size);
+        int[] days = expiryDays(size);
+        StringBuilder text = new StringBuilder(size * 28);
+        text.append("name,expiry\n");
+        for (int i = 0; i < size; i++) {
+            text.append(names[i]).append(',').append(DateService.formatStorage(days[i])).append('\n');
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static byte[] json(int size) {
+        String[] names = names(size);
+        int[] days = expiryDays(size);
+        StringBuilder text = new StringBuilder(size * 48);
+        text.append('[');
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append("\n{\"name\":\"").append(names[i]).append("\",\"expiry\":\"")
+                    .append(DateService.formatStorage(days[i])).append("\"}");
+        }
+        text.append("\n]\n");
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
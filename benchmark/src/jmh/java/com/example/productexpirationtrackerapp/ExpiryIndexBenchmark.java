@@ -0,0 +1,76 @@
+package com.example.productexpirationtrackerapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+// Range queries on the expiry index. Counts should stay flat as the inventory
+// grows; visiting rows grows only with the number of matches.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ExpiryIndexBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private ExpiryIndex index;
+    private int[] counts;
+
+    @Setup
+    public void setUp() {
+        index = BenchmarkData.table(size).getExpiryIndex();
+        counts = new int[ExpiryStatus.COUNT];
+    }
+
+    @Benchmark
+    public int countExpired() {
+        return index.countExpired(BenchmarkData.TODAY);
+    }
+
+    @Benchmark
+    public int countExpiringThisWeek() {
+        return index.countWithin(BenchmarkData.TODAY, ExpiryStatus.WARNING_DAYS);
+    }
+
+    @Benchmark
+    public int countNextMonth() {
+        return index.countBetween(BenchmarkData.TODAY, BenchmarkData.TODAY + 30);
+    }
+
+    // What the expiry alarm runs when it arms and fires
+    @Benchmark
+    public int nextCrossingDay() {
+        return ExpiryCrossings.nextCrossingDay(index, BenchmarkData.TODAY);
+    }
+
+    @Benchmark
+    public int[] countCrossingsThisWeek() {
+        Arrays.fill(counts, 0);
+        ExpiryCrossings.countCrossings(index, BenchmarkData.TODAY - ExpiryStatus.WARNING_DAYS,
+                BenchmarkData.TODAY, counts);
+        return counts;
+    }
+
+    // Visits every row expiring within three days
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long visitExpiringSoon() {
+        final long[] sum = new long[1];
+        index.forEachWithin(BenchmarkData.TODAY, ExpiryStatus.SOON_DAYS, new ExpiryIndex.RowVisitor() {
+            @Override
+            public void visit(int row, int expiryDay) {
+                sum[0] += row;
+            }
+        });
+        return sum[0];
+    }
+}
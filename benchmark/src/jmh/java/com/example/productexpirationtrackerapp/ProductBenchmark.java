@@ -0,0 +1,99 @@
+package com.example.productexpirationtrackerapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// Per-product work done when products are created and shown: date parsing,
+// the display date, the days-left status, and building list row models.
+// Every operation covers the whole inventory.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ProductBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private String[] dates;
+    private byte[] dateBytes;
+    private ProductTable table;
+    private ProductSnapshot snapshot;
+    private ProductRowModelFactory factory;
+
+    @Setup
+    public void setUp() {
+        dates = BenchmarkData.storageDates(size);
+        dateBytes = String.join("", dates).getBytes(StandardCharsets.US_ASCII);
+        table = BenchmarkData.table(size);
+        snapshot = table.snapshot();
+        int[] colors = new int[ExpiryStatus.COUNT];
+        factory = new ProductRowModelFactory(colors, colors, colors);
+    }
+
+    // Product creation: the stored yyyy-MM-dd text through the formatter
+    @Benchmark
+    public int parseStorageDates() {
+        int sum = 0;
+        for (String date : dates) {
+            sum += DateService.parseStorage(date);
+        }
+        return sum;
+    }
+
+    // Import path: the same dates parsed from raw bytes
+    @Benchmark
+    public int parseStorageDateBytes() {
+        int sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += DateService.parseStorage(dateBytes, i * 10, 10);
+        }
+        return sum;
+    }
+
+    // New rows in the store, names interned and indexed as they arrive
+    @Benchmark
+    public ProductTable constructProducts() {
+        ProductTable products = new ProductTable();
+        for (int i = 0; i < size; i++) {
+            products.insert(i + 1, table.getName(i), DateService.parseStorage(dates[i]));
+        }
+        return products;
+    }
+
+    @Benchmark
+    public void formattedExpiryDate(Blackhole blackhole) {
+        Product product = new Product(table);
+        for (int i = 0; i < size; i++) {
+            blackhole.consume(product.moveTo(table.rowAt(i)).getFormattedExpiryDate());
+        }
+    }
+
+    // Days left and status, as the list and the detail screen classify them
+    @Benchmark
+    public void classifyStatus(Blackhole blackhole) {
+        int[] counts = new int[ExpiryStatus.COUNT];
+        for (int i = 0; i < size; i++) {
+            counts[ExpiryStatus.classify((long) snapshot.getExpiryDay(i) - BenchmarkData.TODAY)]++;
+        }
+        blackhole.consume(counts);
+    }
+
+    // Every row model the list could show, a page at a time as the pager builds them
+    @Benchmark
+    public void buildRowModels(Blackhole blackhole) {
+        for (int start = 0; start < size; start += ProductPager.PAGE_SIZE) {
+            int end = Math.min(size, start + ProductPager.PAGE_SIZE);
+            blackhole.consume(factory.build(snapshot, start, end, BenchmarkData.TODAY));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.productexpirationtrackerapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.TimeUnit;
+
+// Import parsing from a file, CSV and JSON. The sink only reads the batches,
+// so the score is the importer's own cost: chunked reads, field splitting,
+// name decoding and date validation.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ProductImportBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private File csvFile;
+    private File jsonFile;
+    private RandomAccessFile csv;
+    private RandomAccessFile json;
+    private final ProductImporter importer = new ProductImporter();
+
+    private long checksum;
+    private final ProductImporter.Sink sink = new ProductImporter.Sink() {
+        @Override
+        public void commit(String[] names, int[] expiryDays, int count) {
+            for (int i = 0; i < count; i++) {
+                checksum += expiryDays[i] + names[i].length();
+            }
+        }
+    };
+
+    @Setup
+    public void setUp() throws IOException {
+        csvFile = write("products.csv", BenchmarkData.csv(size));
+        jsonFile = write("products.json", BenchmarkData.json(size));
+        csv = new RandomAccessFile(csvFile, "r");
+        json = new RandomAccessFile(jsonFile, "r");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        csv.close();
+        json.close();
+        csvFile.delete();
+        jsonFile.delete();
+    }
+
+    @Benchmark
+    public long importCsv() throws IOException {
+        return importFrom(csv.getChannel(), ProductImporter.Format.CSV);
+    }
+
+    @Benchmark
+    public long importJson() throws IOException {
+        return importFrom(json.getChannel(), ProductImporter.Format.JSON);
+    }
+
+    private long importFrom(FileChannel channel, ProductImporter.Format format) throws IOException {
+        checksum = 0;
+        channel.position(0);
+        ProductImporter.Result result = importer.importChannel(channel, channel.size(), format, sink, null);
+        if (result.imported != size) {
+            throw new IllegalStateException("Imported " + result.imported + " of " + size);
+        }
+        return checksum;
+    }
+
+    private static File write(String name, byte[] content) throws IOException {
+        File file = File.createTempFile("benchmark-", "-" + name);
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content);
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.productexpirationtrackerapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// The columnar store: bulk insert, delete, list-order scans and id lookups
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ProductTableBenchmark {
+
+    private static final int LOOKUPS = 1000;
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private String[] names;
+    private int[] days;
+    private ProductTable table;
+    private long[] lookupIds;
+
+    @Setup
+    public void setUp() {
+        names = BenchmarkData.names(size);
+        days = BenchmarkData.expiryDays(size);
+        table = BenchmarkData.table(size);
+        lookupIds = new long[LOOKUPS];
+        Random random = new Random(size);
+        for (int i = 0; i < LOOKUPS; i++) {
+            lookupIds[i] = 1 + random.nextInt(size);
+        }
+    }
+
+    // A fresh table per invocation, since deleting consumes it
+    @State(Scope.Thread)
+    public static class FullTable {
+        ProductTable table;
+
+        @Setup(Level.Invocation)
+        public void fill(ProductTableBenchmark benchmark) {
+            table = BenchmarkData.table(benchmark.size);
+        }
+    }
+
+    @Benchmark
+    public ProductTable insert() {
+        ProductTable products = new ProductTable();
+        for (int i = 0; i < size; i++) {
+            products.insert(i + 1, names[i], days[i]);
+        }
+        return products;
+    }
+
+    // Deletes every product in list order, then lays out the list once
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 20)
+    public int deleteAll(FullTable full) {
+        ProductTable products = full.table;
+        for (long id = 1; id <= size; id++) {
+            products.delete(products.findRow(id));
+        }
+        return products.snapshot().size();
+    }
+
+    // Walks the live rows in list order through the flyweight
+    @Benchmark
+    public long scanRows() {
+        Product product = new Product(table);
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += product.moveTo(table.rowAt(i)).getExpiryEpochDay();
+        }
+        return sum;
+    }
+
+    // Copies the table for a background pass and reads it back
+    @Benchmark
+    public long scanSnapshot() {
+        ProductSnapshot snapshot = table.snapshot();
+        long sum = 0;
+        for (int i = 0; i < snapshot.size(); i++) {
+            sum += snapshot.getExpiryDay(i) + snapshot.getNameId(i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long findRows() {
+        long sum = 0;
+        for (long id : lookupIds) {
+            sum += table.findRow(id);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.productexpirationtrackerapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.TimeUnit;
+
+// Name suggestions from a memory-mapped shelf-life catalog. Lookups are a
+// binary search over the mapped keys, so they should grow with log(size) only.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ShelfLifeCatalogBenchmark {
+
+    // Far more queries than the catalog's recent-hits cache holds, so lookups miss it
+    private static final int QUERY_COUNT = 4096;
+
+    @Param({"1000", "100000", "500000"})
+    public int size;
+
+    private File file;
+    private RandomAccessFile in;
+    private ShelfLifeCatalog catalog;
+    private String[] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ShelfLifeCatalogWriter writer = new ShelfLifeCatalogWriter();
+        int[] shelfLifeDays = {ShelfLifeCatalog.NO_SHELF_LIFE, 7, 90};
+        String[] names = BenchmarkData.names(size);
+        for (int i = 0; i < size; i++) {
+            writer.add(names[i], "", new String[]{"item " + i}, shelfLifeDays, ShelfLifeCatalog.FRIDGE);
+        }
+        file = File.createTempFile("shelf_life", ".catalog");
+        writer.write(file);
+        in = new RandomAccessFile(file, "r");
+        FileChannel channel = in.getChannel();
+        catalog = ShelfLifeCatalog.map(channel, 0, channel.size());
+
+        queries = new String[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            // Three to six typed characters of an alias
+            String alias = "item " + (i * 7919L % size);
+            queries[i] = alias.substring(0, Math.min(alias.length(), 8 + i % 4));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        in.close();
+        file.delete();
+    }
+
+    @Benchmark
+    public ShelfLifeCatalog.Item[] suggest() {
+        next = (next + 1) & (QUERY_COUNT - 1);
+        return catalog.suggest(queries[next], 8);
+    }
+
+    @Benchmark
+    public ShelfLifeCatalog.Item find() {
+        next = (next + 1) & (QUERY_COUNT - 1);
+        return catalog.find(queries[next]);
+    }
+}
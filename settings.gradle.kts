@@ -21,3 +21,4 @@ dependencyResolutionManagement {
 
 rootProject.name = "Product Expiration Tracker App"
 include(":app")
+include(":benchmark")
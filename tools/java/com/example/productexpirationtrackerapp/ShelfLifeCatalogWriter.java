@@ -0,0 +1,248 @@
+package com.example.productexpirationtrackerapp;
+
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+
+// Builds the binary file read by ShelfLifeCatalog. A desktop tool, kept out of
+// the APK: the app ships its output as the shelf_life.catalog asset, and unit
+// tests and benchmarks compile it alongside the app sources.
+//
+// The asset is regenerated from app/catalog/shelf_life.csv with
+//   ./gradlew :benchmark:writeShelfLifeCatalog
+public class ShelfLifeCatalogWriter {
+
+    private static final class Entry {
+        final String name;
+        final String emoji;
+        final String[] aliases;
+        final int[] shelfLifeDays;
+        final int defaultStorage;
+
+        Entry(String name, String emoji, String[] aliases, int[] shelfLifeDays, int defaultStorage) {
+            this.name = name;
+            this.emoji = emoji;
+            this.aliases = aliases;
+            this.shelfLifeDays = shelfLifeDays;
+            this.defaultStorage = defaultStorage;
+        }
+    }
+
+    private static final class Key {
+        final byte[] bytes;
+        final int itemIndex;
+
+        Key(byte[] bytes, int itemIndex) {
+            this.bytes = bytes;
+            this.itemIndex = itemIndex;
+        }
+    }
+
+    private static final String[] STORAGE_NAMES = {"pantry", "fridge", "freezer"};
+
+    private final ArrayList<Entry> entries = new ArrayList<>();
+
+    // shelfLifeDays is indexed by ShelfLifeCatalog.PANTRY etc., NO_SHELF_LIFE where not kept
+    public void add(String name, String emoji, String[] aliases, int[] shelfLifeDays, int defaultStorage) {
+        if (name.isEmpty() || ShelfLifeCatalog.normalize(name).isEmpty()) {
+            throw new IllegalArgumentException("Item without a name");
+        }
+        if (shelfLifeDays.length != ShelfLifeCatalog.STORAGE_COUNT) {
+            throw new IllegalArgumentException(name + ": expected a shelf life per storage");
+        }
+        for (int days : shelfLifeDays) {
+            if (days < ShelfLifeCatalog.NO_SHELF_LIFE || days > Short.MAX_VALUE) {
+                throw new IllegalArgumentException(name + ": shelf life out of range");
+            }
+        }
+        if (defaultStorage < 0 || defaultStorage >= ShelfLifeCatalog.STORAGE_COUNT
+                || shelfLifeDays[defaultStorage] == ShelfLifeCatalog.NO_SHELF_LIFE) {
+            throw new IllegalArgumentException(name + ": no shelf life for the default storage");
+        }
+        entries.add(new Entry(name, emoji, aliases.clone(), shelfLifeDays.clone(), defaultStorage));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // "name,emoji,aliases,pantry days,fridge days,freezer days,default storage"
+    // per line, aliases separated by '|', blank days for storage not used.
+    // Blank lines and lines starting with '#' are skipped.
+    public void readCsv(Reader in) throws IOException {
+        BufferedReader reader = new BufferedReader(in);
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split(",", -1);
+            if (fields.length != 7) {
+                throw new IOException("Line " + lineNumber + ": expected 7 fields, found " + fields.length);
+            }
+            try {
+                int[] shelfLifeDays = new int[ShelfLifeCatalog.STORAGE_COUNT];
+                for (int storage = 0; storage < shelfLifeDays.length; storage++) {
+                    String days = fields[3 + storage].trim();
+                    shelfLifeDays[storage] = days.isEmpty() ? ShelfLifeCatalog.NO_SHELF_LIFE : Integer.parseInt(days);
+                }
+                String aliases = fields[2].trim();
+                add(fields[0].trim(), fields[1].trim(),
+                        aliases.isEmpty() ? new String[0] : aliases.split("\\|"),
+                        shelfLifeDays, storageOf(fields[6].trim()));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Line " + lineNumber + ": " + e.getMessage());
+            }
+        }
+    }
+
+    public void write(OutputStream out) throws IOException {
+        // Strings are shared, so an alias equal to another item's name costs nothing
+        LinkedHashMap<String, Integer> stringOffsets = new LinkedHashMap<>();
+        int[] stringsSize = {0};
+        int[] itemStrings = new int[entries.size() * 2];
+        ArrayList<Key> keys = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            itemStrings[i * 2] = intern(entry.name, stringOffsets, stringsSize);
+            itemStrings[i * 2 + 1] = intern(entry.emoji, stringOffsets, stringsSize);
+            HashSet<String> seen = new HashSet<>();
+            addKey(keys, seen, entry.name, i);
+            for (String alias : entry.aliases) {
+                addKey(keys, seen, alias, i);
+            }
+        }
+        keys.sort(new Comparator<Key>() {
+            @Override
+            public int compare(Key a, Key b) {
+                return compareBytes(a.bytes, b.bytes);
+            }
+        });
+        int[] keyStrings = new int[keys.size()];
+        for (int k = 0; k < keys.size(); k++) {
+            keyStrings[k] = intern(new String(keys.get(k).bytes, StandardCharsets.UTF_8), stringOffsets, stringsSize);
+        }
+
+        int prefixIndexOffset = ShelfLifeCatalog.HEADER_SIZE;
+        int keysOffset = prefixIndexOffset + ShelfLifeCatalog.PREFIX_INDEX_SIZE * 4;
+        int itemsOffset = keysOffset + keys.size() * ShelfLifeCatalog.KEY_SIZE;
+        int stringsOffset = itemsOffset + entries.size() * ShelfLifeCatalog.ITEM_SIZE;
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(ShelfLifeCatalog.MAGIC);
+        data.writeInt(ShelfLifeCatalog.VERSION);
+        data.writeInt(entries.size());
+        data.writeInt(keys.size());
+        data.writeInt(prefixIndexOffset);
+        data.writeInt(keysOffset);
+        data.writeInt(itemsOffset);
+        data.writeInt(stringsOffset);
+
+        // Entry b is the first key whose first byte is b or more; entry 256 is the key count
+        int k = 0;
+        for (int b = 0; b < ShelfLifeCatalog.PREFIX_INDEX_SIZE; b++) {
+            while (k < keys.size() && (keys.get(k).bytes[0] & 0xFF) < b) {
+                k++;
+            }
+            data.writeInt(k);
+        }
+        for (k = 0; k < keys.size(); k++) {
+            data.writeInt(keyStrings[k]);
+            data.writeInt(keys.get(k).itemIndex);
+        }
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            data.writeInt(itemStrings[i * 2]);
+            data.writeInt(itemStrings[i * 2 + 1]);
+            for (int days : entry.shelfLifeDays) {
+                data.writeShort(days);
+            }
+            data.writeByte(entry.defaultStorage);
+            data.writeByte(0);
+        }
+        for (String string : stringOffsets.keySet()) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            data.writeByte(bytes.length);
+            data.write(bytes);
+        }
+        data.flush();
+    }
+
+    public void write(File file) throws IOException {
+        try (OutputStream out = new FileOutputStream(file)) {
+            write(out);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: ShelfLifeCatalogWriter <catalog.csv> <output>");
+            System.exit(2);
+        }
+        ShelfLifeCatalogWriter writer = new ShelfLifeCatalogWriter();
+        try (Reader in = new InputStreamReader(new FileInputStream(args[0]), StandardCharsets.UTF_8)) {
+            writer.readCsv(in);
+        }
+        writer.write(new File(args[1]));
+        System.out.println("Wrote " + writer.size() + " items to " + args[1]);
+    }
+
+    private static int storageOf(String name) {
+        int storage = Arrays.asList(STORAGE_NAMES).indexOf(name.toLowerCase(Locale.ROOT));
+        if (storage < 0) {
+            throw new IllegalArgumentException("Unknown storage " + name);
+        }
+        return storage;
+    }
+
+    private static void addKey(ArrayList<Key> keys, HashSet<String> seen, String text, int itemIndex) {
+        String key = ShelfLifeCatalog.normalize(text);
+        if (!key.isEmpty() && seen.add(key)) {
+            keys.add(new Key(checkLength(key), itemIndex));
+        }
+    }
+
+    private static int intern(String string, LinkedHashMap<String, Integer> offsets, int[] size) {
+        Integer offset = offsets.get(string);
+        if (offset == null) {
+            offset = size[0];
+            offsets.put(string, offset);
+            size[0] += 1 + checkLength(string).length;
+        }
+        return offset;
+    }
+
+    private static byte[] checkLength(String string) {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 255) {
+            throw new IllegalArgumentException("Too long: " + string);
+        }
+        return bytes;
+    }
+
+    private static int compareBytes(byte[] a, byte[] b) {
+        int common = Math.min(a.length, b.length);
+        for (int i = 0; i < common; i++) {
+            int diff = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return a.length - b.length;
+    }
+}